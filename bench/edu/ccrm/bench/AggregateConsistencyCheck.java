@@ -0,0 +1,137 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.CCRMException;
+import edu.ccrm.service.*;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Consistency check for the running credit and GPA totals when course credits change
+ * between an enrollment and its later update or removal. For each EnrollmentService
+ * implementation it checks a single enroll, credit change and unenroll, a grade update
+ * after a credit change, and a random mix that ends with every student unenrolled from
+ * all ungraded courses, after which no student may hold credit hours. Exits with an
+ * exception on the first difference.
+ * Run with: java -cp bin:bench-bin edu.ccrm.bench.AggregateConsistencyCheck [operations] [seed]
+ */
+public class AggregateConsistencyCheck {
+    private static final int STUDENTS = 100;
+    private static final int COURSES = 16;
+    
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        
+        Map<String, BiFunction<StudentService, CourseService, EnrollmentService>> implementations = new LinkedHashMap<>();
+        implementations.put("EnrollmentServiceImpl", EnrollmentServiceImpl::new);
+        implementations.put("ConcurrentEnrollmentServiceImpl", ConcurrentEnrollmentServiceImpl::new);
+        implementations.put("ColumnarEnrollmentServiceImpl", ColumnarEnrollmentServiceImpl::new);
+        
+        System.out.printf("Aggregate consistency check: %,d operations, seed %d%n", operations, seed);
+        for (Map.Entry<String, BiFunction<StudentService, CourseService, EnrollmentService>> entry : implementations.entrySet()) {
+            checkUnenrollAfterCreditChange(entry.getKey(), entry.getValue());
+            checkGradeUpdateAfterCreditChange(entry.getKey(), entry.getValue());
+            checkRandomMix(entry.getKey(), entry.getValue(), operations, seed);
+            System.out.printf("  %-32s ok%n", entry.getKey());
+        }
+    }
+    
+    // Enroll in a 3-credit course, raise it to 6 credits, unenroll: nothing may be left over
+    private static void checkUnenrollAfterCreditChange(String name,
+            BiFunction<StudentService, CourseService, EnrollmentService> factory) throws Exception {
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        EnrollmentService enrollmentService = factory.apply(studentService, courseService);
+        Student student = BenchData.newStudent(0);
+        studentService.addStudent(student);
+        Course course = BenchData.newCourse(0);
+        courseService.addCourse(course);
+        
+        enrollmentService.enrollStudent(student.getId(), course.getCode());
+        course.setCredits(6);
+        courseService.updateCourse(course);
+        enrollmentService.unenrollStudent(student.getId(), course.getCode());
+        expect(name + ": credit hours after unenroll", 0, enrollmentService.getStudentCreditHours(student.getId()));
+    }
+    
+    // Grade, change credits, update the grade: the GPA is the new grade's points
+    private static void checkGradeUpdateAfterCreditChange(String name,
+            BiFunction<StudentService, CourseService, EnrollmentService> factory) throws Exception {
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        EnrollmentService enrollmentService = factory.apply(studentService, courseService);
+        Student student = BenchData.newStudent(0);
+        studentService.addStudent(student);
+        Course course = BenchData.newCourse(0);
+        courseService.addCourse(course);
+        
+        enrollmentService.enrollStudent(student.getId(), course.getCode());
+        enrollmentService.recordGrade(student.getId(), course.getCode(), Grade.A);
+        course.setCredits(6);
+        courseService.updateCourse(course);
+        enrollmentService.updateGrade(student.getId(), course.getCode(), Grade.B);
+        double gpa = enrollmentService.calculateStudentGPA(student.getId());
+        if (Math.abs(gpa - Grade.B.getGradePoints()) > 1e-9) {
+            throw new IllegalStateException(name + ": GPA after grade update is " + gpa
+                + ", expected " + Grade.B.getGradePoints());
+        }
+    }
+    
+    private static void checkRandomMix(String name, BiFunction<StudentService, CourseService, EnrollmentService> factory,
+                                       int operations, long seed) throws Exception {
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        EnrollmentService enrollmentService = factory.apply(studentService, courseService);
+        List<Long> studentIds = new ArrayList<>();
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = BenchData.newStudent(i);
+            studentService.addStudent(student);
+            studentIds.add(student.getId());
+        }
+        for (int i = 0; i < COURSES; i++) {
+            Course course = BenchData.newCourse(i);
+            courseService.addCourse(course);
+            courses.add(course);
+        }
+        
+        Random random = new Random(seed);
+        for (int op = 0; op < operations; op++) {
+            Long studentId = studentIds.get(random.nextInt(studentIds.size()));
+            Course course = courses.get(random.nextInt(courses.size()));
+            try {
+                int action = random.nextInt(10);
+                if (action < 4) {
+                    enrollmentService.enrollStudent(studentId, course.getCode());
+                } else if (action < 5) {
+                    enrollmentService.recordGrade(studentId, course.getCode(), BenchData.gradeFor(op));
+                } else if (action < 8) {
+                    enrollmentService.unenrollStudent(studentId, course.getCode());
+                } else {
+                    course.setCredits(1 + random.nextInt(6));
+                    courseService.updateCourse(course);
+                }
+            } catch (CCRMException | RuntimeException e) {
+                // Rejected operations (credit limit, duplicate, not enrolled...) are part of the mix
+            }
+        }
+        
+        for (Long studentId : studentIds) {
+            for (Enrollment enrollment : enrollmentService.getStudentEnrollments(studentId)) {
+                if (enrollment.getStatus() == EnrollmentStatus.ENROLLED) {
+                    enrollmentService.unenrollStudent(studentId, enrollment.getCourse().getCode());
+                }
+            }
+            expect(name + ": credit hours of student " + studentId + " after unenrolling everything",
+                0, enrollmentService.getStudentCreditHours(studentId));
+        }
+    }
+    
+    private static void expect(String what, int expected, int actual) {
+        if (expected != actual) {
+            throw new IllegalStateException(what + " is " + actual + ", expected " + expected);
+        }
+    }
+}
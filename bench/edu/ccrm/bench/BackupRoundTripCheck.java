@@ -0,0 +1,186 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.CCRMException;
+import edu.ccrm.io.*;
+import edu.ccrm.service.*;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Round-trip check for backup and restore: takes a full backup, mutates the data, takes
+ * an incremental backup, mutates again, then restores each backup and compares students,
+ * courses, seats and enrollment records with the state captured when it was taken. The
+ * incremental backup is also restored into fresh services. Finished enrollments are
+ * archived after each round of changes, so restores must also update and drop archived
+ * records where the implementation has an archive. Backups are written to the configured
+ * backup folder and deleted afterwards. Exits with an exception on the first difference.
+ * Run with: java -cp bin:bench-bin edu.ccrm.bench.BackupRoundTripCheck [operations] [seed]
+ */
+public class BackupRoundTripCheck {
+    private static final int STUDENTS = 300;
+    private static final int COURSES = 24;
+    
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        
+        Map<String, BiFunction<StudentService, CourseService, EnrollmentService>> implementations = new LinkedHashMap<>();
+        implementations.put("ConcurrentEnrollmentServiceImpl", ConcurrentEnrollmentServiceImpl::new);
+        implementations.put("EnrollmentServiceImpl", EnrollmentServiceImpl::new);
+        
+        System.out.printf("Backup round-trip check: %,d operations per round, seed %d%n", operations, seed);
+        for (Map.Entry<String, BiFunction<StudentService, CourseService, EnrollmentService>> entry : implementations.entrySet()) {
+            check(entry.getValue(), operations, seed);
+            System.out.printf("  %-32s ok%n", entry.getKey());
+        }
+    }
+    
+    private static void check(BiFunction<StudentService, CourseService, EnrollmentService> factory,
+                              int operations, long seed) throws Exception {
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        EnrollmentService enrollmentService = factory.apply(studentService, courseService);
+        ImportExportService importExport = new ImportExportServiceImpl(studentService, courseService, enrollmentService);
+        BackupService backupService = new BackupServiceImpl(importExport,
+            ChangeTracker.attach(studentService, courseService, enrollmentService));
+        
+        List<Long> studentIds = new ArrayList<>();
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = BenchData.newStudent(i);
+            studentService.addStudent(student);
+            studentIds.add(student.getId());
+        }
+        for (int i = 0; i < COURSES; i++) {
+            Course course = BenchData.newCourse(i);
+            course.setCapacity(i % 4 == 0 ? 0 : 10 + i % 7); // Some courses unlimited
+            courseService.addCourse(course);
+            courses.add(course);
+        }
+        
+        Random random = new Random(seed);
+        List<String> backups = new ArrayList<>();
+        try {
+            mutate(enrollmentService, courseService, studentIds, courses, operations, random);
+            backups.add(name(backupService.createBackup()));
+            String full = describe(studentService, courseService, enrollmentService);
+            
+            mutate(enrollmentService, courseService, studentIds, courses, operations, random);
+            // Deleting a student does not cascade, so delete one without enrollments
+            Student dropped = BenchData.newStudent(STUDENTS);
+            studentService.addStudent(dropped);
+            studentService.addStudent(BenchData.newStudent(STUDENTS + 1));
+            studentService.delete(dropped.getId());
+            Course course = courses.get(1);
+            course.setTitle("Renamed " + course.getTitle());
+            courseService.updateCourse(course);
+            courseService.deactivateCourse(courses.get(2).getCode());
+            backups.add(name(backupService.createIncrementalBackup()));
+            String incremental = describe(studentService, courseService, enrollmentService);
+            
+            mutate(enrollmentService, courseService, studentIds, courses, operations, random);
+            studentService.addStudent(BenchData.newStudent(STUDENTS + 2));
+            
+            backupService.restoreFromBackup(backups.get(1));
+            compare("incremental restore", incremental, describe(studentService, courseService, enrollmentService));
+            backupService.restoreFromBackup(backups.get(0));
+            compare("full restore", full, describe(studentService, courseService, enrollmentService));
+            
+            StudentService freshStudents = new StudentServiceImpl();
+            CourseService freshCourses = new CourseServiceImpl();
+            EnrollmentService freshEnrollments = new EnrollmentServiceImpl(freshStudents, freshCourses);
+            new BackupServiceImpl(new ImportExportServiceImpl(freshStudents, freshCourses, freshEnrollments))
+                .restoreFromBackup(backups.get(1));
+            compare("incremental restore into fresh services", incremental,
+                describe(freshStudents, freshCourses, freshEnrollments));
+        } finally {
+            // Newest first: a backup cannot be deleted while an incremental builds on it
+            for (int i = backups.size() - 1; i >= 0; i--) {
+                backupService.deleteBackup(backups.get(i));
+            }
+        }
+    }
+    
+    private static void mutate(EnrollmentService enrollmentService, CourseService courseService,
+                               List<Long> studentIds, List<Course> courses, int operations, Random random) {
+        for (int op = 0; op < operations; op++) {
+            Long studentId = studentIds.get(random.nextInt(studentIds.size()));
+            Course course = courses.get(random.nextInt(courses.size()));
+            String code = course.getCode();
+            try {
+                int action = random.nextInt(10);
+                if (action < 5) {
+                    enrollmentService.enrollStudent(studentId, code);
+                } else if (action < 7) {
+                    enrollmentService.recordGrade(studentId, code, BenchData.gradeFor(op));
+                } else if (action < 9) {
+                    enrollmentService.unenrollStudent(studentId, code);
+                } else {
+                    course.setCapacity(random.nextInt(4) == 0 ? 0 : 5 + random.nextInt(10));
+                    courseService.updateCourse(course);
+                }
+            } catch (CCRMException | RuntimeException e) {
+                // Rejected operations (full course, credit limit, not enrolled...) are part of the mix
+            }
+        }
+        enrollmentService.archiveFinishedEnrollments();
+    }
+    
+    private static String name(String backupFolder) {
+        return Paths.get(backupFolder).getFileName().toString();
+    }
+    
+    // State a restore must reproduce; dates are kept to the second, as in the CSV files
+    private static String describe(StudentService studentService, CourseService courseService,
+                                   EnrollmentService enrollmentService) {
+        StringBuilder state = new StringBuilder();
+        for (Student student : studentService.findAllView()) {
+            state.append("student ").append(student.getId()).append(' ').append(student.getRegNo())
+                .append(' ').append(student.getFullName()).append(' ').append(student.getEmail())
+                .append(' ').append(student.getStatus())
+                .append(' ').append(new TreeSet<>(student.getEnrolledCourses())).append('\n');
+        }
+        for (Course course : courseService.findAllView()) {
+            state.append("course ").append(course.getCode()).append(' ').append(course.getTitle())
+                .append(' ').append(course.isActive() ? "active" : "inactive")
+                .append(" capacity ").append(course.getCapacity())
+                .append(" available ").append(enrollmentService.getAvailableSeats(course.getCode())).append('\n');
+        }
+        List<String> enrollments = new ArrayList<>();
+        for (Enrollment enrollment : enrollmentService.getAllEnrollmentsView()) {
+            enrollments.add("enrollment " + enrollment.getId() + ' ' + enrollment.getStudent().getId()
+                + ' ' + enrollment.getCourse().getCode() + ' ' + enrollment.getStatus() + ' ' + enrollment.getGrade()
+                + ' ' + seconds(enrollment.getEnrollmentDate()) + ' ' + seconds(enrollment.getGradeDate()));
+        }
+        Collections.sort(enrollments);
+        for (String enrollment : enrollments) {
+            state.append(enrollment).append('\n');
+        }
+        return state.toString();
+    }
+    
+    private static LocalDateTime seconds(LocalDateTime time) {
+        return time != null ? time.truncatedTo(ChronoUnit.SECONDS) : null;
+    }
+    
+    private static void compare(String what, String expected, String actual) {
+        if (expected.equals(actual)) {
+            return;
+        }
+        String[] expectedLines = expected.split("\n");
+        String[] actualLines = actual.split("\n");
+        for (int i = 0; i < Math.min(expectedLines.length, actualLines.length); i++) {
+            if (!expectedLines[i].equals(actualLines[i])) {
+                throw new IllegalStateException(what + " differs from the backed-up state at\n  backed up: "
+                    + expectedLines[i] + "\n  restored:  " + actualLines[i]);
+            }
+        }
+        throw new IllegalStateException(what + " differs from the backed-up state at line "
+            + Math.min(expectedLines.length, actualLines.length) + " (one state is longer)");
+    }
+}
@@ -0,0 +1,133 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic dataset for benchmarks: N students, a proportional course catalogue,
+ * and four enrollments per student of which the first three are graded.
+ */
+public final class BenchData {
+    static final int ENROLLMENTS_PER_STUDENT = 4;
+    
+    private static final String[] DEPARTMENTS = {
+        "Computer Science", "Mathematics", "Physics", "English",
+        "Chemistry", "Biology", "Economics", "History"
+    };
+    private static final String[] PREFIXES = {"CS", "MATH", "PHY", "ENG", "CHEM", "BIO", "ECON", "HIST"};
+    private static final String[] INSTRUCTORS = {
+        "Dr. Johnson", "Prof. Davis", "Dr. Wilson", "Prof. Brown", "Dr. Miller", "Prof. Garcia"
+    };
+    private static final String[] LAST_NAMES = {"Smith", "Doe", "Johnson", "Wilson", "Brown", "Taylor", "Lee", "Patel"};
+    private static final Grade[] GRADES = {Grade.S, Grade.A, Grade.B, Grade.C, Grade.D, Grade.F};
+    
+    final StudentService studentService;
+    final CourseService courseService;
+    final EnrollmentService enrollmentService;
+    final TranscriptService transcriptService;
+    final List<Student> students;
+    final List<Course> courses;
+    
+    private BenchData(StudentService studentService, CourseService courseService,
+                      List<Student> students, List<Course> courses, boolean columnar) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.enrollmentService = columnar
+            ? new ColumnarEnrollmentServiceImpl(studentService, courseService, students.size() * ENROLLMENTS_PER_STUDENT)
+            : new EnrollmentServiceImpl(studentService, courseService);
+        this.transcriptService = new TranscriptServiceImpl(enrollmentService);
+        this.students = students;
+        this.courses = courses;
+    }
+    
+    static int courseCountFor(int studentCount) {
+        return Math.max(50, Math.min(PREFIXES.length * 1000, studentCount / 20));
+    }
+    
+    static Student newStudent(int i) {
+        return new Student.Builder()
+            .regNo(String.format("2024%s%06d", PREFIXES[i % PREFIXES.length], i))
+            .fullName("Student" + i + " " + LAST_NAMES[i % LAST_NAMES.length])
+            .email("student" + i + "@university.edu")
+            .status(StudentStatus.ACTIVE)
+            .build();
+    }
+    
+    static Course newCourse(int i) {
+        return new Course.Builder()
+            .code(String.format("%s%03d", PREFIXES[i % PREFIXES.length], i / PREFIXES.length))
+            .title("Topics in " + DEPARTMENTS[i % DEPARTMENTS.length] + " " + i)
+            .credits(3)
+            .instructor(INSTRUCTORS[i % INSTRUCTORS.length])
+            .semester(Semester.values()[i % Semester.values().length])
+            .department(DEPARTMENTS[i % DEPARTMENTS.length])
+            .build();
+    }
+    
+    static Grade gradeFor(int i) {
+        return GRADES[i % GRADES.length];
+    }
+    
+    /**
+     * Build a fully populated dataset
+     */
+    static BenchData create(int studentCount) throws Exception {
+        return create(studentCount, true);
+    }
+    
+    static BenchData create(int studentCount, boolean withEnrollments) throws Exception {
+        return create(studentCount, withEnrollments, false);
+    }
+    
+    /**
+     * Build a fully populated dataset whose enrollments live in a ColumnarEnrollmentStore
+     */
+    static BenchData createColumnar(int studentCount) throws Exception {
+        return create(studentCount, true, true);
+    }
+    
+    private static BenchData create(int studentCount, boolean withEnrollments, boolean columnar) throws Exception {
+        List<Student> students = new ArrayList<>(studentCount);
+        List<Course> courses = new ArrayList<>();
+        
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        for (int i = 0; i < courseCountFor(studentCount); i++) {
+            Course course = newCourse(i);
+            courseService.addCourse(course);
+            courses.add(course);
+        }
+        for (int i = 0; i < studentCount; i++) {
+            Student student = newStudent(i);
+            studentService.addStudent(student);
+            students.add(student);
+        }
+        
+        BenchData data = new BenchData(studentService, courseService, students, courses, columnar);
+        if (withEnrollments) {
+            data.enrollAll();
+        }
+        return data;
+    }
+    
+    // Course assigned to a student's k-th enrollment slot
+    Course courseFor(int studentIndex, int slot) {
+        return courses.get((studentIndex + slot * 7) % courses.size());
+    }
+    
+    private void enrollAll() throws Exception {
+        for (int i = 0; i < students.size(); i++) {
+            Long id = students.get(i).getId();
+            for (int slot = 0; slot < ENROLLMENTS_PER_STUDENT; slot++) {
+                String code = courseFor(i, slot).getCode();
+                enrollmentService.enrollStudent(id, code);
+                if (slot < ENROLLMENTS_PER_STUDENT - 1) {
+                    enrollmentService.recordGrade(id, code, gradeFor(i + slot));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package edu.ccrm.bench;
+
+/**
+ * One benchmark scenario. Mirrors the JMH lifecycle: setup once per dataset size,
+ * setupIteration before each timed iteration, then run() is invoked repeatedly.
+ */
+public abstract class Benchmark {
+    private final String name;
+    
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    // Build the dataset for the given size (students/enrollments/rows)
+    public void setup(int size) throws Exception {}
+    
+    // Reset per-iteration state (e.g. consumed inputs)
+    public void setupIteration() throws Exception {}
+    
+    // One operation; the result is consumed so the JIT cannot drop the work
+    public abstract Object run() throws Exception;
+    
+    public void tearDown() throws Exception {}
+    
+    // Operations performed by a single run() call, for batch scenarios
+    public int operationsPerInvocation() {
+        return 1;
+    }
+}
@@ -0,0 +1,103 @@
+package edu.ccrm.bench;
+
+import java.util.*;
+
+/**
+ * Minimal JMH-style runner: warmup and measurement iterations of fixed duration,
+ * results reported as mean throughput with standard deviation.
+ */
+public final class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    
+    // Consumed results are compared against this volatile so the JIT must keep them
+    private static volatile Object sinkTarget = new Object();
+    private static int sinkHits;
+    
+    public static final class Result {
+        private final String name;
+        private final int size;
+        private final double meanOpsPerSecond;
+        private final double stdDev;
+        
+        Result(String name, int size, double meanOpsPerSecond, double stdDev) {
+            this.name = name;
+            this.size = size;
+            this.meanOpsPerSecond = meanOpsPerSecond;
+            this.stdDev = stdDev;
+        }
+        
+        public String getName() { return name; }
+        public int getSize() { return size; }
+        public double getMeanOpsPerSecond() { return meanOpsPerSecond; }
+        public double getStdDev() { return stdDev; }
+        
+        @Override
+        public String toString() {
+            return String.format("%-32s %10d %16.1f \u00b1 %-12.1f %12.3f",
+                name, size, meanOpsPerSecond, stdDev, 1e6 / meanOpsPerSecond);
+        }
+    }
+    
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+    
+    public static void printHeader() {
+        System.out.printf("%-32s %10s %16s   %-12s %12s%n", "Benchmark", "Size", "ops/s", "stddev", "us/op");
+        System.out.println("-".repeat(88));
+    }
+    
+    public Result run(Benchmark benchmark, int size) throws Exception {
+        benchmark.setup(size);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                iteration(benchmark);
+            }
+            
+            double[] scores = new double[measurementIterations];
+            for (int i = 0; i < measurementIterations; i++) {
+                scores[i] = iteration(benchmark);
+            }
+            
+            double mean = Arrays.stream(scores).average().orElse(0);
+            double variance = Arrays.stream(scores).map(s -> (s - mean) * (s - mean)).sum()
+                / Math.max(1, scores.length - 1);
+            return new Result(benchmark.getName(), size, mean, Math.sqrt(variance));
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+    
+    private double iteration(Benchmark benchmark) throws Exception {
+        benchmark.setupIteration();
+        
+        long operations = 0;
+        int batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            long batchStart = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                consume(benchmark.run());
+            }
+            operations += batch;
+            // Grow the batch for fast operations so nanoTime() stays out of the measurement
+            if (System.nanoTime() - batchStart < 1_000_000L && batch < (1 << 20)) {
+                batch <<= 1;
+            }
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        
+        return operations * benchmark.operationsPerInvocation() / (elapsed / 1e9);
+    }
+    
+    public static void consume(Object value) {
+        if (value == sinkTarget) {
+            sinkHits++;
+        }
+    }
+}
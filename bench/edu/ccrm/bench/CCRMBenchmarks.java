@@ -0,0 +1,685 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.*;
+import edu.ccrm.service.ColumnarEnrollmentServiceImpl;
+import edu.ccrm.service.EnrollRequest;
+import edu.ccrm.service.Page;
+import edu.ccrm.service.Query;
+import edu.ccrm.service.QueryFields;
+import edu.ccrm.service.ReportService;
+import edu.ccrm.service.ReportServiceImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark suite for the service, transcript, report and CSV paths.
+ *
+ * Usage: java -cp bin:bench-bin edu.ccrm.bench.CCRMBenchmarks
+ *            [-sizes 1000,10000,100000,1000000] [-filter regex] [-wi 3] [-i 5] [-time 1000]
+ */
+public class CCRMBenchmarks {
+    
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {1_000, 10_000, 100_000};
+        Pattern filter = Pattern.compile(".*");
+        int warmup = 3;
+        int iterations = 5;
+        long iterationMillis = 1000;
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-sizes" -> sizes = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "-filter" -> filter = Pattern.compile(args[i + 1]);
+                case "-wi" -> warmup = Integer.parseInt(args[i + 1]);
+                case "-i" -> iterations = Integer.parseInt(args[i + 1]);
+                case "-time" -> iterationMillis = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, iterationMillis);
+        BenchmarkRunner.printHeader();
+        for (Benchmark benchmark : benchmarks()) {
+            if (!filter.matcher(benchmark.getName()).find()) {
+                continue;
+            }
+            for (int size : sizes) {
+                System.out.println(runner.run(benchmark, size));
+            }
+        }
+    }
+    
+    static List<Benchmark> benchmarks() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        
+        benchmarks.add(new Benchmark("enroll.roundTrip") {
+            private BenchData data;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size);
+            }
+            
+            @Override
+            public Object run() throws Exception {
+                int i = next++ % data.students.size();
+                Long id = data.students.get(i).getId();
+                // A slot past the student's existing enrollments, so the enroll always succeeds
+                String code = data.courseFor(i, BenchData.ENROLLMENTS_PER_STUDENT).getCode();
+                data.enrollmentService.enrollStudent(id, code);
+                data.enrollmentService.unenrollStudent(id, code);
+                return code;
+            }
+            
+            @Override
+            public int operationsPerInvocation() {
+                return 2;
+            }
+        });
+        
+        // Cohort enrollment: batch API versus one enrollStudent call per student.
+        // Both undo the cohort with the same unenroll loop so the runs stay repeatable.
+        for (boolean batch : new boolean[] {false, true}) {
+            benchmarks.add(new Benchmark(batch ? "enroll.cohort.batch" : "enroll.cohort.loop") {
+                private static final int COHORT = 500;
+                private BenchData data;
+                private int next;
+                
+                @Override
+                public void setup(int size) throws Exception {
+                    data = BenchData.create(size);
+                }
+                
+                @Override
+                public Object run() throws Exception {
+                    int first = next;
+                    int count = Math.min(COHORT, data.students.size());
+                    next = (next + count) % data.students.size();
+                    
+                    List<EnrollRequest> requests = new ArrayList<>(count);
+                    for (int n = 0; n < count; n++) {
+                        int i = (first + n) % data.students.size();
+                        requests.add(EnrollRequest.of(data.students.get(i).getId(),
+                            data.courseFor(i, BenchData.ENROLLMENTS_PER_STUDENT).getCode()));
+                    }
+                    
+                    if (batch) {
+                        data.enrollmentService.enrollBatch(requests);
+                    } else {
+                        for (EnrollRequest request : requests) {
+                            data.enrollmentService.enrollStudent(request.getStudentId(), request.getCourseCode());
+                        }
+                    }
+                    for (EnrollRequest request : requests) {
+                        data.enrollmentService.unenrollStudent(request.getStudentId(), request.getCourseCode());
+                    }
+                    return requests;
+                }
+                
+                @Override
+                public int operationsPerInvocation() {
+                    return Math.min(COHORT, data.students.size());
+                }
+            });
+        }
+        
+        benchmarks.add(new Benchmark("grade.update") {
+            private BenchData data;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size);
+            }
+            
+            @Override
+            public Object run() throws Exception {
+                int i = next++;
+                int index = i % data.students.size();
+                String code = data.courseFor(index, 0).getCode();
+                data.enrollmentService.updateGrade(data.students.get(index).getId(), code, BenchData.gradeFor(i));
+                return code;
+            }
+        });
+        
+        benchmarks.add(new Benchmark("search.courses") {
+            private final String[] queries = {"cs1", "topics in math", "dr. wil", "physics", "xyz"};
+            private BenchData data;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+            }
+            
+            @Override
+            public Object run() {
+                return data.courseService.search(queries[next++ % queries.length]);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("search.students") {
+            private final String[] queries = {"smith", "student12", "2024cs0001", "@university", "nobody"};
+            private BenchData data;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+            }
+            
+            @Override
+            public Object run() {
+                return data.studentService.search(queries[next++ % queries.length]);
+            }
+        });
+        
+        // Queries that each match a single student, as when looking someone up by regNo or email
+        benchmarks.add(new Benchmark("search.students.selective") {
+            private String[] queries;
+            private BenchData data;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+                queries = new String[Math.min(size, 1000)];
+                for (int i = 0; i < queries.length; i++) {
+                    Student student = data.students.get((int) ((long) i * size / queries.length));
+                    queries[i] = i % 2 == 0 ? student.getRegNo() : student.getEmail();
+                }
+            }
+            
+            @Override
+            public Object run() {
+                return data.studentService.search(queries[next++ % queries.length]);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("find.coursesByField") {
+            private final Object[][] queries = {
+                {"semester", Semester.FALL}, {"credits", 4}, {"semester", Semester.SUMMER}, {"credits", 1}
+            };
+            private BenchData data;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+            }
+            
+            @Override
+            public Object run() {
+                Object[] query = queries[next++ % queries.length];
+                return data.courseService.findByField((String) query[0], query[1]);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("query.courses.filter") {
+            private BenchData data;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+            }
+            
+            @Override
+            public Object run() {
+                return data.courseService.filter(course -> course.getSemester() == Semester.SUMMER
+                    && course.getCredits() >= 3 && course.getDepartment().equals("Physics"));
+            }
+        });
+        
+        benchmarks.add(new Benchmark("query.courses.planned") {
+            private final Query<Course> query = Query.eq(QueryFields.Courses.SEMESTER, Semester.SUMMER)
+                .and(Query.atLeast(QueryFields.Courses.CREDITS, 3))
+                .and(Query.eq(QueryFields.Courses.DEPARTMENT, "Physics"));
+            private BenchData data;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+            }
+            
+            @Override
+            public Object run() {
+                return data.courseService.query(query);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("students.lookup") {
+            private BenchData data;
+            private String[] regNos;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+                regNos = data.students.stream().map(Student::getRegNo).toArray(String[]::new);
+                Collections.shuffle(Arrays.asList(regNos), new Random(42));
+            }
+            
+            @Override
+            public Object run() {
+                // By registration number, then by ID, as the CLI profile screens do
+                Student student = data.studentService.findStudentByRegNo(regNos[next++ % regNos.length]).orElseThrow();
+                return data.studentService.findStudentById(student.getId());
+            }
+        });
+        
+        benchmarks.add(new Benchmark("list.students.copy") {
+            private BenchData data;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+            }
+            
+            @Override
+            public Object run() {
+                return data.studentService.getAllStudents().subList(0, 20);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("list.students.page") {
+            private BenchData data;
+            private Long after;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size, false);
+            }
+            
+            @Override
+            public Object run() {
+                // Walks the whole list a screen at a time, as the CLI does
+                Page<Student, Long> page = data.studentService.page(after, 20);
+                after = page.getNextKey().orElse(null);
+                return page;
+            }
+        });
+        
+        benchmarks.add(new Benchmark("enrollments.gradeDistribution.objects") {
+            private BenchData data;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size);
+            }
+            
+            @Override
+            public Object run() {
+                long[] counts = new long[Grade.values().length];
+                for (Enrollment enrollment : data.enrollmentService.getAllEnrollmentsView()) {
+                    if (enrollment.hasGrade()) {
+                        counts[enrollment.getGrade().ordinal()]++;
+                    }
+                }
+                return counts;
+            }
+        });
+        
+        benchmarks.add(new Benchmark("enrollments.gradeDistribution.columnar") {
+            private ColumnarEnrollmentServiceImpl enrollmentService;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                enrollmentService = (ColumnarEnrollmentServiceImpl) BenchData.createColumnar(size).enrollmentService;
+            }
+            
+            @Override
+            public Object run() {
+                return enrollmentService.getGradeDistribution();
+            }
+        });
+        
+        benchmarks.add(new Benchmark("enrollments.allGpas.columnar") {
+            private ColumnarEnrollmentServiceImpl enrollmentService;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                enrollmentService = (ColumnarEnrollmentServiceImpl) BenchData.createColumnar(size).enrollmentService;
+            }
+            
+            @Override
+            public Object run() {
+                return enrollmentService.calculateAllStudentGPAs();
+            }
+        });
+        
+        benchmarks.add(new Benchmark("transcript.generate") {
+            private BenchData data;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size);
+            }
+            
+            @Override
+            public Object run() {
+                Student student = data.students.get(next++ % data.students.size());
+                return data.transcriptService.generateTranscript(student);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("report.gpaDistribution") {
+            private BenchData data;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size);
+            }
+            
+            @Override
+            public Object run() {
+                // Same pipeline as CCRMApplication.showGPADistribution
+                return data.studentService.getAllStudents().stream()
+                    .map(student -> data.transcriptService.generateTranscript(student))
+                    .filter(transcript -> transcript.getGpa() > 0)
+                    .collect(Collectors.groupingBy(
+                        transcript -> {
+                            double gpa = transcript.getGpa();
+                            if (gpa >= 3.5) return "Excellent (3.5-4.0)";
+                            else if (gpa >= 3.0) return "Good (3.0-3.49)";
+                            else if (gpa >= 2.5) return "Average (2.5-2.99)";
+                            else return "Below Average (<2.5)";
+                        },
+                        Collectors.counting()));
+            }
+        });
+        
+        benchmarks.add(new Benchmark("report.topStudents") {
+            private BenchData data;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                data = BenchData.create(size);
+            }
+            
+            @Override
+            public Object run() {
+                // Same shape as CCRMApplication.showTopStudents: rank everyone by transcript GPA
+                return data.studentService.getAllStudents().stream()
+                    .sorted(Comparator.comparingDouble(
+                        (Student s) -> data.transcriptService.generateTranscript(s).getGpa()).reversed())
+                    .limit(10)
+                    .collect(Collectors.toList());
+            }
+        });
+        
+        benchmarks.add(new Benchmark("report.snapshot.gpaDistribution") {
+            private ReportService reports;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                BenchData data = BenchData.create(size);
+                reports = new ReportServiceImpl(data.studentService, data.courseService, data.enrollmentService);
+            }
+            
+            @Override
+            public Object run() {
+                return reports.getGpaDistribution();
+            }
+        });
+        
+        benchmarks.add(new Benchmark("report.snapshot.topStudents") {
+            private ReportService reports;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                BenchData data = BenchData.create(size);
+                reports = new ReportServiceImpl(data.studentService, data.courseService, data.enrollmentService);
+            }
+            
+            @Override
+            public Object run() {
+                return reports.getTopStudents(10);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("report.snapshot.studentRank") {
+            private ReportService reports;
+            private Long[] studentIds;
+            private int next;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                BenchData data = BenchData.create(size);
+                reports = new ReportServiceImpl(data.studentService, data.courseService, data.enrollmentService);
+                studentIds = data.students.stream().map(Student::getId).toArray(Long[]::new);
+            }
+            
+            @Override
+            public Object run() {
+                Long studentId = studentIds[next++ % studentIds.length];
+                return reports.getStudentRank(studentId);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("csv.parseLine") {
+            private String[] lines;
+            private int next;
+            
+            @Override
+            public void setup(int size) {
+                lines = new String[Math.min(size, 10_000)];
+                for (int i = 0; i < lines.length; i++) {
+                    lines[i] = studentCsvLine(i, BenchData.newStudent(i));
+                }
+            }
+            
+            @Override
+            public Object run() {
+                return CSVParser.parseLine(lines[next++ % lines.length]);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("csv.parseLine.regex") {
+            private String[] lines;
+            private int next;
+            
+            @Override
+            public void setup(int size) {
+                lines = new String[Math.min(size, 10_000)];
+                for (int i = 0; i < lines.length; i++) {
+                    lines[i] = studentCsvLine(i, BenchData.newStudent(i));
+                }
+            }
+            
+            @Override
+            public Object run() {
+                return regexParseLine(lines[next++ % lines.length]);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("csv.tokenize.stream") {
+            private char[] text;
+            private int rows;
+            private long fields;
+            private final CSVTokenizer tokenizer = new CSVTokenizer(new CSVTokenizer.FieldHandler() {
+                @Override
+                public void field(char[] chars, int offset, int length) {
+                    fields += length;
+                }
+                
+                @Override
+                public void endRecord() {
+                }
+            });
+            
+            @Override
+            public void setup(int size) {
+                rows = size;
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < size; i++) {
+                    sb.append(studentCsvLine(i, BenchData.newStudent(i))).append("\r\n");
+                }
+                text = sb.toString().toCharArray();
+            }
+            
+            @Override
+            public Object run() {
+                // Feed in 8K windows, as a Reader would
+                for (int offset = 0; offset < text.length; offset += 8192) {
+                    tokenizer.feed(text, offset, Math.min(8192, text.length - offset));
+                }
+                tokenizer.finish();
+                return fields;
+            }
+            
+            @Override
+            public int operationsPerInvocation() {
+                return rows;
+            }
+        });
+        
+        benchmarks.add(new Benchmark("csv.importStudents") {
+            private final ImportExportService service = new ImportExportServiceImpl();
+            private Path file;
+            private int rows;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                rows = size;
+                file = Files.createTempFile("ccrm-bench-students", ".csv");
+                service.exportStudentsToCSV(BenchData.create(size, false).students, file);
+            }
+            
+            @Override
+            public Object run() throws Exception {
+                return service.importStudentsFromCSV(file);
+            }
+            
+            @Override
+            public int operationsPerInvocation() {
+                return rows;
+            }
+            
+            @Override
+            public void tearDown() throws Exception {
+                Files.deleteIfExists(file);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("csv.importStudents.stream") {
+            private final ImportExportService service = new ImportExportServiceImpl();
+            private Path file;
+            private int rows;
+            private long accepted;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                rows = size;
+                file = Files.createTempFile("ccrm-bench-students", ".csv");
+                service.exportStudentsToCSV(BenchData.create(size, false).students, file);
+            }
+            
+            @Override
+            public Object run() throws Exception {
+                return service.importStudentsFromCSV(file, student -> accepted++, error -> { });
+            }
+            
+            @Override
+            public int operationsPerInvocation() {
+                return rows;
+            }
+            
+            @Override
+            public void tearDown() throws Exception {
+                Files.deleteIfExists(file);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("csv.importStudents.parallel") {
+            private final ImportExportService service = new ImportExportServiceImpl();
+            private Path file;
+            private int rows;
+            private long accepted;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                rows = size;
+                file = Files.createTempFile("ccrm-bench-students", ".csv");
+                service.exportStudentsToCSV(BenchData.create(size, false).students, file);
+            }
+            
+            @Override
+            public Object run() throws Exception {
+                return service.importStudentsFromCSVParallel(file, student -> accepted++, error -> { });
+            }
+            
+            @Override
+            public int operationsPerInvocation() {
+                return rows;
+            }
+            
+            @Override
+            public void tearDown() throws Exception {
+                Files.deleteIfExists(file);
+            }
+        });
+        
+        benchmarks.add(new Benchmark("csv.exportStudents") {
+            private final ImportExportService service = new ImportExportServiceImpl();
+            private List<Student> students;
+            private Path file;
+            
+            @Override
+            public void setup(int size) throws Exception {
+                students = BenchData.create(size, false).students;
+                file = Files.createTempFile("ccrm-bench-export", ".csv");
+            }
+            
+            @Override
+            public Object run() throws Exception {
+                service.exportStudentsToCSV(students, file);
+                return file;
+            }
+            
+            @Override
+            public int operationsPerInvocation() {
+                return students.size();
+            }
+            
+            @Override
+            public void tearDown() throws Exception {
+                Files.deleteIfExists(file);
+            }
+        });
+        
+        return benchmarks;
+    }
+    
+    // The regex-based CSVParser.parseLine this codebase used before CSVTokenizer, kept as a baseline
+    private static final Pattern LEGACY_CSV_PATTERN = Pattern.compile(
+        "\"([^\"]*(?:\"\"[^\"]*)*)\"|([^,]*)"
+    );
+    
+    static String[] regexParseLine(String csvLine) {
+        List<String> fields = new ArrayList<>();
+        Matcher matcher = LEGACY_CSV_PATTERN.matcher(csvLine);
+        while (matcher.find()) {
+            String quotedField = matcher.group(1);
+            String unquotedField = matcher.group(2);
+            if (quotedField != null) {
+                fields.add(quotedField.replace("\"\"", "\""));
+            } else {
+                fields.add(unquotedField != null ? unquotedField : "");
+            }
+        }
+        return fields.toArray(new String[0]);
+    }
+    
+    static String studentCsvLine(int i, Student student) {
+        return CSVParser.formatLine(String.valueOf(i), student.getRegNo(), student.getFullName(),
+            student.getEmail(), "ACTIVE", "2024-09-01 09:00:00", "\"Quoted, with comma\"");
+    }
+}
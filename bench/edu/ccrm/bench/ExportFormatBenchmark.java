@@ -0,0 +1,109 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.*;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Export format comparison: write time, read time and file size of the CSV and binary
+ * exports for students, courses and enrollments.
+ * There is no CSV enrollment importer, so its read time is tokenizing the file into
+ * fields, a lower bound for a real import.
+ * Run with: java -Xmx3g -cp bin:bench-bin edu.ccrm.bench.ExportFormatBenchmark [students] [rounds]
+ */
+public class ExportFormatBenchmark {
+    
+    private interface Step {
+        long run() throws Exception;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        
+        BenchData data = BenchData.create(studentCount);
+        ImportExportService service = new ImportExportServiceImpl();
+        List<Enrollment> enrollments = data.enrollmentService.getAllEnrollments();
+        System.out.printf("Export format benchmark: %,d students, %,d courses, %,d enrollments, best of %d%n",
+            data.students.size(), data.courses.size(), enrollments.size(), rounds);
+        
+        Path dir = Files.createTempDirectory("ccrm-export-format");
+        try {
+            Path studentsCsv = dir.resolve("students.csv");
+            Path studentsBin = dir.resolve("students.bin");
+            compare("students", rounds, data.students.size(), studentsCsv, studentsBin,
+                () -> { service.exportStudentsToCSV(data.students, studentsCsv); return data.students.size(); },
+                () -> { service.exportStudentsToBinary(data.students, studentsBin); return data.students.size(); },
+                () -> service.importStudentsFromCSV(studentsCsv, student -> { }, error -> { }).getImported(),
+                () -> service.importStudentsFromBinary(studentsBin, student -> { }, error -> { }).getImported());
+            
+            Path coursesCsv = dir.resolve("courses.csv");
+            Path coursesBin = dir.resolve("courses.bin");
+            compare("courses", rounds, data.courses.size(), coursesCsv, coursesBin,
+                () -> { service.exportCoursesToCSV(data.courses, coursesCsv); return data.courses.size(); },
+                () -> { service.exportCoursesToBinary(data.courses, coursesBin); return data.courses.size(); },
+                () -> service.importCoursesFromCSV(coursesCsv, course -> { }, error -> { }).getImported(),
+                () -> service.importCoursesFromBinary(coursesBin, course -> { }, error -> { }).getImported());
+            
+            Path enrollmentsCsv = dir.resolve("enrollments.csv");
+            Path enrollmentsBin = dir.resolve("enrollments.bin");
+            compare("enrollments", rounds, enrollments.size(), enrollmentsCsv, enrollmentsBin,
+                () -> { service.exportEnrollmentsToCSV(enrollments, enrollmentsCsv); return enrollments.size(); },
+                () -> { service.exportEnrollmentsToBinary(enrollments, enrollmentsBin); return enrollments.size(); },
+                () -> tokenize(enrollmentsCsv),
+                () -> service.importEnrollmentsFromBinary(enrollmentsBin, data.studentService::findById,
+                    data.courseService::findById, enrollment -> { }, error -> { }).getImported());
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    private static void compare(String kind, int rounds, int rows, Path csv, Path binary,
+                                Step writeCsv, Step writeBinary, Step readCsv, Step readBinary) throws Exception {
+        double csvWrite = best(rounds, rows, writeCsv);
+        double binaryWrite = best(rounds, rows, writeBinary);
+        double csvRead = best(rounds, rows, readCsv);
+        double binaryRead = best(rounds, rows, readBinary);
+        long csvSize = Files.size(csv);
+        long binarySize = Files.size(binary);
+        
+        System.out.printf("  %-12s write %,12.0f rows/s csv  %,12.0f rows/s binary  (%.1fx)%n",
+            kind, csvWrite, binaryWrite, binaryWrite / csvWrite);
+        System.out.printf("  %-12s read  %,12.0f rows/s csv  %,12.0f rows/s binary  (%.1fx)%n",
+            "", csvRead, binaryRead, binaryRead / csvRead);
+        System.out.printf("  %-12s size  %,12d bytes csv   %,12d bytes binary   (%.0f%%)%n",
+            "", csvSize, binarySize, 100.0 * binarySize / csvSize);
+    }
+    
+    // Best rows per second over the rounds; every round must process every row
+    private static double best(int rounds, int rows, Step step) throws Exception {
+        double best = 0;
+        for (int round = 0; round < rounds; round++) {
+            long begin = System.nanoTime();
+            long processed = step.run();
+            long elapsed = System.nanoTime() - begin;
+            if (processed != rows) {
+                throw new IllegalStateException("Processed " + processed + " of " + rows + " rows");
+            }
+            best = Math.max(best, rows / (elapsed / 1e9));
+        }
+        return best;
+    }
+    
+    private static long tokenize(Path file) throws Exception {
+        long[] records = {-1}; // Not counting the header
+        CSVTokenizer tokenizer = new CSVTokenizer(CSVTokenizer.records(fields -> records[0]++));
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            tokenizer.parse(reader);
+        }
+        return records[0];
+    }
+}
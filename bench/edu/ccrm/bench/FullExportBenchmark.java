@@ -0,0 +1,65 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.io.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Full export benchmark: exportAllData streaming the live services to three files in
+ * parallel, against copying each list and writing it with the per-kind CSV exports.
+ * Both produce the same bytes.
+ * Run with: java -Xmx3g -cp bin:bench-bin edu.ccrm.bench.FullExportBenchmark [students] [rounds]
+ */
+public class FullExportBenchmark {
+    
+    private interface Export {
+        void run(Path folder) throws Exception;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        
+        BenchData data = BenchData.create(studentCount);
+        ImportExportService service = new ImportExportServiceImpl(data.studentService, data.courseService,
+            data.enrollmentService);
+        System.out.printf("Full export benchmark: %,d students, %,d courses, %,d enrollments, best of %d%n",
+            data.studentService.count(), data.courseService.count(),
+            data.enrollmentService.getAllEnrollmentsView().size(), rounds);
+        
+        Path dir = Files.createTempDirectory("ccrm-full-export");
+        try {
+            time("per-kind CSV exports:", rounds, dir.resolve("copied"), folder -> {
+                service.exportStudentsToCSV(new ArrayList<>(data.studentService.findAllView()), folder.resolve("students.csv"));
+                service.exportCoursesToCSV(new ArrayList<>(data.courseService.findAllView()), folder.resolve("courses.csv"));
+                service.exportEnrollmentsToCSV(data.enrollmentService.getAllEnrollments(), folder.resolve("enrollments.csv"));
+            });
+            time("exportAllData:        ", rounds, dir.resolve("streamed"), service::exportAllData);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    private static void time(String label, int rounds, Path folder, Export export) throws Exception {
+        Files.createDirectories(folder);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long begin = System.nanoTime();
+            export.run(folder);
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files.filter(path -> path.toString().endsWith(".csv"))::iterator) {
+                bytes += Files.size(file);
+            }
+        }
+        System.out.printf("  %s %,8d ms, %,d bytes of CSV%n", label, best / 1_000_000, bytes);
+    }
+}
@@ -0,0 +1,127 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Registration-day benchmark: many threads enrolling into one capacity-limited course.
+ * Run with: java -cp bin:bench-bin edu.ccrm.bench.HotCourseBenchmark [threads] [students] [capacity]
+ */
+public class HotCourseBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int studentCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+        
+        System.out.printf("Hot course benchmark: %d threads, %d students, capacity %d%n", threads, studentCount, capacity);
+        
+        // Raw seat counter: single stripe (one contended AtomicInteger) vs striped
+        for (int stripes : new int[] {1, Runtime.getRuntime().availableProcessors()}) {
+            for (int round = 0; round < 3; round++) { // First rounds are warm-up
+                double opsPerSec = seatChurn(new SeatAllocator(stripes), threads, 2_000_000);
+                System.out.printf("  seat reserve/release, %2d stripe(s), round %d: %,.0f ops/s%n", stripes, round, opsPerSec);
+            }
+        }
+        
+        // End-to-end enrollStudent against CS101
+        for (int round = 0; round < 3; round++) {
+            enrollRush(threads, studentCount, capacity);
+        }
+    }
+    
+    private static double seatChurn(SeatAllocator allocator, int threads, int opsPerThread) throws Exception {
+        Course course = new Course.Builder()
+            .code("CS101").title("Programming Fundamentals").credits(3)
+            .instructor("Dr. Johnson").semester(Semester.FALL).capacity(threads * 4)
+            .build();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < opsPerThread; i++) {
+                    if (allocator.tryReserve(course)) {
+                        allocator.release(course);
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        
+        return (double) threads * opsPerThread * 2 / (elapsed / 1e9);
+    }
+    
+    private static void enrollRush(int threads, int studentCount, int capacity) throws Exception {
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        courseService.addCourse(new Course.Builder()
+            .code("CS101").title("Programming Fundamentals").credits(3)
+            .instructor("Dr. Johnson").semester(Semester.FALL).capacity(capacity)
+            .build());
+        
+        List<Long> studentIds = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student.Builder()
+                .regNo(String.format("2024HC%05d", i))
+                .fullName("Student " + i)
+                .email("student" + i + "@university.edu")
+                .status(StudentStatus.ACTIVE)
+                .build();
+            studentService.addStudent(student);
+            studentIds.add(student.getId());
+        }
+        
+        EnrollmentService enrollmentService = new ConcurrentEnrollmentServiceImpl(studentService, courseService);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        int perThread = (studentCount + threads - 1) / threads;
+        for (int t = 0; t < threads; t++) {
+            List<Long> slice = studentIds.subList(Math.min(t * perThread, studentCount),
+                Math.min((t + 1) * perThread, studentCount));
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (Long id : slice) {
+                    try {
+                        enrollmentService.enrollStudent(id, "CS101");
+                    } catch (Exception e) {
+                        // Course full: student is waitlisted
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        
+        int enrolled = enrollmentService.getCourseEnrollments("CS101").size();
+        int waitlisted = enrollmentService.getWaitlist("CS101").size();
+        System.out.printf("  enrollStudent rush: %,.0f attempts/s, enrolled %d, waitlisted %d, seats left %d%n",
+            studentCount / (elapsed / 1e9), enrolled, waitlisted, enrollmentService.getAvailableSeats("CS101"));
+        
+        if (enrolled != capacity || enrolled + waitlisted != studentCount) {
+            throw new IllegalStateException("Seat accounting mismatch");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * ID allocation under contention: every thread draws IDs as fast as it can, first from
+ * the raw allocators, then by building students.
+ * Run with: java -cp bin:bench-bin edu.ccrm.bench.IdAllocatorBenchmark [maxThreads] [idsPerThread]
+ */
+public class IdAllocatorBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int idsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        
+        System.out.printf("ID allocator benchmark: up to %d threads, %,d IDs per thread%n", maxThreads, idsPerThread);
+        
+        List<String> names = List.of("synchronized", "atomic", "blocks(64)", "blocks(1024)");
+        List<Supplier<IdAllocator>> allocators = List.of(
+            SynchronizedIdAllocator::new, AtomicIdAllocator::new,
+            () -> new BlockIdAllocator(64), () -> new BlockIdAllocator(1024));
+        
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            for (int a = 0; a < allocators.size(); a++) {
+                double opsPerSec = 0;
+                for (int round = 0; round < 3; round++) { // First rounds are warm-up
+                    opsPerSec = draw(allocators.get(a).get(), threads, idsPerThread);
+                }
+                System.out.printf("  next(), %-13s %2d thread(s): %,15.0f ids/s%n", names.get(a), threads, opsPerSec);
+            }
+        }
+        
+        // End to end: Person construction draws from the installed allocator
+        for (int a = 0; a < allocators.size(); a++) {
+            Person.setIdAllocator(allocators.get(a).get());
+            double opsPerSec = 0;
+            for (int round = 0; round < 3; round++) {
+                opsPerSec = buildStudents(maxThreads, idsPerThread / 10);
+            }
+            System.out.printf("  new Student, %-13s %2d thread(s): %,15.0f students/s%n", names.get(a), maxThreads, opsPerSec);
+        }
+    }
+    
+    private static double draw(IdAllocator allocator, int threads, int idsPerThread) throws Exception {
+        long[] sums = new long[threads];
+        double opsPerSec = race(threads, t -> {
+            long sum = 0;
+            for (int i = 0; i < idsPerThread; i++) {
+                sum += allocator.next();
+            }
+            sums[t] = sum;
+        }, (long) threads * idsPerThread);
+        
+        // Blocks leave gaps, but no ID may come out twice: spot-check with a fresh draw
+        long next = allocator.next();
+        if (next < (long) threads * idsPerThread) {
+            throw new IllegalStateException("Allocator handed out too few distinct IDs");
+        }
+        return opsPerSec;
+    }
+    
+    private static double buildStudents(int threads, int studentsPerThread) throws Exception {
+        Student[] last = new Student[threads];
+        return race(threads, t -> {
+            for (int i = 0; i < studentsPerThread; i++) {
+                last[t] = new Student.Builder()
+                    .regNo("2024ID" + i)
+                    .fullName("Student " + i)
+                    .email("student" + i + "@university.edu")
+                    .build();
+            }
+        }, (long) threads * studentsPerThread);
+    }
+    
+    private interface Worker {
+        void run(int thread);
+    }
+    
+    private static double race(int threads, Worker worker, long operations) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        
+        return operations / (elapsed / 1e9);
+    }
+    
+    // The previous scheme: a boxed counter behind the class monitor
+    private static final class SynchronizedIdAllocator implements IdAllocator {
+        private Long nextId = 1L;
+        
+        @Override
+        public synchronized long next() {
+            return nextId++;
+        }
+        
+        @Override
+        public synchronized void ensureAbove(long id) {
+            if (id >= nextId) {
+                nextId = id + 1;
+            }
+        }
+        
+        @Override
+        public synchronized long upperBound() {
+            return nextId;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.ImportExportServiceImpl;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Memory report for string interning: imports a course catalogue from CSV and compares
+ * the heap held by one title, instructor and department copy per row with the pooled
+ * instances the courses actually share.
+ * Run with: java -cp bin:bench-bin edu.ccrm.bench.InternMemoryReport [courses] [departments] [instructors] [titles]
+ */
+public class InternMemoryReport {
+    // WeakHashMap entry plus the WeakReference to the value, with compressed oops
+    private static final int POOL_ENTRY_BYTES = 48 + 32;
+    
+    public static void main(String[] args) throws Exception {
+        int courseCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int departmentCount = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int instructorCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_500;
+        int titleCount = args.length > 3 ? Integer.parseInt(args[3]) : 600;
+        
+        Path file = Files.createTempFile("ccrm-intern", ".csv");
+        try {
+            writeCatalogue(file, courseCount, departmentCount, instructorCount, titleCount);
+            
+            List<Course> courses = new ArrayList<>(courseCount);
+            new ImportExportServiceImpl().importCoursesFromCSV(file, courses::add,
+                error -> System.err.println("Line " + error.getLine() + ": " + error.getMessage()));
+            
+            // Distinct instances actually referenced by the imported courses
+            Set<String> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Course course : courses) {
+                shared.add(course.getTitle());
+                shared.add(course.getInstructor());
+                shared.add(course.getDepartment());
+            }
+            
+            // What the same fields cost with a private copy per row, as before interning
+            // (copied through char[], as new String(String) would share the bytes)
+            long before = usedHeap();
+            String[] copies = new String[courses.size() * 3];
+            for (int i = 0; i < courses.size(); i++) {
+                Course course = courses.get(i);
+                copies[i * 3] = new String(course.getTitle().toCharArray());
+                copies[i * 3 + 1] = new String(course.getInstructor().toCharArray());
+                copies[i * 3 + 2] = new String(course.getDepartment().toCharArray());
+            }
+            long copyBytes = usedHeap() - before - (16 + 4L * copies.length); // Minus the array itself
+            
+            long sharedBytes = 0;
+            for (String value : shared) {
+                sharedBytes += stringBytes(value);
+            }
+            long poolBytes = (long) shared.size() * POOL_ENTRY_BYTES;
+            
+            System.out.printf("Interning report: %,d courses, %d departments, %,d instructors, %,d titles%n",
+                courses.size(), departmentCount, instructorCount, titleCount);
+            System.out.printf("  per-row copies:  %,9d strings  %,12d bytes (measured)%n", copies.length, copyBytes);
+            System.out.printf("  interned:        %,9d strings  %,12d bytes (estimated, + %,d bytes pool overhead)%n",
+                shared.size(), sharedBytes, poolBytes);
+            System.out.printf("  saved:           %,31d bytes (%.1f%%)%n",
+                copyBytes - sharedBytes - poolBytes, 100.0 * (copyBytes - sharedBytes - poolBytes) / copyBytes);
+            Objects.requireNonNull(copies[0]); // Keep the copies reachable until measured
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    // String header and hash, plus its Latin-1 byte array, both 8-byte aligned
+    private static long stringBytes(String value) {
+        return 24 + ((16 + value.length() + 7) & ~7);
+    }
+    
+    private static void writeCatalogue(Path file, int courseCount, int departmentCount,
+                                       int instructorCount, int titleCount) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("Code,Title,Credits,Instructor,Semester,Department,Active,CreatedAt");
+            writer.newLine();
+            Semester[] semesters = Semester.values();
+            for (int i = 0; i < courseCount; i++) {
+                int prefix = i / 1000;
+                String code = "" + (char) ('A' + prefix / 26 % 26) + (char) ('A' + prefix % 26) + String.format("%03d", i % 1000);
+                writer.write(String.join(",", code,
+                    "Topics in Area " + i % titleCount,
+                    String.valueOf(1 + i % 6),
+                    "Dr. Instructor " + i % instructorCount,
+                    semesters[i % semesters.length].name(),
+                    "Department " + i % departmentCount,
+                    "true", ""));
+                writer.newLine();
+            }
+        }
+    }
+    
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
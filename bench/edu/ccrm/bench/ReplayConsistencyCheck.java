@@ -0,0 +1,143 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.CCRMException;
+import edu.ccrm.io.Journal;
+import edu.ccrm.service.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Consistency check for write-ahead log replay: runs a random mix of enrolls, grades,
+ * unenrolls and capacity changes on capacity-limited courses, then replays the log into
+ * fresh services and compares seats, enrolled courses and enrollment records with the
+ * live state, for each EnrollmentService implementation. Exits with an exception on the
+ * first difference.
+ * Run with: java -cp bin:bench-bin edu.ccrm.bench.ReplayConsistencyCheck [operations] [seed]
+ */
+public class ReplayConsistencyCheck {
+    private static final int STUDENTS = 200;
+    private static final int COURSES = 20;
+    
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        
+        Map<String, BiFunction<StudentService, CourseService, EnrollmentService>> implementations = new LinkedHashMap<>();
+        implementations.put("EnrollmentServiceImpl", EnrollmentServiceImpl::new);
+        implementations.put("ConcurrentEnrollmentServiceImpl", ConcurrentEnrollmentServiceImpl::new);
+        implementations.put("ColumnarEnrollmentServiceImpl", ColumnarEnrollmentServiceImpl::new);
+        
+        System.out.printf("Replay consistency check: %,d operations, seed %d%n", operations, seed);
+        for (Map.Entry<String, BiFunction<StudentService, CourseService, EnrollmentService>> entry : implementations.entrySet()) {
+            Path dir = Files.createTempDirectory("ccrm-replay");
+            Path wal = dir.resolve("ccrm.wal");
+            try {
+                String live = runWorkload(wal, entry.getValue(), operations, seed);
+                
+                StudentService studentService = new StudentServiceImpl();
+                CourseService courseService = new CourseServiceImpl();
+                EnrollmentService enrollmentService = entry.getValue().apply(studentService, courseService);
+                try (Journal journal = Journal.open(wal, studentService, courseService, enrollmentService)) {
+                    String replayed = describe(studentService, courseService, enrollmentService);
+                    if (!live.equals(replayed)) {
+                        throw new IllegalStateException(entry.getKey() + ": replayed state differs from live state at\n  "
+                            + firstDifference(live, replayed));
+                    }
+                    System.out.printf("  %-32s ok (%,d log records)%n", entry.getKey(), journal.getReplayedRecords());
+                }
+            } finally {
+                Files.deleteIfExists(wal);
+                Files.deleteIfExists(dir);
+            }
+        }
+    }
+    
+    // Run the workload with the journal attached and describe the state it leaves
+    private static String runWorkload(Path wal, BiFunction<StudentService, CourseService, EnrollmentService> factory,
+                                      int operations, long seed) throws Exception {
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        EnrollmentService enrollmentService = factory.apply(studentService, courseService);
+        Journal journal = Journal.open(wal, studentService, courseService, enrollmentService);
+        try {
+            List<Long> studentIds = new ArrayList<>();
+            List<Course> courses = new ArrayList<>();
+            for (int i = 0; i < STUDENTS; i++) {
+                Student student = BenchData.newStudent(i);
+                studentService.addStudent(student);
+                studentIds.add(student.getId());
+            }
+            for (int i = 0; i < COURSES; i++) {
+                Course course = BenchData.newCourse(i);
+                course.setCapacity(i % 4 == 0 ? 0 : 5 + i % 7); // Some courses unlimited
+                courseService.addCourse(course);
+                courses.add(course);
+            }
+            
+            Random random = new Random(seed);
+            for (int op = 0; op < operations; op++) {
+                Long studentId = studentIds.get(random.nextInt(studentIds.size()));
+                Course course = courses.get(random.nextInt(courses.size()));
+                String code = course.getCode();
+                try {
+                    int action = random.nextInt(10);
+                    if (action < 4) {
+                        enrollmentService.enrollStudent(studentId, code);
+                    } else if (action < 6) {
+                        enrollmentService.recordGrade(studentId, code, BenchData.gradeFor(op));
+                    } else if (action < 9) {
+                        enrollmentService.unenrollStudent(studentId, code);
+                    } else {
+                        course.setCapacity(random.nextInt(4) == 0 ? 0 : 3 + random.nextInt(10));
+                        courseService.updateCourse(course);
+                    }
+                } catch (CCRMException | RuntimeException e) {
+                    // Rejected operations (full course, credit limit, not enrolled...) are part of the mix
+                }
+            }
+            return describe(studentService, courseService, enrollmentService);
+        } finally {
+            journal.close();
+        }
+    }
+    
+    // State that replay must reproduce, one line per entity in a stable order
+    private static String describe(StudentService studentService, CourseService courseService,
+                                   EnrollmentService enrollmentService) {
+        StringBuilder state = new StringBuilder();
+        for (Student student : studentService.findAllView()) {
+            state.append("student ").append(student.getId()).append(' ')
+                .append(new TreeSet<>(student.getEnrolledCourses())).append('\n');
+        }
+        for (Course course : courseService.findAllView()) {
+            state.append("course ").append(course.getCode())
+                .append(" capacity ").append(course.getCapacity())
+                .append(" available ").append(enrollmentService.getAvailableSeats(course.getCode())).append('\n');
+        }
+        List<String> enrollments = new ArrayList<>();
+        for (Enrollment enrollment : enrollmentService.getAllEnrollmentsView()) {
+            enrollments.add("enrollment " + enrollment.getStudent().getId() + ' ' + enrollment.getCourse().getCode()
+                + ' ' + enrollment.getStatus() + ' ' + enrollment.getGrade());
+        }
+        Collections.sort(enrollments);
+        for (String enrollment : enrollments) {
+            state.append(enrollment).append('\n');
+        }
+        return state.toString();
+    }
+    
+    private static String firstDifference(String live, String replayed) {
+        String[] liveLines = live.split("\n");
+        String[] replayedLines = replayed.split("\n");
+        for (int i = 0; i < Math.min(liveLines.length, replayedLines.length); i++) {
+            if (!liveLines[i].equals(replayedLines[i])) {
+                return "live:     " + liveLines[i] + "\n  replayed: " + replayedLines[i];
+            }
+        }
+        return "line " + Math.min(liveLines.length, replayedLines.length) + " (one state is longer)";
+    }
+}
@@ -0,0 +1,131 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.io.Journal;
+import edu.ccrm.service.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Startup benchmark: recovery time from the full write-ahead log history versus from a
+ * checkpoint snapshot plus a short log tail. The history registers every student, course
+ * and enrollment (four per student, three of them graded) through the services.
+ * Run with: java -Xmx3g -cp bin:bench-bin edu.ccrm.bench.StartupBenchmark [students] [tailChanges]
+ */
+public class StartupBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        int tailChanges = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        
+        Path dir = Files.createTempDirectory("ccrm-startup");
+        Path wal = dir.resolve("ccrm.wal");
+        try {
+            System.out.printf("Startup benchmark: %,d students, %,d enrollments, %,d-change tail%n",
+                studentCount, studentCount * BenchData.ENROLLMENTS_PER_STUDENT, tailChanges);
+            
+            long begin = System.nanoTime();
+            List<Long> studentIds = writeHistory(wal, studentCount);
+            System.out.printf("  history written:        %,8d ms, log %,d bytes%n",
+                (System.nanoTime() - begin) / 1_000_000, Files.size(wal));
+            
+            // Cold start from the full log, then checkpoint and leave a tail of changes
+            checkpointWithTail(wal, studentIds, tailChanges);
+            
+            // Cold start from the snapshot and the tail
+            timeOpen("snapshot + log tail:   ", wal).journal.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+    
+    private static final class Recovery {
+        final Journal journal;
+        final EnrollmentService enrollmentService;
+        
+        Recovery(Journal journal, EnrollmentService enrollmentService) {
+            this.journal = journal;
+            this.enrollmentService = enrollmentService;
+        }
+    }
+    
+    private static List<Long> writeHistory(Path wal, int studentCount) throws Exception {
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        EnrollmentService enrollmentService = new EnrollmentServiceImpl(studentService, courseService);
+        List<Long> studentIds = new ArrayList<>(studentCount);
+        try (Journal journal = Journal.open(wal, studentService, courseService, enrollmentService)) {
+            journal.runBatch(() -> {
+                List<Course> courses = new ArrayList<>();
+                try {
+                    for (int i = 0; i < BenchData.courseCountFor(studentCount); i++) {
+                        Course course = BenchData.newCourse(i);
+                        courseService.addCourse(course);
+                        courses.add(course);
+                    }
+                    for (int i = 0; i < studentCount; i++) {
+                        Student student = BenchData.newStudent(i);
+                        studentService.addStudent(student);
+                        studentIds.add(student.getId());
+                        for (int slot = 0; slot < BenchData.ENROLLMENTS_PER_STUDENT; slot++) {
+                            String code = courses.get((i + slot * 7) % courses.size()).getCode();
+                            enrollmentService.enrollStudent(student.getId(), code);
+                            if (slot < BenchData.ENROLLMENTS_PER_STUDENT - 1) {
+                                enrollmentService.recordGrade(student.getId(), code, BenchData.gradeFor(i + slot));
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not build the history", e);
+                }
+                return null;
+            });
+        }
+        return studentIds;
+    }
+    
+    private static void checkpointWithTail(Path wal, List<Long> studentIds, int tailChanges) throws Exception {
+        Recovery recovery = timeOpen("full log replay:       ", wal);
+        Journal journal = recovery.journal;
+        
+        long begin = System.nanoTime();
+        Future<?> written = journal.checkpoint();
+        long captured = System.nanoTime();
+        written.get();
+        System.out.printf("  checkpoint:             %,8d ms capture, %,d ms in background, snapshot %,d bytes%n",
+            (captured - begin) / 1_000_000, (System.nanoTime() - captured) / 1_000_000,
+            Files.size(journal.getSnapshotFile()));
+        
+        // Grade changes after the checkpoint stay in the log
+        EnrollmentService enrollmentService = recovery.enrollmentService;
+        for (int i = 0; i < tailChanges; i++) {
+            Long studentId = studentIds.get(i * 7919 % studentIds.size());
+            Enrollment enrollment = enrollmentService.getStudentEnrollments(studentId).get(0);
+            enrollmentService.updateGrade(studentId, enrollment.getCourse().getCode(), BenchData.gradeFor(i));
+        }
+        journal.close();
+    }
+    
+    private static Recovery timeOpen(String label, Path wal) throws Exception {
+        System.gc();
+        StudentService studentService = new StudentServiceImpl();
+        CourseService courseService = new CourseServiceImpl();
+        EnrollmentService enrollmentService = new EnrollmentServiceImpl(studentService, courseService);
+        
+        long begin = System.nanoTime();
+        Journal journal = Journal.open(wal, studentService, courseService, enrollmentService);
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("  %s %,8d ms (%,d snapshot records, %,d log records; %,d enrollments)%n",
+            label, elapsed / 1_000_000, journal.getSnapshotEntities(), journal.getReplayedRecords(),
+            enrollmentService.getAllEnrollmentsView().size());
+        return new Recovery(journal, enrollmentService);
+    }
+}
@@ -12,7 +12,9 @@ import edu.ccrm.exception.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 /**
@@ -26,12 +28,16 @@ public class CCRMApplication {
     private final CourseService courseService;
     private final EnrollmentService enrollmentService;
     private final TranscriptService transcriptService;
+    private final ReportService reportService;
     private final ImportExportService importExportService;
     private final BackupService backupService;
+    private final Journal journal; // Null when the write-ahead log could not be opened
     
     // Demonstrate anonymous inner class for menu action
     private final Map<String, Runnable> menuActions;
     
+    private static final int LIST_PAGE_SIZE = 20; // Rows per screen in the list views
+    
     public CCRMApplication() {
         this.scanner = new Scanner(System.in);
         
@@ -39,15 +45,43 @@ public class CCRMApplication {
         this.studentService = new StudentServiceImpl();
         this.courseService = new CourseServiceImpl();
         this.enrollmentService = new EnrollmentServiceImpl(studentService, courseService);
+        
+        // Recover before the report service takes its first snapshot
+        this.journal = openJournal();
         this.transcriptService = new TranscriptServiceImpl(enrollmentService);
-        this.importExportService = new ImportExportServiceImpl();
-        this.backupService = new BackupServiceImpl();
+        this.reportService = new ReportServiceImpl(studentService, courseService, enrollmentService);
+        this.importExportService = new ImportExportServiceImpl(studentService, courseService, enrollmentService);
+        // Attached after recovery, so replayed history is not mistaken for new changes
+        this.backupService = new BackupServiceImpl(importExportService,
+            ChangeTracker.attach(studentService, courseService, enrollmentService));
         
         // Initialize menu actions using anonymous inner classes and lambdas
         this.menuActions = new HashMap<>();
         initializeMenuActions();
     }
     
+    // Replay the write-ahead log into the services and log every change from here on
+    private Journal openJournal() {
+        Path walFile = Paths.get(AppConfig.getInstance().getDataFolderPath(), "ccrm.wal");
+        try {
+            Files.createDirectories(walFile.toAbsolutePath().getParent());
+            Journal opened = Journal.open(walFile, studentService, courseService, enrollmentService);
+            if (opened.getSnapshotEntities() > 0 || opened.getReplayedRecords() > 0) {
+                System.out.printf("Recovered %d records from the snapshot and %d changes from %s%n",
+                    opened.getSnapshotEntities(), opened.getReplayedRecords(), walFile);
+            }
+            return opened;
+        } catch (IOException e) {
+            System.out.println("Warning: write-ahead log unavailable, changes will not be saved: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Bulk changes wait for the log once, at the end
+    private <T> T inJournalBatch(Journal.BatchWork<T> work) throws IOException {
+        return journal != null ? journal.runBatch(work) : work.run();
+    }
+    
     public static void main(String[] args) {
         // Display platform information
         displayPlatformInfo();
@@ -94,9 +128,31 @@ public class CCRMApplication {
                 }
                 default -> System.out.println("Invalid choice. Please try again.");
             }
+            checkpointIfDue();
         }
         
         scanner.close();
+        if (journal != null) {
+            try {
+                // Leave a snapshot behind so the next start has no log to replay
+                journal.checkpoint();
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Error closing write-ahead log: " + e.getMessage());
+            }
+        }
+    }
+    
+    // Snapshot in the background once the log has grown enough, between commands
+    private void checkpointIfDue() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.checkpointIfDue();
+        } catch (IOException e) {
+            System.out.println("Warning: checkpoint failed, the log keeps growing: " + e.getMessage());
+        }
     }
     
     private void displayMainMenu() {
@@ -185,9 +241,9 @@ public class CCRMApplication {
     }
     
     private void listStudents() {
-        List<Student> students = studentService.getAllStudents();
+        Page<Student, Long> page = studentService.page(null, LIST_PAGE_SIZE);
         
-        if (students.isEmpty()) {
+        if (page.isEmpty()) {
             System.out.println("No students found.");
             return;
         }
@@ -197,11 +253,17 @@ public class CCRMApplication {
             "ID", "Reg No", "Name", "Email", "Status");
         System.out.println("-".repeat(90));
         
-        // Demonstrate enhanced for loop
-        for (Student student : students) {
-            System.out.printf("%-10s %-15s %-25s %-30s %-10s%n",
-                student.getId(), student.getRegNo(), student.getFullName(),
-                student.getEmail(), student.getStatus());
+        // One page at a time, continuing after the last ID shown
+        while (true) {
+            for (Student student : page.getItems()) {
+                System.out.printf("%-10s %-15s %-25s %-30s %-10s%n",
+                    student.getId(), student.getRegNo(), student.getFullName(),
+                    student.getEmail(), student.getStatus());
+            }
+            if (!page.hasMore() || !showMore()) {
+                break;
+            }
+            page = studentService.page(page.getNextKey().orElseThrow(), LIST_PAGE_SIZE);
         }
     }
     
@@ -282,15 +344,11 @@ public class CCRMApplication {
     }
     
     private void searchStudents() {
-        System.out.print("Enter search term (name or email): ");
+        System.out.print("Enter search term (name, email or reg no): ");
         String searchTerm = scanner.nextLine().trim();
         
-        // Demonstrate Stream API with lambda expressions
-        List<Student> results = studentService.getAllStudents().stream()
-            .filter(student -> student.getFullName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                              student.getEmail().toLowerCase().contains(searchTerm.toLowerCase()))
-            .sorted((s1, s2) -> s1.getFullName().compareToIgnoreCase(s2.getFullName()))
-            .collect(Collectors.toList());
+        // Indexed search, best matches first
+        List<Student> results = studentService.search(searchTerm);
         
         if (results.isEmpty()) {
             System.out.println("No students found matching: " + searchTerm);
@@ -349,6 +407,20 @@ public class CCRMApplication {
             System.out.print("Enter Department: ");
             String department = scanner.nextLine().trim();
             
+            System.out.print("Enter Seat Capacity (0 for unlimited): ");
+            String capacityStr = scanner.nextLine().trim();
+            int capacity;
+            try {
+                capacity = capacityStr.isEmpty() ? 0 : Integer.parseInt(capacityStr);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid capacity format. Enter a whole number, or 0 for unlimited.");
+                return;
+            }
+            if (capacity < 0) {
+                System.out.println("Invalid capacity: seat capacity cannot be negative.");
+                return;
+            }
+            
             // Using builder pattern
             Course course = new Course.Builder()
                 .code(code)
@@ -357,6 +429,7 @@ public class CCRMApplication {
                 .instructor(instructor)
                 .semester(semester)
                 .department(department)
+                .capacity(capacity)
                 .build();
             
             courseService.addCourse(course);
@@ -374,9 +447,9 @@ public class CCRMApplication {
     }
     
     private void listCourses() {
-        List<Course> courses = courseService.getAllCourses();
+        Page<Course, String> page = courseService.page(null, LIST_PAGE_SIZE);
         
-        if (courses.isEmpty()) {
+        if (page.isEmpty()) {
             System.out.println("No courses found.");
             return;
         }
@@ -386,18 +459,30 @@ public class CCRMApplication {
             "Code", "Title", "Credits", "Instructor", "Semester", "Department");
         System.out.println("-".repeat(100));
         
-        for (Course course : courses) {
-            System.out.printf("%-10s %-30s %-8d %-20s %-10s %-15s%n",
-                course.getCode(), course.getTitle(), course.getCredits(),
-                course.getInstructor(), course.getSemester(), course.getDepartment());
+        while (true) {
+            for (Course course : page.getItems()) {
+                System.out.printf("%-10s %-30s %-8d %-20s %-10s %-15s%n",
+                    course.getCode(), course.getTitle(), course.getCredits(),
+                    course.getInstructor(), course.getSemester(), course.getDepartment());
+            }
+            if (!page.hasMore() || !showMore()) {
+                break;
+            }
+            page = courseService.page(page.getNextKey().orElseThrow(), LIST_PAGE_SIZE);
         }
     }
     
+    private boolean showMore() {
+        System.out.print("-- Press Enter for more, q to stop: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+    
     private void searchCourses() {
         System.out.println("\nSearch by:");
         System.out.println("1. Department");
         System.out.println("2. Instructor");
         System.out.println("3. Semester");
+        System.out.println("4. Keyword (code, title, instructor or department)");
         System.out.print("Choose search type: ");
         
         String choice = scanner.nextLine().trim();
@@ -418,6 +503,7 @@ public class CCRMApplication {
                     return;
                 }
             }
+            case "4" -> results = courseService.search(searchValue);
             default -> System.out.println("Invalid search type.");
         }
         
@@ -500,6 +586,8 @@ public class CCRMApplication {
             System.out.println("Error: " + e.getMessage());
         } catch (MaxCreditLimitExceededException | DuplicateEnrollmentException e) {
             System.out.println("Enrollment error: " + e.getMessage());
+        } catch (CourseFullException e) {
+            System.out.println("Course full: " + e.getMessage());
         }
     }
     
@@ -644,6 +732,8 @@ public class CCRMApplication {
             System.out.println("\n--- Student Grades ---");
             System.out.println("Student: " + student.getFullName());
             System.out.println("GPA: " + String.format("%.2f", transcript.getGpa()));
+            reportService.getStudentRank(studentId).ifPresent(rank ->
+                System.out.println("Class Rank: " + rank + " of " + reportService.getRankedStudentCount()));
             System.out.println("\nCourse Grades:");
             transcript.getEnrollments().forEach(enrollment -> {
                 System.out.printf("%-10s %-30s %s%n",
@@ -689,23 +779,12 @@ public class CCRMApplication {
             System.out.print("Enter CSV file path: ");
             String filePath = scanner.nextLine().trim();
             
-            List<Student> students = importExportService.importStudentsFromCSV(Paths.get(filePath));
+            // Stream rows straight into the service; bad rows are reported as they are found
+            ImportResult result = inJournalBatch(() -> importExportService.importStudentsFromCSV(Paths.get(filePath),
+                studentService::addStudent,
+                error -> System.out.println("Error importing student at line " + error.getLine() + ": " + error.getMessage())));
             
-            // Demonstrate try-with-resources and multi-catch
-            int successCount = 0;
-            int errorCount = 0;
-            
-            for (Student student : students) {
-                try {
-                    studentService.addStudent(student);
-                    successCount++;
-                } catch (DuplicateStudentException | IllegalArgumentException e) {
-                    System.out.println("Error importing student " + student.getRegNo() + ": " + e.getMessage());
-                    errorCount++;
-                }
-            }
-            
-            System.out.printf("Import completed. Success: %d, Errors: %d%n", successCount, errorCount);
+            System.out.printf("Import completed. Success: %d, Errors: %d%n", result.getImported(), result.getFailed());
             
         } catch (Exception e) {
             System.out.println("Error reading file: " + e.getMessage());
@@ -717,22 +796,11 @@ public class CCRMApplication {
             System.out.print("Enter CSV file path: ");
             String filePath = scanner.nextLine().trim();
             
-            List<Course> courses = importExportService.importCoursesFromCSV(Paths.get(filePath));
+            ImportResult result = inJournalBatch(() -> importExportService.importCoursesFromCSV(Paths.get(filePath),
+                courseService::addCourse,
+                error -> System.out.println("Error importing course at line " + error.getLine() + ": " + error.getMessage())));
             
-            int successCount = 0;
-            int errorCount = 0;
-            
-            for (Course course : courses) {
-                try {
-                    courseService.addCourse(course);
-                    successCount++;
-                } catch (DuplicateCourseException | IllegalArgumentException e) {
-                    System.out.println("Error importing course " + course.getCode() + ": " + e.getMessage());
-                    errorCount++;
-                }
-            }
-            
-            System.out.printf("Import completed. Success: %d, Errors: %d%n", successCount, errorCount);
+            System.out.printf("Import completed. Success: %d, Errors: %d%n", result.getImported(), result.getFailed());
             
         } catch (Exception e) {
             System.out.println("Error reading file: " + e.getMessage());
@@ -788,25 +856,34 @@ public class CCRMApplication {
         while (!back) {
             System.out.println("\n--- Backup & Archive ---");
             System.out.println("1. Create Backup");
-            System.out.println("2. List Backup Folders");
-            System.out.println("3. Calculate Backup Directory Size (Recursive)");
-            System.out.println("4. Restore from Backup");
-            System.out.println("5. Back to Main Menu");
+            System.out.println("2. Create Incremental Backup");
+            System.out.println("3. List Backup Folders");
+            System.out.println("4. Calculate Backup Directory Size (Recursive)");
+            System.out.println("5. Restore from Backup");
+            System.out.println("6. Archive Finished Enrollments");
+            System.out.println("7. Back to Main Menu");
             System.out.print("Enter choice: ");
             
             String choice = scanner.nextLine().trim();
             
             switch (choice) {
                 case "1" -> createBackup();
-                case "2" -> listBackupFolders();
-                case "3" -> calculateBackupSize();
-                case "4" -> restoreFromBackup();
-                case "5" -> back = true;
+                case "2" -> createIncrementalBackup();
+                case "3" -> listBackupFolders();
+                case "4" -> calculateBackupSize();
+                case "5" -> restoreFromBackup();
+                case "6" -> archiveFinishedEnrollments();
+                case "7" -> back = true;
                 default -> System.out.println("Invalid choice.");
             }
         }
     }
     
+    private void archiveFinishedEnrollments() {
+        int archived = enrollmentService.archiveFinishedEnrollments();
+        System.out.println("Moved " + archived + " completed or withdrawn enrollments to the archive.");
+    }
+    
     private void createBackup() {
         try {
             String backupPath = backupService.createBackup();
@@ -823,6 +900,17 @@ public class CCRMApplication {
         }
     }
     
+    private void createIncrementalBackup() {
+        try {
+            String backupPath = backupService.createIncrementalBackup();
+            System.out.println("Backup created successfully at: " + backupPath);
+            System.out.println("See backup_info.txt for its type and the backups it builds on.");
+            
+        } catch (Exception e) {
+            System.out.println("Error creating backup: " + e.getMessage());
+        }
+    }
+    
     private void listBackupFolders() {
         try {
             List<String> backupFolders = backupService.listBackupFolders();
@@ -878,7 +966,11 @@ public class CCRMApplication {
             
             if (choice >= 0 && choice < backupFolders.size()) {
                 String selectedBackup = backupFolders.get(choice);
-                backupService.restoreFromBackup(selectedBackup);
+                // One batch, so the restored records share a single fsync
+                inJournalBatch(() -> {
+                    backupService.restoreFromBackup(selectedBackup);
+                    return null;
+                });
                 System.out.println("Data restored successfully from: " + selectedBackup);
             } else {
                 System.out.println("Invalid selection.");
@@ -919,27 +1011,13 @@ public class CCRMApplication {
     }
     
     private void showGPADistribution() {
-        List<Student> students = studentService.getAllStudents();
-        
-        if (students.isEmpty()) {
+        if (studentService.count() == 0) {
             System.out.println("No students found.");
             return;
         }
         
-        // Demonstrate Stream API with complex pipeline
-        Map<String, Long> gpaRanges = students.stream()
-            .map(student -> transcriptService.generateTranscript(student))
-            .filter(transcript -> transcript.getGpa() > 0)
-            .collect(Collectors.groupingBy(
-                transcript -> {
-                    double gpa = transcript.getGpa();
-                    if (gpa >= 3.5) return "Excellent (3.5-4.0)";
-                    else if (gpa >= 3.0) return "Good (3.0-3.49)";
-                    else if (gpa >= 2.5) return "Average (2.5-2.99)";
-                    else return "Below Average (<2.5)";
-                },
-                Collectors.counting()
-            ));
+        // Bands are maintained incrementally by the report service
+        Map<String, Long> gpaRanges = reportService.getGpaDistribution();
         
         System.out.println("\n--- GPA Distribution ---");
         gpaRanges.entrySet().stream()
@@ -954,19 +1032,7 @@ public class CCRMApplication {
         String input = scanner.nextLine().trim();
         int limit = input.isEmpty() ? 10 : Integer.parseInt(input);
         
-        List<Student> students = studentService.getAllStudents();
-        
-        // Complex Stream pipeline with sorting and limiting
-        List<Student> topStudents = students.stream()
-            .map(student -> new Object() {
-                final Student student = student;
-                final double gpa = transcriptService.generateTranscript(student).getGpa();
-            })
-            .filter(wrapper -> wrapper.gpa > 0)
-            .sorted((w1, w2) -> Double.compare(w2.gpa, w1.gpa))
-            .limit(limit)
-            .map(wrapper -> wrapper.student)
-            .collect(Collectors.toList());
+        List<Student> topStudents = reportService.getTopStudents(limit);
         
         if (topStudents.isEmpty()) {
             System.out.println("No students with grades found.");
@@ -979,9 +1045,10 @@ public class CCRMApplication {
         
         for (int i = 0; i < topStudents.size(); i++) {
             Student student = topStudents.get(i);
-            double gpa = transcriptService.generateTranscript(student).getGpa();
+            double gpa = reportService.getStudentGpa(student.getId());
+            int rank = reportService.getStudentRank(student.getId()).orElse(i + 1); // Tied GPAs share a rank
             System.out.printf("%-5d %-15s %-25s %-10.2f%n",
-                i + 1, student.getRegNo(), student.getFullName(), gpa);
+                rank, student.getRegNo(), student.getFullName(), gpa);
         }
     }
     
@@ -993,18 +1060,13 @@ public class CCRMApplication {
         System.out.println("-".repeat(55));
         
         for (Course course : courses) {
-            List<Enrollment> enrollments = enrollmentService.getCourseEnrollments(course.getCode());
             System.out.printf("%-10s %-30s %-12d%n",
                 course.getCode(),
                 course.getTitle().length() > 30 ? course.getTitle().substring(0, 27) + "..." : course.getTitle(),
-                enrollments.size());
+                reportService.getCourseEnrollmentCount(course.getCode()));
         }
         
-        // Calculate totals using Stream API
-        int totalEnrollments = courses.stream()
-            .mapToInt(course -> enrollmentService.getCourseEnrollments(course.getCode()).size())
-            .sum();
-        
+        long totalEnrollments = reportService.getTotalEnrollments();
         double avgEnrollment = courses.isEmpty() ? 0 : (double) totalEnrollments / courses.size();
         
         System.out.println("-".repeat(55));
@@ -1014,14 +1076,7 @@ public class CCRMApplication {
     }
     
     private void showDepartmentStats() {
-        List<Course> courses = courseService.getAllCourses();
-        
-        // Demonstrate advanced Stream operations
-        Map<String, Long> departmentCount = courses.stream()
-            .collect(Collectors.groupingBy(
-                Course::getDepartment,
-                Collectors.counting()
-            ));
+        Map<String, Long> departmentCount = reportService.getDepartmentCourseCounts();
         
         System.out.println("\n--- Department-wise Course Statistics ---");
         System.out.printf("%-25s %-10s%n", "Department", "Courses");
@@ -1035,29 +1090,18 @@ public class CCRMApplication {
     }
     
     private void showGradeDistribution() {
-        // Get all enrollments with grades
-        List<Enrollment> gradedEnrollments = studentService.getAllStudents().stream()
-            .flatMap(student -> enrollmentService.getStudentEnrollments(student.getId()).stream())
-            .filter(enrollment -> enrollment.getGrade() != null)
-            .collect(Collectors.toList());
-        
-        if (gradedEnrollments.isEmpty()) {
+        long total = reportService.getTotalGradedEnrollments();
+        if (total == 0) {
             System.out.println("No graded enrollments found.");
             return;
         }
         
-        Map<Grade, Long> gradeCount = gradedEnrollments.stream()
-            .collect(Collectors.groupingBy(
-                Enrollment::getGrade,
-                Collectors.counting()
-            ));
+        Map<Grade, Long> gradeCount = reportService.getGradeDistribution();
         
         System.out.println("\n--- Grade Distribution ---");
         System.out.printf("%-6s %-10s %-10s%n", "Grade", "Count", "Percentage");
         System.out.println("-".repeat(30));
         
-        int total = gradedEnrollments.size();
-        
         // Show in grade order
         for (Grade grade : Grade.values()) {
             long count = gradeCount.getOrDefault(grade, 0L);
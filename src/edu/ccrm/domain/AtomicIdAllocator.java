@@ -0,0 +1,41 @@
+package edu.ccrm.domain;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates sequential IDs from one atomic counter. Lock-free, and IDs come out in
+ * creation order, but every thread increments the same cache line; use a
+ * BlockIdAllocator when many threads create entities at once.
+ */
+public class AtomicIdAllocator implements IdAllocator {
+    private final AtomicLong nextId;
+    
+    public AtomicIdAllocator() {
+        this(1);
+    }
+    
+    public AtomicIdAllocator(long firstId) {
+        if (firstId < 1) {
+            throw new IllegalArgumentException("First ID must be positive");
+        }
+        this.nextId = new AtomicLong(firstId);
+    }
+    
+    @Override
+    public long next() {
+        return nextId.getAndIncrement();
+    }
+    
+    @Override
+    public void ensureAbove(long id) {
+        // Plain read first: restored IDs are usually already covered, and a CAS would dirty the line
+        if (id >= nextId.get()) {
+            nextId.accumulateAndGet(id + 1, Math::max);
+        }
+    }
+    
+    @Override
+    public long upperBound() {
+        return nextId.get();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.ccrm.domain;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands each thread a block of consecutive IDs, so the shared counter is touched once
+ * per block instead of once per ID. IDs stay unique but are only ascending per thread,
+ * and the unused tail of a block is skipped when its thread stops creating entities.
+ *
+ * Restoring an ID raises a floor: a thread whose block has fallen at or below it drops
+ * the rest of the block and claims a new one above the restored ID.
+ */
+public class BlockIdAllocator implements IdAllocator {
+    private final int blockSize;
+    private final AtomicLong nextBlock;
+    private final AtomicLong floor = new AtomicLong(); // Highest restored ID
+    
+    // Per thread: next ID, and the end of the block (exclusive). Starts out empty
+    private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
+    
+    public BlockIdAllocator(int blockSize) {
+        this(blockSize, 1);
+    }
+    
+    public BlockIdAllocator(int blockSize, long firstId) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        if (firstId < 1) {
+            throw new IllegalArgumentException("First ID must be positive");
+        }
+        this.blockSize = blockSize;
+        this.nextBlock = new AtomicLong(firstId);
+    }
+    
+    @Override
+    public long next() {
+        long[] block = blocks.get();
+        long id = block[0];
+        if (id >= block[1] || id <= floor.get()) {
+            id = nextBlock.getAndAdd(blockSize);
+            block[1] = id + blockSize;
+        }
+        block[0] = id + 1;
+        return id;
+    }
+    
+    @Override
+    public void ensureAbove(long id) {
+        // Counter first: a thread that sees the new floor must claim its next block above it
+        if (id >= nextBlock.get()) {
+            nextBlock.accumulateAndGet(id + 1, Math::max);
+        }
+        if (id > floor.get()) {
+            floor.accumulateAndGet(id, Math::max);
+        }
+    }
+    
+    @Override
+    public long upperBound() {
+        return nextBlock.get();
+    }
+    
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
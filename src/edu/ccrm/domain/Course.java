@@ -13,10 +13,14 @@ public class Course {
     private String instructor;
     private Semester semester;
     private String department;
+    private int capacity; // Seat capacity, 0 = unlimited
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private boolean active;
     
+    // Titles, instructors and departments repeat across courses; keep one copy of each
+    private static final StringInterner INTERNER = StringInterner.getInstance();
+    
     // Static nested class for course validation
     public static class CourseValidator {
         public static boolean isValidCredits(int credits) {
@@ -30,6 +34,10 @@ public class Course {
         public static boolean isValidTitle(String title) {
             return title != null && title.trim().length() >= 3;
         }
+        
+        public static boolean isValidCapacity(int capacity) {
+            return capacity >= 0;
+        }
     }
     
     // Inner class for course statistics (demonstrates inner class access to outer class)
@@ -53,6 +61,7 @@ public class Course {
         this.instructor = builder.instructor;
         this.semester = builder.semester;
         this.department = builder.department;
+        this.capacity = builder.capacity;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
         this.active = true;
@@ -65,6 +74,8 @@ public class Course {
     public String getInstructor() { return instructor; }
     public Semester getSemester() { return semester; }
     public String getDepartment() { return department; }
+    public int getCapacity() { return capacity; }
+    public boolean hasCapacityLimit() { return capacity > 0; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public boolean isActive() { return active; }
@@ -74,7 +85,7 @@ public class Course {
         if (!CourseValidator.isValidTitle(title)) {
             throw new IllegalArgumentException("Invalid course title");
         }
-        this.title = title;
+        this.title = INTERNER.intern(title);
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -87,7 +98,7 @@ public class Course {
     }
     
     public void setInstructor(String instructor) {
-        this.instructor = instructor;
+        this.instructor = INTERNER.intern(instructor);
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -97,7 +108,15 @@ public class Course {
     }
     
     public void setDepartment(String department) {
-        this.department = department;
+        this.department = INTERNER.intern(department);
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public void setCapacity(int capacity) {
+        if (!CourseValidator.isValidCapacity(capacity)) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        this.capacity = capacity;
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -138,6 +157,7 @@ public class Course {
         private String instructor;
         private Semester semester;
         private String department;
+        private int capacity;
         
         public Builder code(String code) {
             this.code = code != null ? code.toUpperCase() : null;
@@ -145,7 +165,7 @@ public class Course {
         }
         
         public Builder title(String title) {
-            this.title = title;
+            this.title = INTERNER.intern(title);
             return this;
         }
         
@@ -155,7 +175,7 @@ public class Course {
         }
         
         public Builder instructor(String instructor) {
-            this.instructor = instructor;
+            this.instructor = INTERNER.intern(instructor);
             return this;
         }
         
@@ -165,7 +185,12 @@ public class Course {
         }
         
         public Builder department(String department) {
-            this.department = department;
+            this.department = INTERNER.intern(department);
+            return this;
+        }
+        
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
             return this;
         }
         
@@ -188,6 +213,10 @@ public class Course {
                 throw new IllegalArgumentException("Credits must be between 1 and 6");
             }
             
+            if (!CourseValidator.isValidCapacity(capacity)) {
+                throw new IllegalArgumentException("Capacity cannot be negative");
+            }
+            
             return new Course(this);
         }
     }
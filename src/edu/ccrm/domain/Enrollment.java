@@ -16,8 +16,8 @@ public class Enrollment {
     private LocalDateTime gradeDate;
     private EnrollmentStatus status;
     
-    // Static counter for ID generation
-    private static Long idCounter = 1L;
+    // Shared by all enrollments; see setIdAllocator
+    private static volatile IdAllocator idAllocator = new AtomicIdAllocator();
     
     public Enrollment(Student student, Course course) {
         this.id = generateId();
@@ -30,8 +30,53 @@ public class Enrollment {
         validateEnrollment();
     }
     
-    private static synchronized Long generateId() {
-        return idCounter++;
+    private Enrollment(Long id, Student student, Course course) {
+        this.id = Objects.requireNonNull(id, "ID cannot be null");
+        this.student = Objects.requireNonNull(student, "Student cannot be null");
+        this.course = Objects.requireNonNull(course, "Course cannot be null");
+    }
+    
+    /**
+     * Rebuild an exported or logged enrollment as it was, skipping the enrollment rules
+     * (the student or course may have been deactivated since). Generated IDs resume above its ID.
+     */
+    public static Enrollment restore(Long id, Student student, Course course, Grade grade, EnrollmentStatus status,
+                                     LocalDateTime enrollmentDate, LocalDateTime gradeDate) {
+        Enrollment enrollment = rebuild(id, student, course, grade, status, enrollmentDate, gradeDate);
+        idAllocator.ensureAbove(id);
+        return enrollment;
+    }
+    
+    /**
+     * Rebuild an enrollment a store already holds, such as a columnar row. Unlike restore
+     * it leaves the ID allocator alone, as the ID was handed out or restored before.
+     */
+    public static Enrollment rebuild(Long id, Student student, Course course, Grade grade, EnrollmentStatus status,
+                                     LocalDateTime enrollmentDate, LocalDateTime gradeDate) {
+        Enrollment enrollment = new Enrollment(id, student, course);
+        enrollment.grade = grade;
+        enrollment.status = Objects.requireNonNull(status, "Status cannot be null");
+        enrollment.enrollmentDate = Objects.requireNonNull(enrollmentDate, "Enrollment date cannot be null");
+        enrollment.gradeDate = gradeDate;
+        return enrollment;
+    }
+    
+    private static Long generateId() {
+        return idAllocator.next();
+    }
+    
+    public static IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+    
+    /**
+     * Switch the ID allocation strategy. The new allocator resumes above every ID
+     * handed out by the previous one.
+     */
+    public static void setIdAllocator(IdAllocator allocator) {
+        Objects.requireNonNull(allocator, "ID allocator cannot be null");
+        allocator.ensureAbove(idAllocator.upperBound() - 1);
+        idAllocator = allocator;
     }
     
     private void validateEnrollment() {
@@ -0,0 +1,27 @@
+package edu.ccrm.domain;
+
+/**
+ * Source of entity IDs. Person and Enrollment each hold one; swap it with their
+ * setIdAllocator before the first entity is created.
+ *
+ * Allocators are restore-aware: once ensureAbove(id) returns, no later call to next()
+ * hands out an ID at or below it, so imports and backup restores can bring back IDs
+ * that were issued by an earlier run without later entities colliding with them.
+ */
+public interface IdAllocator {
+    
+    /**
+     * @return a positive ID that has not been handed out before
+     */
+    long next();
+    
+    /**
+     * Make sure later IDs are above the given one, e.g. after restoring an entity with it
+     */
+    void ensureAbove(long id);
+    
+    /**
+     * @return a bound above every ID handed out or reserved so far
+     */
+    long upperBound();
+}
@@ -14,6 +14,8 @@ public class Instructor extends Person {
     private final Set<String> coursesTaught;
     private LocalDateTime hireDate;
     
+    private static final StringInterner INTERNER = StringInterner.getInstance();
+    
     public Instructor() {
         super();
         this.coursesTaught = new HashSet<>();
@@ -23,7 +25,7 @@ public class Instructor extends Person {
     public Instructor(String fullName, String email, String employeeId, String department) {
         super(fullName, email);
         this.employeeId = employeeId;
-        this.department = department;
+        this.department = INTERNER.intern(department);
         this.coursesTaught = new HashSet<>();
         this.hireDate = LocalDateTime.now();
     }
@@ -55,10 +57,10 @@ public class Instructor extends Person {
     public void setEmployeeId(String employeeId) { this.employeeId = employeeId; }
     
     public String getDepartment() { return department; }
-    public void setDepartment(String department) { this.department = department; }
+    public void setDepartment(String department) { this.department = INTERNER.intern(department); }
     
     public String getDesignation() { return designation; }
-    public void setDesignation(String designation) { this.designation = designation; }
+    public void setDesignation(String designation) { this.designation = INTERNER.intern(designation); }
     
     public LocalDateTime getHireDate() { return hireDate; }
     public void setHireDate(LocalDateTime hireDate) { this.hireDate = hireDate; }
@@ -15,8 +15,8 @@ public abstract class Person {
     protected LocalDateTime createdAt;
     protected LocalDateTime updatedAt;
     
-    // Static counter for ID generation
-    private static Long idCounter = 1L;
+    // Shared by all persons; see setIdAllocator
+    private static volatile IdAllocator idAllocator = new AtomicIdAllocator();
     
     public Person() {
         this.id = generateId();
@@ -30,9 +30,33 @@ public abstract class Person {
         this.email = email;
     }
     
-    // Synchronized method for thread-safe ID generation
-    private static synchronized Long generateId() {
-        return idCounter++;
+    private static Long generateId() {
+        return idAllocator.next();
+    }
+    
+    /**
+     * Give a newly built person back the ID it was exported with, for imports and restores.
+     * Generated IDs resume above it.
+     */
+    public static <T extends Person> T restoreId(T person, Long id) {
+        Objects.requireNonNull(person, "Person cannot be null");
+        person.id = Objects.requireNonNull(id, "ID cannot be null");
+        idAllocator.ensureAbove(id);
+        return person;
+    }
+    
+    public static IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+    
+    /**
+     * Switch the ID allocation strategy. The new allocator resumes above every ID
+     * handed out by the previous one.
+     */
+    public static void setIdAllocator(IdAllocator allocator) {
+        Objects.requireNonNull(allocator, "ID allocator cannot be null");
+        allocator.ensureAbove(idAllocator.upperBound() - 1);
+        idAllocator = allocator;
     }
     
     // Abstract method - must be implemented by subclasses
@@ -0,0 +1,69 @@
+package edu.ccrm.domain;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalizes repeated strings such as department, instructor and course title, so
+ * equal values share one instance instead of one copy per course or imported row.
+ *
+ * The pool only holds weak references: a value disappears once no entity uses it.
+ * It is split into stripes, each behind its own lock, so parallel imports rarely wait
+ * on each other. Unlike String.intern, the pool lives on the heap and can be measured.
+ */
+public final class StringInterner {
+    private static final int STRIPES = 16; // Power of two
+    private static final StringInterner INSTANCE = new StringInterner();
+    
+    private final Map<String, WeakReference<String>>[] stripes;
+    
+    @SuppressWarnings("unchecked")
+    public StringInterner() {
+        this.stripes = (Map<String, WeakReference<String>>[]) new Map<?, ?>[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+    
+    public static StringInterner getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * @return the pooled instance equal to value, pooling value itself if there is none; null stays null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, WeakReference<String>> stripe = stripeOf(value);
+        synchronized (stripe) {
+            WeakReference<String> ref = stripe.get(value);
+            String canonical = ref != null ? ref.get() : null;
+            if (canonical == null) {
+                stripe.put(value, new WeakReference<>(value));
+                canonical = value;
+            }
+            return canonical;
+        }
+    }
+    
+    /**
+     * Number of distinct values currently pooled
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+    
+    private Map<String, WeakReference<String>> stripeOf(String value) {
+        int h = value.hashCode() * 0x9E3779B9;
+        return stripes[(h >>> 16) & (STRIPES - 1)];
+    }
+}
@@ -63,7 +63,7 @@ public class Transcript {
     
     // Getters
     public Student getStudent() { return student; }
-    public List<Enrollment> getEnrollments() { return new ArrayList<>(enrollments); }
+    public List<Enrollment> getEnrollments() { return Collections.unmodifiableList(enrollments); }
     public LocalDateTime getGeneratedAt() { return generatedAt; }
     public double getGpa() { return gpa; }
     public int getTotalCredits() { return totalCredits; }
@@ -14,3 +14,15 @@ public class CourseNotFoundException extends CCRMException {
         super(message, "COURSE_NOT_FOUND");
     }
 }
+
+// File: src/edu/ccrm/exception/CourseFullException.java
+package edu.ccrm.exception;
+
+/**
+ * Checked exception raised when a capacity-limited course has no free seats
+ */
+public class CourseFullException extends CCRMException {
+    public CourseFullException(String message) {
+        super(message, "COURSE_FULL");
+    }
+}
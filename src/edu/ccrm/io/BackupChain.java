@@ -0,0 +1,164 @@
+package edu.ccrm.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Backup chain manifest and replay for incremental backups.
+ *
+ * Every backup folder holds a manifest listing its chain, the full base backup first and
+ * the folder itself last. A full backup is a chain of one. An incremental backup holds
+ * the usual CSV files with only the rows changed since its parent, plus deleted.csv with
+ * the keys removed since then; deletions apply before the changed rows.
+ *
+ * Replay streams the base tables once and substitutes or drops rows by key, so memory
+ * grows with the size of the deltas, not with the dataset.
+ */
+final class BackupChain {
+    static final String MANIFEST = "backup_chain.txt";
+    static final String DELETED = "deleted.csv";
+    static final String DELETED_HEADER = "Kind,Key";
+    static final String STUDENT = "Student";
+    static final String COURSE = "Course";
+    static final String ENROLLMENT = "Enrollment";
+    
+    // Table files and the kind of key in their first column
+    private static final String[][] TABLES = {
+        {"students.csv", STUDENT},
+        {"courses.csv", COURSE},
+        {"enrollments.csv", ENROLLMENT}
+    };
+    
+    private BackupChain() {}
+    
+    /**
+     * The chain of a backup, base first. A folder without a manifest predates incremental
+     * backups and is a full backup on its own.
+     */
+    static List<String> read(Path backupFolder) throws IOException {
+        Path manifest = backupFolder.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return List.of(backupFolder.getFileName().toString());
+        }
+        List<String> chain = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                chain.add(line.trim());
+            }
+        }
+        if (chain.isEmpty() || !chain.get(chain.size() - 1).equals(backupFolder.getFileName().toString())) {
+            throw new IOException("Backup chain manifest does not end with its own backup: " + manifest);
+        }
+        return chain;
+    }
+    
+    static void write(Path backupFolder, List<String> chain) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(backupFolder.resolve(MANIFEST))) {
+            writer.write("# CCRM backup chain: full base backup first, then each incremental backup in order");
+            writer.newLine();
+            for (String backup : chain) {
+                writer.write(backup);
+                writer.newLine();
+            }
+        }
+    }
+    
+    /**
+     * Write the state at the end of the chain to the target folder as full CSV tables
+     * @param backups the chain's folders, base first
+     */
+    static void replay(List<Path> backups, Path target) throws IOException {
+        for (String[] table : TABLES) {
+            Map<String, String[]> changed = new LinkedHashMap<>();
+            Set<String> deleted = new HashSet<>();
+            for (Path delta : backups.subList(1, backups.size())) {
+                for (String key : deletedKeys(delta, table[1])) {
+                    changed.remove(key);
+                    deleted.add(key);
+                }
+                Path rows = delta.resolve(table[0]);
+                if (Files.exists(rows)) {
+                    readRows(rows, row -> changed.put(row[0], row));
+                }
+            }
+            merge(backups.get(0).resolve(table[0]), changed, deleted, target.resolve(table[0]));
+        }
+    }
+    
+    private static void merge(Path base, Map<String, String[]> changed, Set<String> deleted,
+                              Path target) throws IOException {
+        if (!Files.exists(base)) {
+            throw new FileNotFoundException("Base backup has no " + base.getFileName() + ": " + base.getParent());
+        }
+        try (CSVChannelWriter writer = new CSVChannelWriter(target)) {
+            writer.header(readHeader(base));
+            readRows(base, row -> {
+                String[] latest = changed.remove(row[0]);
+                if (latest != null) {
+                    writeRow(writer, latest);
+                } else if (!deleted.contains(row[0])) {
+                    writeRow(writer, row);
+                }
+            });
+            // Rows added after the base
+            for (String[] row : changed.values()) {
+                writeRow(writer, row);
+            }
+        }
+    }
+    
+    private static void writeRow(CSVChannelWriter writer, String[] row) {
+        try {
+            for (String field : row) {
+                writer.field(field);
+            }
+            writer.endRecord();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static List<String> deletedKeys(Path delta, String kind) throws IOException {
+        Path file = delta.resolve(DELETED);
+        List<String> keys = new ArrayList<>();
+        if (Files.exists(file)) {
+            readRows(file, row -> {
+                if (row.length == 2 && row[0].equals(kind)) {
+                    keys.add(row[1]);
+                }
+            });
+        }
+        return keys;
+    }
+    
+    private static String readHeader(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String header = reader.readLine();
+            return header != null ? header : "";
+        }
+    }
+    
+    // Records after the header; each array is the consumer's to keep
+    private static void readRows(Path file, Consumer<String[]> consumer) throws IOException {
+        boolean[] header = {true};
+        CSVTokenizer tokenizer = new CSVTokenizer(CSVTokenizer.records(record -> {
+            if (header[0]) {
+                header[0] = false;
+            } else {
+                consumer.accept(record);
+            }
+        }));
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            tokenizer.parse(reader);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Versioned binary export format, a compact alternative to the CSV files.
+ *
+ * A file holds one kind of entity: a header (magic, format version and entity kind), one
+ * record per entity introduced by a marker byte, and an end marker followed by the record
+ * count, so a truncated file is detected. Within a record:
+ * - IDs and numbers are unsigned LEB128 varints
+ * - strings are length-prefixed UTF-8: varint 0 is null, n + 1 is followed by n bytes
+ * - instructors, departments and enrollment course codes are dictionary-encoded: varint 0
+ *   is null, 1 introduces a new string that takes the next slot, n >= 2 repeats slot n - 2
+ * - timestamps are UTC epoch milliseconds as zigzag varints, plus one so that 0 is null
+ * - enums are one byte, the ordinal plus one where null is allowed
+ */
+final class BinaryFormat {
+    static final byte STUDENTS = 1;
+    static final byte COURSES = 2;
+    static final byte ENROLLMENTS = 3;
+    
+    private static final byte[] MAGIC = {'C', 'C', 'R', 'M', 'B', 'I', 'N', 1}; // Last byte is the version
+    private static final int RECORD = 1;
+    private static final int END = 0;
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private static final StudentStatus[] STUDENT_STATUSES = StudentStatus.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+    private static final EnrollmentStatus[] ENROLLMENT_STATUSES = EnrollmentStatus.values();
+    
+    private BinaryFormat() {}
+    
+    private static String kindName(byte kind) {
+        return switch (kind) {
+            case STUDENTS -> "students";
+            case COURSES -> "courses";
+            case ENROLLMENTS -> "enrollments";
+            default -> "kind " + kind;
+        };
+    }
+    
+    /**
+     * Buffered record writer for one file
+     */
+    static final class Writer implements Closeable {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private long records;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        
+        Writer(Path file, byte kind) throws IOException {
+            this.out = Files.newOutputStream(file);
+            System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+            buffer[MAGIC.length] = kind;
+            position = MAGIC.length + 1;
+        }
+        
+        void writeStudent(Student student) throws IOException {
+            startRecord();
+            writeVarLong(student.getId());
+            writeString(student.getRegNo());
+            writeString(student.getFullName());
+            writeString(student.getEmail());
+            writeByte(student.getStatus().ordinal());
+            writeTime(student.getEnrollmentDate());
+            writeTime(student.getCreatedAt());
+        }
+        
+        void writeCourse(Course course) throws IOException {
+            startRecord();
+            writeString(course.getCode());
+            writeString(course.getTitle());
+            writeByte(course.getCredits());
+            writeDictionary(course.getInstructor());
+            writeByte(course.getSemester().ordinal());
+            writeDictionary(course.getDepartment());
+            writeVarLong(course.getCapacity());
+            writeByte(course.isActive() ? 1 : 0);
+            writeTime(course.getCreatedAt());
+        }
+        
+        void writeEnrollment(Enrollment enrollment) throws IOException {
+            startRecord();
+            writeVarLong(enrollment.getId());
+            writeVarLong(enrollment.getStudent().getId());
+            writeDictionary(enrollment.getCourse().getCode());
+            writeByte(enrollment.hasGrade() ? enrollment.getGrade().ordinal() + 1 : 0);
+            writeByte(enrollment.getStatus().ordinal());
+            writeTime(enrollment.getEnrollmentDate());
+            writeTime(enrollment.getGradeDate());
+        }
+        
+        private void startRecord() throws IOException {
+            writeByte(RECORD);
+            records++;
+        }
+        
+        private void writeByte(int value) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) value;
+        }
+        
+        private void writeVarLong(long value) throws IOException {
+            if (buffer.length - position < 10) {
+                flushBuffer();
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+        
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            int length = value.length();
+            if (buffer.length - position >= length + 10 && isAscii(value)) {
+                // Common case: one byte per char, encoded straight into the buffer
+                writeVarLong(length + 1);
+                for (int i = 0; i < length; i++) {
+                    buffer[position++] = (byte) value.charAt(i);
+                }
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+        
+        private void writeDictionary(String value) throws IOException {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer slot = dictionary.get(value);
+            if (slot != null) {
+                writeVarLong(slot + 2L);
+                return;
+            }
+            dictionary.put(value, dictionary.size());
+            writeVarLong(1);
+            writeString(value);
+        }
+        
+        private void writeTime(LocalDateTime time) throws IOException {
+            if (time == null) {
+                writeVarLong(0);
+                return;
+            }
+            long millis = time.toInstant(ZoneOffset.UTC).toEpochMilli();
+            writeVarLong(((millis << 1) ^ (millis >> 63)) + 1);
+        }
+        
+        private void writeBytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flushBuffer();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+        
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        
+        /**
+         * Write the end marker and record count; a file closed without it reads as truncated
+         */
+        void finish() throws IOException {
+            writeByte(END);
+            writeVarLong(records);
+            flushBuffer();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+    
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Buffered record reader for one file. Each read method consumes a whole record
+     * before building the entity, so a record that fails validation can be skipped.
+     */
+    static final class Reader implements Closeable {
+        private final Path file;
+        private final InputStream in;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private long records;
+        private final List<String> dictionary = new ArrayList<>();
+        
+        Reader(Path file, byte kind) throws IOException {
+            this.file = file;
+            this.in = Files.newInputStream(file);
+            try {
+                require(MAGIC.length + 1);
+                if (!Arrays.equals(Arrays.copyOf(buffer, MAGIC.length), MAGIC)) {
+                    throw new IOException("Not a CCRM binary export, or an unsupported version: " + file);
+                }
+                byte found = buffer[MAGIC.length];
+                if (found != kind) {
+                    throw new IOException("Expected " + kindName(kind) + " but " + file + " holds " + kindName(found));
+                }
+                position = MAGIC.length + 1;
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+        
+        /**
+         * Advance to the next record
+         * @return false at the end of the file
+         */
+        boolean next() throws IOException {
+            int marker = readByte();
+            if (marker == RECORD) {
+                records++;
+                return true;
+            }
+            if (marker != END) {
+                throw corrupt("unexpected record marker " + marker);
+            }
+            long count = readVarLong();
+            if (count != records) {
+                throw corrupt("expected " + count + " records but found " + records);
+            }
+            return false;
+        }
+        
+        /**
+         * Position of the current record, counting from 1, for error reporting
+         */
+        long getRecordNumber() {
+            return records;
+        }
+        
+        /**
+         * @return a student carrying its exported ID
+         */
+        Student readStudent() throws IOException {
+            long id = readVarLong();
+            String regNo = readString();
+            String fullName = readString();
+            String email = readString();
+            StudentStatus status = readEnum(STUDENT_STATUSES);
+            readTime(); // Enrollment and creation dates are not restored, as with CSV
+            readTime();
+            
+            Student student = new Student.Builder()
+                .regNo(regNo)
+                .fullName(fullName)
+                .email(email)
+                .status(status)
+                .build();
+            return Person.restoreId(student, id);
+        }
+        
+        Course readCourse() throws IOException {
+            String code = readString();
+            String title = readString();
+            int credits = readByte();
+            String instructor = readDictionary();
+            Semester semester = readEnum(SEMESTERS);
+            String department = readDictionary();
+            long capacity = readVarLong();
+            boolean active = readByte() != 0;
+            readTime(); // Creation date is not restored, as with CSV
+            
+            Course course = new Course.Builder()
+                .code(code)
+                .title(title)
+                .credits(credits)
+                .instructor(instructor)
+                .semester(semester)
+                .department(department)
+                .capacity((int) Math.min(capacity, Integer.MAX_VALUE))
+                .build();
+            if (!active) {
+                course.setActive(false);
+            }
+            return course;
+        }
+        
+        /**
+         * Read an enrollment and attach it to its student and course
+         * @throws IllegalArgumentException if either cannot be found; the record is consumed either way
+         */
+        Enrollment readEnrollment(Function<Long, Optional<Student>> students,
+                                  Function<String, Optional<Course>> courses) throws IOException {
+            long id = readVarLong();
+            long studentId = readVarLong();
+            String courseCode = readDictionary();
+            int grade = readByte();
+            EnrollmentStatus status = readEnum(ENROLLMENT_STATUSES);
+            LocalDateTime enrollmentDate = readTime();
+            LocalDateTime gradeDate = readTime();
+            if (grade > GRADES.length) {
+                throw corrupt("grade " + grade);
+            }
+            
+            Student student = students.apply(studentId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown student ID: " + studentId));
+            Course course = courses.apply(courseCode)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown course code: " + courseCode));
+            return Enrollment.restore(id, student, course, grade > 0 ? GRADES[grade - 1] : null,
+                status, enrollmentDate, gradeDate);
+        }
+        
+        private <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+            int ordinal = readByte();
+            if (ordinal >= values.length) {
+                throw corrupt("invalid " + values[0].getDeclaringClass().getSimpleName() + " " + ordinal);
+            }
+            return values[ordinal];
+        }
+        
+        private int readByte() throws IOException {
+            if (position == limit) {
+                require(1);
+            }
+            return buffer[position++] & 0xFF;
+        }
+        
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw corrupt("varint too long");
+        }
+        
+        private String readString() throws IOException {
+            long prefix = readVarLong();
+            if (prefix == 0) {
+                return null;
+            }
+            if (prefix - 1 > Integer.MAX_VALUE - 8) {
+                throw corrupt("string length " + (prefix - 1));
+            }
+            int length = (int) (prefix - 1);
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        
+        private String readDictionary() throws IOException {
+            long slot = readVarLong();
+            if (slot == 0) {
+                return null;
+            }
+            if (slot == 1) {
+                String value = readString();
+                dictionary.add(value);
+                return value;
+            }
+            if (slot - 2 >= dictionary.size()) {
+                throw corrupt("dictionary slot " + (slot - 2));
+            }
+            return dictionary.get((int) (slot - 2));
+        }
+        
+        private LocalDateTime readTime() throws IOException {
+            long value = readVarLong();
+            if (value == 0) {
+                return null;
+            }
+            long zigzag = value - 1;
+            long millis = (zigzag >>> 1) ^ -(zigzag & 1);
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        }
+        
+        // Make at least n unread bytes available in the buffer
+        private void require(int n) throws IOException {
+            if (limit - position >= n) {
+                return;
+            }
+            if (n > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(n, buffer.length * 2));
+            }
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            while (limit < n) {
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    throw corrupt("file is truncated");
+                }
+                limit += read;
+            }
+        }
+        
+        private IOException corrupt(String detail) {
+            return new IOException("Corrupt binary export " + file + " at record " + records + ": " + detail);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CSV writer that encodes fields into a small heap array and moves them in bulk into a
+ * large direct buffer, which is drained to a FileChannel, so there is no per-line String
+ * or Writer in between. The output is byte-for-byte what the BufferedWriter exports
+ * produce: UTF-8, the platform line separator, fields quoted only when they contain a
+ * comma, quote or line break, and dates as yyyy-MM-dd HH:mm:ss. Null fields are written
+ * empty.
+ *
+ * Not thread-safe: use one writer per file.
+ */
+final class CSVChannelWriter implements Closeable {
+    static final int DEFAULT_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int STAGING_SIZE = 64 * 1024;
+    
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    // Encoding target; bulk copies into the direct buffer beat single-byte puts
+    private final byte[] staging = new byte[STAGING_SIZE];
+    private int position;
+    private boolean recordStarted;
+    private long records;
+    
+    CSVChannelWriter(Path file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+    
+    CSVChannelWriter(Path file, int bufferSize) throws IOException {
+        if (bufferSize < STAGING_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + STAGING_SIZE + " bytes");
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+    
+    /**
+     * Write a header line as is; it is not counted as a record
+     */
+    void header(String line) throws IOException {
+        putText(line);
+        putLineSeparator();
+    }
+    
+    CSVChannelWriter field(String value) throws IOException {
+        startField();
+        if (value == null) {
+            return this;
+        }
+        if (needsQuotes(value)) {
+            value = '"' + value.replace("\"", "\"\"") + '"';
+        }
+        putText(value);
+        return this;
+    }
+    
+    CSVChannelWriter field(long value) throws IOException {
+        startField();
+        if (value == Long.MIN_VALUE) {
+            putText(Long.toString(value));
+            return this;
+        }
+        ensure(20);
+        if (value < 0) {
+            staging[position++] = '-';
+            value = -value;
+        }
+        int end = position + digitCount(value);
+        for (int i = end - 1; i >= position; i--) {
+            staging[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+        return this;
+    }
+    
+    CSVChannelWriter field(LocalDateTime time) throws IOException {
+        startField();
+        if (time == null) {
+            return this;
+        }
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            // The formatter signs years outside four digits; leave those rare cases to it
+            putText(DATE_FORMATTER.format(time));
+            return this;
+        }
+        ensure(19);
+        byte[] out = staging;
+        int at = position;
+        out[at] = (byte) ('0' + year / 1000);
+        out[at + 1] = (byte) ('0' + year / 100 % 10);
+        out[at + 2] = (byte) ('0' + year / 10 % 10);
+        out[at + 3] = (byte) ('0' + year % 10);
+        out[at + 4] = '-';
+        putTwoDigits(at + 5, time.getMonthValue());
+        out[at + 7] = '-';
+        putTwoDigits(at + 8, time.getDayOfMonth());
+        out[at + 10] = ' ';
+        putTwoDigits(at + 11, time.getHour());
+        out[at + 13] = ':';
+        putTwoDigits(at + 14, time.getMinute());
+        out[at + 16] = ':';
+        putTwoDigits(at + 17, time.getSecond());
+        position = at + 19;
+        return this;
+    }
+    
+    void endRecord() throws IOException {
+        putLineSeparator();
+        recordStarted = false;
+        records++;
+    }
+    
+    long getRecords() {
+        return records;
+    }
+    
+    private void startField() throws IOException {
+        if (recordStarted) {
+            ensure(1);
+            staging[position++] = ',';
+        }
+        recordStarted = true;
+    }
+    
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int digitCount(long value) {
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+    
+    private void putTwoDigits(int at, int value) {
+        staging[at] = (byte) ('0' + value / 10);
+        staging[at + 1] = (byte) ('0' + value % 10);
+    }
+    
+    private void putText(String text) throws IOException {
+        int length = text.length();
+        if (length <= STAGING_SIZE) {
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    // Rest of the text needs real UTF-8 encoding
+                    putBytes(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                staging[position++] = (byte) c;
+            }
+            return;
+        }
+        putBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private void putBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == STAGING_SIZE) {
+                drainStaging();
+            }
+            int chunk = Math.min(bytes.length - offset, STAGING_SIZE - position);
+            System.arraycopy(bytes, offset, staging, position, chunk);
+            position += chunk;
+            offset += chunk;
+        }
+    }
+    
+    private void putLineSeparator() throws IOException {
+        ensure(LINE_SEPARATOR.length);
+        for (byte b : LINE_SEPARATOR) {
+            staging[position++] = b;
+        }
+    }
+    
+    private void ensure(int bytes) throws IOException {
+        if (STAGING_SIZE - position < bytes) {
+            drainStaging();
+        }
+    }
+    
+    private void drainStaging() throws IOException {
+        if (buffer.remaining() < position) {
+            flush();
+        }
+        buffer.put(staging, 0, position);
+        position = 0;
+    }
+    
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            drainStaging();
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Streaming RFC 4180 CSV tokenizer.
+ * Input is fed in arbitrary char windows and the tokenizer keeps its state between them,
+ * so quoted fields may span windows and contain delimiters, doubled quotes and line breaks.
+ * Fields are emitted through a {@link FieldHandler} from a single reused buffer; nothing is
+ * allocated per field unless the handler copies it.
+ *
+ * Not thread-safe: use one tokenizer per input stream.
+ */
+public final class CSVTokenizer {
+    private static final int WINDOW_SIZE = 8192;
+    
+    /**
+     * Receives tokens as they are recognised
+     */
+    public interface FieldHandler {
+        /**
+         * Called once per field. The chars are only valid for the duration of the call.
+         */
+        void field(char[] chars, int offset, int length);
+        
+        /**
+         * Called after the last field of each non-blank record
+         */
+        void endRecord();
+    }
+    
+    private enum State {
+        FIELD_START,        // Before the first char of a field
+        UNQUOTED,           // Inside a plain field
+        QUOTED,             // Inside a quoted field
+        QUOTE_IN_QUOTED,    // Saw a quote inside a quoted field: doubled quote or closing quote
+        AFTER_CR            // Saw CR; swallow a following LF
+    }
+    
+    private final FieldHandler handler;
+    private final char delimiter;
+    private final char quote;
+    
+    private State state = State.FIELD_START;
+    private char[] field = new char[128];
+    private int fieldLength;
+    private boolean recordStarted;
+    private char[] window;
+    
+    private long line = 1;          // Physical line the tokenizer is on
+    private long recordLine = 1;    // Physical line the current record started on
+    private long recordCount;
+    
+    public CSVTokenizer(FieldHandler handler) {
+        this(handler, ',', '"');
+    }
+    
+    public CSVTokenizer(FieldHandler handler, char delimiter, char quote) {
+        if (delimiter == quote || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+        }
+        this.handler = Objects.requireNonNull(handler, "Field handler cannot be null");
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+    
+    /**
+     * Tokenize a window of chars. Records that end inside the window are emitted immediately;
+     * a trailing partial record is kept until the next call or {@link #finish()}.
+     */
+    public void feed(char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        int i = offset;
+        int end = offset + length;
+        
+        while (i < end) {
+            char ch = chars[i];
+            switch (state) {
+                case FIELD_START:
+                    if (ch == quote) {
+                        recordStarted = true;
+                        state = State.QUOTED;
+                        i++;
+                    } else {
+                        state = State.UNQUOTED;
+                    }
+                    break;
+                
+                case UNQUOTED: {
+                    // Copy the whole run of plain chars in one go
+                    int start = i;
+                    while (i < end && (ch = chars[i]) != delimiter && ch != '\n' && ch != '\r') {
+                        i++;
+                    }
+                    if (i > start) {
+                        recordStarted = true;
+                        append(chars, start, i - start);
+                    }
+                    if (i < end) {
+                        i++;
+                        if (ch == delimiter) {
+                            recordStarted = true;
+                            endField();
+                        } else {
+                            endLine(ch);
+                        }
+                    }
+                    break;
+                }
+                
+                case QUOTED: {
+                    int start = i;
+                    while (i < end && (ch = chars[i]) != quote) {
+                        if (ch == '\n') {
+                            line++;
+                        }
+                        i++;
+                    }
+                    append(chars, start, i - start);
+                    if (i < end) {
+                        state = State.QUOTE_IN_QUOTED;
+                        i++;
+                    }
+                    break;
+                }
+                
+                case QUOTE_IN_QUOTED:
+                    if (ch == quote) {
+                        append(quote); // "" is an escaped quote
+                        state = State.QUOTED;
+                        i++;
+                    } else {
+                        // Closing quote. Anything before the next delimiter is kept as-is
+                        state = State.UNQUOTED;
+                    }
+                    break;
+                
+                case AFTER_CR:
+                    if (ch == '\n') {
+                        i++;
+                    }
+                    state = State.FIELD_START;
+                    break;
+            }
+        }
+    }
+    
+    public void feed(CharBuffer buffer) {
+        if (buffer.hasArray()) {
+            feed(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        
+        char[] chunk = window();
+        while (buffer.hasRemaining()) {
+            int n = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, n);
+            feed(chunk, 0, n);
+        }
+    }
+    
+    public void feed(String text) {
+        if (window == null && text.length() <= WINDOW_SIZE) {
+            // One-off short input: don't allocate a full window for it
+            char[] chars = text.toCharArray();
+            feed(chars, 0, chars.length);
+            return;
+        }
+        
+        char[] chunk = window();
+        for (int start = 0; start < text.length(); start += chunk.length) {
+            int n = Math.min(chunk.length, text.length() - start);
+            text.getChars(start, start + n, chunk, 0);
+            feed(chunk, 0, n);
+        }
+    }
+    
+    /**
+     * Emit the final record if the input did not end with a line break.
+     * An unterminated quoted field is emitted with whatever it contained.
+     */
+    public void finish() {
+        if (state != State.AFTER_CR) {
+            endRecord();
+        }
+        state = State.FIELD_START;
+    }
+    
+    /**
+     * Tokenize everything from a reader, then {@link #finish()}
+     */
+    public void parse(Reader reader) throws IOException {
+        char[] chunk = window();
+        int n;
+        while ((n = reader.read(chunk, 0, chunk.length)) != -1) {
+            feed(chunk, 0, n);
+        }
+        finish();
+    }
+    
+    /**
+     * Physical line (1-based) on which the record currently being emitted started.
+     * Valid inside {@link FieldHandler} callbacks.
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+    
+    public long getRecordCount() {
+        return recordCount;
+    }
+    
+    private void endLine(char ch) {
+        endRecord();
+        line++;
+        recordLine = line;
+        state = ch == '\r' ? State.AFTER_CR : State.FIELD_START;
+    }
+    
+    private void endField() {
+        handler.field(field, 0, fieldLength);
+        fieldLength = 0;
+        state = State.FIELD_START;
+    }
+    
+    private void endRecord() {
+        // A line with no chars at all is skipped, but "" or "," are real records
+        if (recordStarted) {
+            endField();
+            recordCount++;
+            handler.endRecord();
+        }
+        fieldLength = 0;
+        recordStarted = false;
+    }
+    
+    private void append(char[] chars, int offset, int length) {
+        ensureCapacity(fieldLength + length);
+        System.arraycopy(chars, offset, field, fieldLength, length);
+        fieldLength += length;
+    }
+    
+    private void append(char ch) {
+        ensureCapacity(fieldLength + 1);
+        field[fieldLength++] = ch;
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required > field.length) {
+            char[] grown = new char[Math.max(required, field.length * 2)];
+            System.arraycopy(field, 0, grown, 0, fieldLength);
+            field = grown;
+        }
+    }
+    
+    private char[] window() {
+        if (window == null) {
+            window = new char[WINDOW_SIZE];
+        }
+        return window;
+    }
+    
+    /**
+     * Handler that materialises each record as a String[] and passes it on.
+     * The field list is reused between records.
+     */
+    public static FieldHandler records(Consumer<String[]> consumer) {
+        Objects.requireNonNull(consumer, "Record consumer cannot be null");
+        return new FieldHandler() {
+            private final List<String> fields = new ArrayList<>();
+            
+            @Override
+            public void field(char[] chars, int offset, int length) {
+                fields.add(length == 0 ? "" : new String(chars, offset, length));
+            }
+            
+            @Override
+            public void endRecord() {
+                String[] record = fields.toArray(new String[0]);
+                fields.clear();
+                consumer.accept(record);
+            }
+        };
+    }
+}
@@ -0,0 +1,205 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Collects the keys of students, courses and enrollments changed through the services,
+ * so an incremental backup writes only those instead of the full dataset.
+ *
+ * Only keys are kept; a backup reads each entity's current state when it is written,
+ * so repeated changes to one entity cost one row. Tracking lives in memory and starts
+ * when the tracker is attached, which is why the first backup after startup is full.
+ */
+public class ChangeTracker {
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    
+    // Held shared while recording and exclusively while drain swaps in a fresh change set
+    private final ReentrantReadWriteLock drainLock = new ReentrantReadWriteLock();
+    private ChangeSet current = new ChangeSet(); // Guarded by drainLock
+    
+    private ChangeTracker(StudentService studentService, CourseService courseService,
+                          EnrollmentService enrollmentService) {
+        this.studentService = Objects.requireNonNull(studentService);
+        this.courseService = Objects.requireNonNull(courseService);
+        this.enrollmentService = Objects.requireNonNull(enrollmentService);
+    }
+    
+    /**
+     * Track every change made through the services from now on
+     */
+    public static ChangeTracker attach(StudentService studentService, CourseService courseService,
+                                       EnrollmentService enrollmentService) {
+        ChangeTracker tracker = new ChangeTracker(studentService, courseService, enrollmentService);
+        studentService.addStudentListener(new PersistenceListener<Student, Long>() {
+            @Override
+            public void saved(Student student) {
+                tracker.record(changes -> changes.students.add(student.getId()));
+            }
+            
+            @Override
+            public void updated(Student student) {
+                tracker.record(changes -> changes.students.add(student.getId()));
+            }
+            
+            @Override
+            public void deleted(Long id) {
+                tracker.record(changes -> {
+                    changes.students.remove(id);
+                    changes.deletedStudents.add(id);
+                });
+            }
+        });
+        courseService.addCourseListener(new PersistenceListener<Course, String>() {
+            @Override
+            public void saved(Course course) {
+                tracker.record(changes -> changes.courses.add(course.getCode()));
+            }
+            
+            @Override
+            public void updated(Course course) {
+                tracker.record(changes -> changes.courses.add(course.getCode()));
+            }
+            
+            @Override
+            public void deleted(String code) {
+                tracker.record(changes -> {
+                    changes.courses.remove(code);
+                    changes.deletedCourses.add(code);
+                });
+            }
+        });
+        enrollmentService.addEnrollmentListener(new EnrollmentListener() {
+            @Override
+            public void enrolled(Enrollment enrollment) {
+                tracker.record(changes -> changes.enrollments.add(new EnrollmentKey(enrollment)));
+            }
+            
+            @Override
+            public void unenrolled(Enrollment enrollment) {
+                tracker.record(changes -> changes.deletedEnrollments.add(enrollment.getId()));
+            }
+            
+            @Override
+            public void updated(Enrollment enrollment, Grade previousGrade, EnrollmentStatus previousStatus) {
+                tracker.record(changes -> changes.enrollments.add(new EnrollmentKey(enrollment)));
+            }
+        });
+        return tracker;
+    }
+    
+    private void record(Consumer<ChangeSet> change) {
+        drainLock.readLock().lock();
+        try {
+            change.accept(current);
+        } finally {
+            drainLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Take the changes recorded so far and start a new set. A change made while the
+     * caller writes them lands in the next set as well, which is harmless.
+     */
+    ChangeSet drain() {
+        drainLock.writeLock().lock();
+        try {
+            ChangeSet drained = current;
+            current = new ChangeSet();
+            return drained;
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Put back changes that could not be backed up, so the next backup includes them
+     */
+    void requeue(ChangeSet changes) {
+        record(target -> {
+            // A key deleted since the drain stays deleted
+            changes.students.removeIf(target.deletedStudents::contains);
+            changes.courses.removeIf(target.deletedCourses::contains);
+            target.students.addAll(changes.students);
+            target.courses.addAll(changes.courses);
+            target.enrollments.addAll(changes.enrollments);
+            target.deletedStudents.addAll(changes.deletedStudents);
+            target.deletedCourses.addAll(changes.deletedCourses);
+            target.deletedEnrollments.addAll(changes.deletedEnrollments);
+        });
+    }
+    
+    // Current state of the changed entities; ones deleted since the drain are left out
+    List<Student> changedStudents(ChangeSet changes) {
+        List<Student> students = new ArrayList<>(changes.students.size());
+        for (Long id : changes.students) {
+            studentService.findById(id).ifPresent(students::add);
+        }
+        return students;
+    }
+    
+    List<Course> changedCourses(ChangeSet changes) {
+        List<Course> courses = new ArrayList<>(changes.courses.size());
+        for (String code : changes.courses) {
+            courseService.findById(code).ifPresent(courses::add);
+        }
+        return courses;
+    }
+    
+    List<Enrollment> changedEnrollments(ChangeSet changes) {
+        List<Enrollment> enrollments = new ArrayList<>(changes.enrollments.size());
+        for (EnrollmentKey key : changes.enrollments) {
+            enrollmentService.findEnrollment(key.studentId, key.courseCode).ifPresent(enrollments::add);
+        }
+        return enrollments;
+    }
+    
+    /**
+     * Keys changed between two drains. Within one set, deletions apply before changes,
+     * so a course deleted and added again under the same code ends up present.
+     */
+    static final class ChangeSet {
+        final Set<Long> students = ConcurrentHashMap.newKeySet();
+        final Set<String> courses = ConcurrentHashMap.newKeySet();
+        final Set<EnrollmentKey> enrollments = ConcurrentHashMap.newKeySet();
+        final Set<Long> deletedStudents = ConcurrentHashMap.newKeySet();
+        final Set<String> deletedCourses = ConcurrentHashMap.newKeySet();
+        final Set<Long> deletedEnrollments = ConcurrentHashMap.newKeySet(); // By enrollment ID
+        
+        int size() {
+            return students.size() + courses.size() + enrollments.size()
+                + deletedStudents.size() + deletedCourses.size() + deletedEnrollments.size();
+        }
+    }
+    
+    // Enrollments are looked up by student and course; re-enrolling gives a new ID
+    private static final class EnrollmentKey {
+        final Long studentId;
+        final String courseCode;
+        
+        EnrollmentKey(Enrollment enrollment) {
+            this.studentId = enrollment.getStudent().getId();
+            this.courseCode = enrollment.getCourse().getCode();
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof EnrollmentKey)) return false;
+            EnrollmentKey other = (EnrollmentKey) obj;
+            return studentId.equals(other.studentId) && courseCode.equals(other.courseCode);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * studentId.hashCode() + courseCode.hashCode();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Binary encoding of students, courses and enrollments for the write-ahead log and snapshots.
+ * Fields are written in a fixed order; strings may be null, enums are stored by ordinal
+ * and timestamps as UTC epoch microseconds. An enrollment refers to its student by ID and
+ * to its course by code (or, within a snapshot, by position in the course table), and is
+ * resolved against the live entities when read.
+ */
+public final class EntityCodec {
+    private static final long NO_TIME = Long.MIN_VALUE;
+    
+    private static final StudentStatus[] STUDENT_STATUSES = StudentStatus.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+    private static final EnrollmentStatus[] ENROLLMENT_STATUSES = EnrollmentStatus.values();
+    
+    private EntityCodec() {}
+    
+    public static void writeStudent(DataOutput out, Student student) throws IOException {
+        out.writeLong(student.getId());
+        writeString(out, student.getRegNo());
+        writeString(out, student.getFullName());
+        writeString(out, student.getEmail());
+        out.writeByte(student.getStatus().ordinal());
+    }
+    
+    /**
+     * @return a new student carrying its recorded ID
+     */
+    public static Student readStudent(DataInput in) throws IOException {
+        long id = in.readLong();
+        Student student = new Student.Builder()
+            .regNo(readString(in))
+            .fullName(readString(in))
+            .email(readString(in))
+            .status(STUDENT_STATUSES[in.readByte()])
+            .build();
+        return Person.restoreId(student, id);
+    }
+    
+    public static void writeCourse(DataOutput out, Course course) throws IOException {
+        writeString(out, course.getCode());
+        writeString(out, course.getTitle());
+        out.writeByte(course.getCredits());
+        writeString(out, course.getInstructor());
+        out.writeByte(course.getSemester().ordinal());
+        writeString(out, course.getDepartment());
+        out.writeInt(course.getCapacity());
+        out.writeBoolean(course.isActive());
+    }
+    
+    public static Course readCourse(DataInput in) throws IOException {
+        Course course = new Course.Builder()
+            .code(readString(in))
+            .title(readString(in))
+            .credits(in.readByte())
+            .instructor(readString(in))
+            .semester(SEMESTERS[in.readByte()])
+            .department(readString(in))
+            .capacity(in.readInt())
+            .build();
+        if (!in.readBoolean()) {
+            course.setActive(false);
+        }
+        return course;
+    }
+    
+    public static void writeEnrollment(DataOutput out, Enrollment enrollment) throws IOException {
+        out.writeLong(enrollment.getId());
+        out.writeLong(enrollment.getStudent().getId());
+        writeString(out, enrollment.getCourse().getCode());
+        writeEnrollmentState(out, enrollment);
+    }
+    
+    /**
+     * Write an enrollment whose course is given as an index into a course table
+     */
+    public static void writeIndexedEnrollment(DataOutput out, Enrollment enrollment, int courseIndex) throws IOException {
+        out.writeLong(enrollment.getId());
+        out.writeLong(enrollment.getStudent().getId());
+        out.writeInt(courseIndex);
+        writeEnrollmentState(out, enrollment);
+    }
+    
+    private static void writeEnrollmentState(DataOutput out, Enrollment enrollment) throws IOException {
+        out.writeByte(enrollment.hasGrade() ? enrollment.getGrade().ordinal() : -1);
+        out.writeByte(enrollment.getStatus().ordinal());
+        out.writeLong(toEpochMicros(enrollment.getEnrollmentDate()));
+        out.writeLong(toEpochMicros(enrollment.getGradeDate()));
+    }
+    
+    /**
+     * Read an enrollment and attach it to its student and course
+     * @return empty if either no longer exists; the record is consumed either way
+     */
+    public static Optional<Enrollment> readEnrollment(DataInput in, Function<Long, Optional<Student>> students,
+                                                      Function<String, Optional<Course>> courses) throws IOException {
+        long id = in.readLong();
+        long studentId = in.readLong();
+        String courseCode = readString(in);
+        return readEnrollmentState(in, id, students.apply(studentId), courses.apply(courseCode));
+    }
+    
+    /**
+     * Read an enrollment written with a course index
+     * @param courses maps an index to its course, or to null if the course is gone
+     */
+    public static Optional<Enrollment> readIndexedEnrollment(DataInput in, Function<Long, Optional<Student>> students,
+                                                             IntFunction<Course> courses) throws IOException {
+        long id = in.readLong();
+        long studentId = in.readLong();
+        int courseIndex = in.readInt();
+        return readEnrollmentState(in, id, students.apply(studentId), Optional.ofNullable(courses.apply(courseIndex)));
+    }
+    
+    private static Optional<Enrollment> readEnrollmentState(DataInput in, long id, Optional<Student> student,
+                                                            Optional<Course> course) throws IOException {
+        byte grade = in.readByte();
+        EnrollmentStatus status = ENROLLMENT_STATUSES[in.readByte()];
+        LocalDateTime enrollmentDate = fromEpochMicros(in.readLong());
+        LocalDateTime gradeDate = fromEpochMicros(in.readLong());
+        
+        if (student.isEmpty() || course.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(Enrollment.restore(id, student.get(), course.get(),
+            grade >= 0 ? GRADES[grade] : null, status, enrollmentDate, gradeDate));
+    }
+    
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    public static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    static long toEpochMicros(LocalDateTime time) {
+        return time != null ? time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000 : NO_TIME;
+    }
+    
+    static LocalDateTime fromEpochMicros(long micros) {
+        return micros != NO_TIME
+            ? LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC)
+            : null;
+    }
+}
@@ -0,0 +1,35 @@
+package edu.ccrm.io;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * One rejected record of an import: where it was, why it failed and an error code.
+ * When the sink throws a CCRMException its error code is used.
+ */
+public final class ImportError {
+    public static final String PARSE_ERROR = "PARSE_ERROR";  // Record could not be parsed
+    public static final String REJECTED = "REJECTED";        // Sink refused the record with an unchecked exception
+    
+    private final Path source;
+    private final long line;
+    private final String errorCode;
+    private final String message;
+    
+    public ImportError(Path source, long line, String errorCode, String message) {
+        this.source = source;
+        this.line = line;
+        this.errorCode = Objects.requireNonNull(errorCode, "Error code cannot be null");
+        this.message = message;
+    }
+    
+    public Path getSource() { return source; }
+    public long getLine() { return line; }
+    public String getErrorCode() { return errorCode; }
+    public String getMessage() { return message; }
+    
+    @Override
+    public String toString() {
+        return String.format("%s:%d [%s] %s", source != null ? source.getFileName() : "<input>", line, errorCode, message);
+    }
+}
@@ -0,0 +1,27 @@
+package edu.ccrm.io;
+
+/**
+ * Summary of a streaming import. Individual failures go to the error channel,
+ * so only counts are kept here.
+ */
+public final class ImportResult {
+    private final long imported;
+    private final long failed;
+    
+    public ImportResult(long imported, long failed) {
+        this.imported = imported;
+        this.failed = failed;
+    }
+    
+    public long getImported() { return imported; }
+    public long getFailed() { return failed; }
+    
+    public long getProcessed() {
+        return imported + failed;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ImportResult{imported=%d, failed=%d}", imported, failed);
+    }
+}
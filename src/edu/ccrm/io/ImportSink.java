@@ -0,0 +1,12 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exception.CCRMException;
+
+/**
+ * Destination for records produced by a streaming import, e.g. {@code studentService::addStudent}.
+ * A rejected record is reported on the import's error channel and the import carries on.
+ */
+@FunctionalInterface
+public interface ImportSink<T> {
+    void accept(T item) throws CCRMException;
+}
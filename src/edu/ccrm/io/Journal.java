@@ -0,0 +1,457 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Makes the services durable through a write-ahead log. Every save, update and delete
+ * of a student or course and every enrollment change is appended as it happens, and
+ * the log is replayed into the services when the journal is opened.
+ *
+ * Each change waits for its group commit before the service call returns, so a change
+ * the caller has seen survives a crash. Wrap bulk work in runBatch to wait once at the
+ * end instead of once per change. ConcurrentEnrollmentServiceImpl notifies with the
+ * student's stripe held, so that stripe waits too, while other stripes carry on and
+ * join the same batch.
+ *
+ * Replay restores records as they were logged (see EnrollmentService.restoreEnrollment);
+ * enrollments whose student or course has since been deleted are skipped.
+ *
+ * A checkpoint keeps startup bounded: it retires the current log file, captures every
+ * entity into a snapshot next to the log, writes that in the background, and deletes
+ * the retired log once the snapshot is on disk. Opening then loads the snapshot and
+ * replays only what was logged after it. The services are paused during the capture
+ * (see Pausable), so the snapshot holds every change logged before the rotation and no
+ * change half-made. A change stored before the pause but logged after it, or an entity
+ * object a caller modified directly ahead of its update call, is in both and applied
+ * twice, which is harmless as each record carries the full state.
+ */
+public class Journal implements Closeable {
+    static final byte STUDENT_SAVED = 1;
+    static final byte STUDENT_UPDATED = 2;
+    static final byte STUDENT_DELETED = 3;
+    static final byte COURSE_SAVED = 4;
+    static final byte COURSE_UPDATED = 5;
+    static final byte COURSE_DELETED = 6;
+    static final byte ENROLLMENT_PUT = 7; // Full state after enrolling, grading or withdrawal
+    static final byte ENROLLMENT_REMOVED = 8;
+    
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final Path file;
+    private final Path snapshotFile;
+    private final WriteAheadLog log;
+    private int replayedRecords;
+    private int skippedRecords;
+    private int snapshotEntities;
+    
+    // Held shared while appending and exclusively while a checkpoint rotates and captures
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "ccrm-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long checkpointEvery = 10_000;
+    private long checkpointedAt; // Appended count when the last checkpoint was captured
+    private Future<?> lastCheckpoint; // Guarded by checkpointLock's write lock
+    
+    // Per thread: the encoding buffer, and the batch depth and last sequence number for runBatch
+    private final ThreadLocal<RecordBuffer> buffers = ThreadLocal.withInitial(RecordBuffer::new);
+    private final ThreadLocal<long[]> batches = ThreadLocal.withInitial(() -> new long[2]);
+    
+    private Journal(Path file, StudentService studentService, CourseService courseService,
+                    EnrollmentService enrollmentService) throws IOException {
+        this.studentService = Objects.requireNonNull(studentService);
+        this.courseService = Objects.requireNonNull(courseService);
+        this.enrollmentService = Objects.requireNonNull(enrollmentService);
+        this.file = file;
+        this.snapshotFile = file.resolveSibling(file.getFileName() + ".snapshot");
+        
+        long generation = 0;
+        if (Files.exists(snapshotFile)) {
+            Snapshot.LoadResult loaded = Snapshot.load(snapshotFile, studentService, courseService, enrollmentService);
+            generation = loaded.generation;
+            snapshotEntities = loaded.entities;
+            skippedRecords += loaded.skipped;
+        }
+        
+        // Logs retired by a checkpoint that did not finish; older ones are in the snapshot
+        for (Map.Entry<Long, Path> retired : retiredLogs().entrySet()) {
+            if (retired.getKey() < generation) {
+                Files.delete(retired.getValue());
+            } else {
+                replayedRecords += WriteAheadLog.read(retired.getValue(), this::replay);
+                generation = retired.getKey() + 1;
+            }
+        }
+        
+        this.log = WriteAheadLog.open(file, generation, this::replay);
+        replayedRecords += log.getRecoveredRecords();
+    }
+    
+    /**
+     * Replay the log at the given path into the services, then log every change made through them
+     */
+    public static Journal open(Path file, StudentService studentService, CourseService courseService,
+                               EnrollmentService enrollmentService) throws IOException {
+        Journal journal = new Journal(file, studentService, courseService, enrollmentService);
+        journal.attach();
+        return journal;
+    }
+    
+    private void attach() {
+        studentService.addStudentListener(new PersistenceListener<Student, Long>() {
+            @Override
+            public void saved(Student student) {
+                record(STUDENT_SAVED, out -> EntityCodec.writeStudent(out, student));
+            }
+            
+            @Override
+            public void updated(Student student) {
+                record(STUDENT_UPDATED, out -> EntityCodec.writeStudent(out, student));
+            }
+            
+            @Override
+            public void deleted(Long id) {
+                record(STUDENT_DELETED, out -> out.writeLong(id));
+            }
+        });
+        courseService.addCourseListener(new PersistenceListener<Course, String>() {
+            @Override
+            public void saved(Course course) {
+                record(COURSE_SAVED, out -> EntityCodec.writeCourse(out, course));
+            }
+            
+            @Override
+            public void updated(Course course) {
+                record(COURSE_UPDATED, out -> EntityCodec.writeCourse(out, course));
+            }
+            
+            @Override
+            public void deleted(String code) {
+                record(COURSE_DELETED, out -> EntityCodec.writeString(out, code));
+            }
+        });
+        enrollmentService.addEnrollmentListener(new EnrollmentListener() {
+            @Override
+            public void enrolled(Enrollment enrollment) {
+                record(ENROLLMENT_PUT, out -> EntityCodec.writeEnrollment(out, enrollment));
+            }
+            
+            @Override
+            public void unenrolled(Enrollment enrollment) {
+                record(ENROLLMENT_REMOVED, out -> {
+                    out.writeLong(enrollment.getStudent().getId());
+                    EntityCodec.writeString(out, enrollment.getCourse().getCode());
+                });
+            }
+            
+            @Override
+            public void updated(Enrollment enrollment, Grade previousGrade, EnrollmentStatus previousStatus) {
+                record(ENROLLMENT_PUT, out -> EntityCodec.writeEnrollment(out, enrollment));
+            }
+        });
+    }
+    
+    @FunctionalInterface
+    private interface Encoder {
+        void write(DataOutput out) throws IOException;
+    }
+    
+    // Listeners cannot throw checked exceptions: a failed append surfaces from the service call
+    private void record(byte type, Encoder encoder) {
+        RecordBuffer buffer = buffers.get();
+        buffer.reset();
+        try {
+            encoder.write(buffer.out);
+            long sequence;
+            checkpointLock.readLock().lock();
+            try {
+                sequence = log.append(type, buffer.bytes(), buffer.size());
+            } finally {
+                checkpointLock.readLock().unlock();
+            }
+            long[] batch = batches.get();
+            if (batch[0] > 0) {
+                batch[1] = sequence;
+            } else {
+                log.sync(sequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Change was applied but could not be logged", e);
+        }
+    }
+    
+    @FunctionalInterface
+    public interface BatchWork<T> {
+        T run() throws IOException;
+    }
+    
+    /**
+     * Run bulk work, such as an import, with one durability wait at the end rather than
+     * one per change. Batches may nest; the outermost one waits.
+     */
+    public <T> T runBatch(BatchWork<T> work) throws IOException {
+        long[] batch = batches.get();
+        batch[0]++;
+        try {
+            return work.run();
+        } finally {
+            if (--batch[0] == 0 && batch[1] > 0) {
+                long sequence = batch[1];
+                batch[1] = 0;
+                log.sync(sequence);
+            }
+        }
+    }
+    
+    /**
+     * Start a checkpoint. The snapshot is captured before this returns and written to
+     * disk by a background thread; the returned future completes once it is durable
+     * and the log history it replaces has been deleted.
+     */
+    public Future<?> checkpoint() throws IOException {
+        return whileServicesPaused(() -> {
+            checkpointLock.writeLock().lock();
+            try {
+                return startCheckpoint();
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+        });
+    }
+    
+    // Caller holds the checkpoint lock exclusively, with the services paused
+    private Future<?> startCheckpoint() throws IOException {
+        long generation = log.getGeneration();
+        long next = log.rotate(retiredLogFile(generation));
+        Snapshot snapshot = Snapshot.capture(next, studentService, courseService, enrollmentService);
+        checkpointedAt = log.getAppendedCount();
+        // One writer thread: snapshots reach the disk in the order they were captured
+        lastCheckpoint = snapshotWriter.submit(() -> {
+            snapshot.writeTo(snapshotFile);
+            for (Map.Entry<Long, Path> retired : retiredLogs().entrySet()) {
+                if (retired.getKey() < snapshot.getGeneration()) {
+                    Files.delete(retired.getValue());
+                }
+            }
+            return null;
+        });
+        return lastCheckpoint;
+    }
+    
+    /**
+     * Start a checkpoint if enough changes have been logged since the last one and no
+     * snapshot is still being written
+     * @return true if a checkpoint was started
+     */
+    public boolean checkpointIfDue() throws IOException {
+        // Checked first without pausing, as this runs after every command
+        if (!checkpointDue()) {
+            return false;
+        }
+        return whileServicesPaused(() -> {
+            checkpointLock.writeLock().lock();
+            try {
+                if (!checkpointDue()) {
+                    return false; // Another thread started one meanwhile
+                }
+                startCheckpoint();
+                return true;
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+        });
+    }
+    
+    private boolean checkpointDue() {
+        checkpointLock.readLock().lock();
+        try {
+            return log.getAppendedCount() - checkpointedAt >= checkpointEvery
+                && (lastCheckpoint == null || lastCheckpoint.isDone());
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+    
+    // Enrollment services first: they log with a student's stripe held, which must not
+    // wait for a checkpoint lock already held by a thread waiting for that stripe
+    private <T> T whileServicesPaused(Pausable.PausedWork<T, IOException> work) throws IOException {
+        return enrollmentService.whilePaused(() ->
+            courseService.whilePaused(() ->
+                studentService.whilePaused(work)));
+    }
+    
+    /**
+     * Number of logged changes after which checkpointIfDue starts a checkpoint
+     */
+    public void setCheckpointEvery(long records) {
+        if (records < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        this.checkpointEvery = records;
+    }
+    
+    public long getCheckpointEvery() {
+        return checkpointEvery;
+    }
+    
+    private Path retiredLogFile(long generation) {
+        return file.resolveSibling(file.getFileName() + "." + generation);
+    }
+    
+    // Retired log files by generation, oldest first
+    private SortedMap<Long, Path> retiredLogs() throws IOException {
+        SortedMap<Long, Path> retired = new TreeMap<>();
+        String prefix = file.getFileName() + ".";
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(file.toAbsolutePath().getParent(), prefix + "*")) {
+            for (Path sibling : siblings) {
+                String suffix = sibling.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    retired.put(Long.parseLong(suffix), sibling);
+                }
+            }
+        }
+        return retired;
+    }
+    
+    private void replay(byte type, DataInput in) throws IOException {
+        switch (type) {
+            case STUDENT_SAVED, STUDENT_UPDATED -> restoreStudent(studentService, EntityCodec.readStudent(in));
+            case STUDENT_DELETED -> studentService.delete(in.readLong());
+            case COURSE_SAVED, COURSE_UPDATED -> restoreCourse(courseService, EntityCodec.readCourse(in));
+            case COURSE_DELETED -> courseService.delete(EntityCodec.readString(in));
+            case ENROLLMENT_PUT -> {
+                Optional<Enrollment> enrollment = EntityCodec.readEnrollment(in,
+                    studentService::findById, courseService::findById);
+                if (enrollment.isPresent()) {
+                    enrollmentService.restoreEnrollment(enrollment.get());
+                } else {
+                    skippedRecords++;
+                }
+            }
+            case ENROLLMENT_REMOVED -> enrollmentService.discardEnrollment(in.readLong(), EntityCodec.readString(in));
+            default -> throw new IOException("Unknown journal record type " + type + " in " + file);
+        }
+    }
+    
+    // Update the live instance in place: enrollments hold references to it.
+    // Backup restores put students and courses back the same way.
+    static void restoreStudent(StudentService studentService, Student logged) {
+        Optional<Student> existing = studentService.findById(logged.getId());
+        if (existing.isEmpty()) {
+            studentService.save(logged);
+            return;
+        }
+        Student student = existing.get();
+        // Registration numbers are fixed once issued (the service rejects a change too), and
+        // swapping in the logged instance would leave the enrollments on the old one
+        if (!Objects.equals(student.getRegNo(), logged.getRegNo())) {
+            throw new IllegalArgumentException("Student " + logged.getId() + " has registration number "
+                + student.getRegNo() + ", not " + logged.getRegNo());
+        }
+        student.setFullName(logged.getFullName());
+        student.setEmail(logged.getEmail());
+        student.setStatus(logged.getStatus());
+        studentService.update(student);
+    }
+    
+    static void restoreCourse(CourseService courseService, Course logged) {
+        Optional<Course> existing = courseService.findById(logged.getCode());
+        if (existing.isEmpty()) {
+            courseService.save(logged);
+            return;
+        }
+        Course course = existing.get();
+        course.setTitle(logged.getTitle());
+        course.setCredits(logged.getCredits());
+        course.setInstructor(logged.getInstructor());
+        course.setSemester(logged.getSemester());
+        course.setDepartment(logged.getDepartment());
+        course.setCapacity(logged.getCapacity());
+        course.setActive(logged.isActive());
+        courseService.update(course);
+    }
+    
+    /**
+     * Log records replayed when the journal was opened, after loading the snapshot
+     */
+    public int getReplayedRecords() {
+        return replayedRecords;
+    }
+    
+    /**
+     * Students, courses and enrollments loaded from the snapshot when the journal was opened
+     */
+    public int getSnapshotEntities() {
+        return snapshotEntities;
+    }
+    
+    /**
+     * Replayed or snapshot enrollments dropped because their student or course no longer exists
+     */
+    public int getSkippedRecords() {
+        return skippedRecords;
+    }
+    
+    public WriteAheadLog getLog() {
+        return log;
+    }
+    
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+    
+    /**
+     * Wait for any snapshot still being written, then close the log
+     */
+    @Override
+    public void close() throws IOException {
+        snapshotWriter.shutdown();
+        try {
+            Future<?> pending;
+            checkpointLock.writeLock().lock();
+            try {
+                pending = lastCheckpoint;
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+            if (pending != null) {
+                pending.get();
+            }
+        } catch (ExecutionException e) {
+            // The retired log is kept, so nothing is lost; the next checkpoint tries again
+            System.err.println("Warning: snapshot " + snapshotFile + " could not be written: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            log.close();
+        }
+    }
+    
+    // Reusable encoding buffer that exposes its array without copying
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        private final DataOutputStream out = new DataOutputStream(this);
+        
+        RecordBuffer() {
+            super(256);
+        }
+        
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exception.CCRMException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Parallel CSV import for large UTF-8 files.
+ *
+ * The file is split into line-aligned chunks by a single byte scan that tracks quote parity,
+ * so a line break inside a quoted field never becomes a chunk boundary. Each chunk is
+ * memory-mapped, decoded and parsed on the ForkJoin pool; the parsed records are then handed
+ * to the sink on the calling thread in file order. Duplicate detection in the sink therefore
+ * behaves exactly as in a sequential import: the first occurrence in the file wins and later
+ * ones are reported as errors.
+ *
+ * Records are built on worker threads, so generated IDs follow parse order, not file order.
+ */
+public final class ParallelCSVImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int SCAN_REGION_SIZE = 256 * 1024 * 1024;
+    
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    
+    public ParallelCSVImporter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+    
+    public ParallelCSVImporter(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = Objects.requireNonNull(pool, "Pool cannot be null");
+        this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * Import a CSV file with a header row
+     * @param parser turns one record's fields into an item; runs on pool threads and must be thread-safe
+     * @param sink receives items in file order on the calling thread
+     */
+    public <T> ImportResult importFile(Path file, Function<String[], T> parser, ImportSink<? super T> sink,
+                                       Consumer<? super ImportError> errors) throws IOException {
+        Objects.requireNonNull(parser, "Parser cannot be null");
+        Objects.requireNonNull(sink, "Import sink cannot be null");
+        Objects.requireNonNull(errors, "Error channel cannot be null");
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel);
+            
+            // Keep only a bounded number of parsed chunks in flight so memory doesn't scale with the file
+            int window = Math.max(2, pool.getParallelism() * 2);
+            Deque<ForkJoinTask<List<Row<T>>>> inFlight = new ArrayDeque<>();
+            Iterator<Chunk> pending = chunks.iterator();
+            long imported = 0;
+            long failed = 0;
+            
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < window) {
+                    Chunk chunk = pending.next();
+                    inFlight.add(pool.submit(() -> parseChunk(channel, file, chunk, parser)));
+                }
+                
+                // Merge strictly in chunk order
+                for (Row<T> row : await(inFlight.poll())) {
+                    if (row.error != null) {
+                        failed++;
+                        errors.accept(row.error);
+                        continue;
+                    }
+                    try {
+                        sink.accept(row.item);
+                        imported++;
+                    } catch (CCRMException e) {
+                        failed++;
+                        errors.accept(new ImportError(file, row.line, e.getErrorCode(), e.getMessage()));
+                    } catch (RuntimeException e) {
+                        failed++;
+                        errors.accept(new ImportError(file, row.line, ImportError.REJECTED, e.getMessage()));
+                    }
+                }
+            }
+            return new ImportResult(imported, failed);
+        }
+    }
+    
+    /**
+     * Split the file into chunks of roughly chunkSize bytes, each ending just after an
+     * LF that lies outside quotes. Also counts lines so errors keep their file line numbers.
+     */
+    List<Chunk> split(FileChannel channel) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        long chunkStart = 0;
+        long chunkLine = 1;
+        long line = 1;
+        boolean inQuotes = false;
+        
+        for (long regionStart = 0; regionStart < size; regionStart += SCAN_REGION_SIZE) {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart,
+                Math.min(SCAN_REGION_SIZE, size - regionStart));
+            int limit = region.limit();
+            for (int i = 0; i < limit; i++) {
+                byte b = region.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes; // A doubled quote flips twice, so parity still holds
+                } else if (b == '\n') {
+                    line++;
+                    long end = regionStart + i + 1;
+                    if (!inQuotes && end - chunkStart >= chunkSize) {
+                        chunks.add(new Chunk(chunkStart, end - chunkStart, chunkLine));
+                        chunkStart = end;
+                        chunkLine = line;
+                    }
+                }
+            }
+        }
+        
+        if (chunkStart < size) {
+            chunks.add(new Chunk(chunkStart, size - chunkStart, chunkLine));
+        }
+        return chunks;
+    }
+    
+    private static <T> List<Row<T>> parseChunk(FileChannel channel, Path file, Chunk chunk,
+                                               Function<String[], T> parser) throws IOException {
+        if (chunk.length > Integer.MAX_VALUE) {
+            throw new IOException("CSV record too large to map starting at line " + chunk.firstLine);
+        }
+        
+        ChunkRows<T> rows = new ChunkRows<>();
+        RecordImporter<T> importer = new RecordImporter<>(file, chunk.firstLine, chunk.offset == 0, parser,
+            rows::addItem, rows::addError);
+        rows.importer = importer;
+        CSVTokenizer tokenizer = importer.tokenizer();
+        
+        ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset, chunk.length);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(8192);
+        
+        // Decode the mapped bytes window by window straight into the tokenizer
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, true);
+            drain(tokenizer, chars);
+        } while (result.isOverflow());
+        while (decoder.flush(chars).isOverflow()) {
+            drain(tokenizer, chars);
+        }
+        drain(tokenizer, chars);
+        tokenizer.finish();
+        return rows.rows;
+    }
+    
+    private static void drain(CSVTokenizer tokenizer, CharBuffer chars) {
+        chars.flip();
+        tokenizer.feed(chars);
+        chars.clear();
+    }
+    
+    private static <T> List<Row<T>> await(ForkJoinTask<List<Row<T>>> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    // Byte range of the file holding whole records, and the file line it starts on
+    static final class Chunk {
+        final long offset;
+        final long length;
+        final long firstLine;
+        
+        Chunk(long offset, long length, long firstLine) {
+            this.offset = offset;
+            this.length = length;
+            this.firstLine = firstLine;
+        }
+    }
+    
+    // Collects one chunk's records in file order, remembering each item's line
+    private static final class ChunkRows<T> {
+        final List<Row<T>> rows = new ArrayList<>();
+        RecordImporter<T> importer;
+        
+        void addItem(T item) {
+            rows.add(new Row<>(item, importer.currentLine(), null));
+        }
+        
+        void addError(ImportError error) {
+            rows.add(new Row<>(null, error.getLine(), error));
+        }
+    }
+    
+    // Either a parsed item or the error for that record, in file order
+    private static final class Row<T> {
+        final T item;
+        final long line;
+        final ImportError error;
+        
+        Row(T item, long line, ImportError error) {
+            this.item = item;
+            this.line = line;
+            this.error = error;
+        }
+    }
+}
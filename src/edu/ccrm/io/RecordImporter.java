@@ -0,0 +1,86 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exception.CCRMException;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Tokenizer callback shared by the sequential and parallel imports.
+ * Skips the header and blank lines, parses each record and hands it to the sink;
+ * parse failures and sink rejections go to the error channel with their line number.
+ */
+final class RecordImporter<T> {
+    private final Path source;
+    private final long lineOffset;
+    private final Function<String[], T> parser;
+    private final ImportSink<? super T> sink;
+    private final Consumer<? super ImportError> errors;
+    private final CSVTokenizer tokenizer;
+    private boolean skipHeader;
+    private long imported;
+    private long failed;
+    
+    /**
+     * @param firstLine file line the tokenized input starts on, for error reporting
+     * @param skipHeader whether the first record is a header row
+     */
+    RecordImporter(Path source, long firstLine, boolean skipHeader, Function<String[], T> parser,
+                   ImportSink<? super T> sink, Consumer<? super ImportError> errors) {
+        this.source = source;
+        this.lineOffset = firstLine - 1;
+        this.skipHeader = skipHeader;
+        this.parser = Objects.requireNonNull(parser);
+        this.sink = Objects.requireNonNull(sink, "Import sink cannot be null");
+        this.errors = Objects.requireNonNull(errors, "Error channel cannot be null");
+        this.tokenizer = new CSVTokenizer(CSVTokenizer.records(this::onRecord));
+    }
+    
+    CSVTokenizer tokenizer() {
+        return tokenizer;
+    }
+    
+    // File line of the record currently being handled; valid inside sink and error callbacks
+    long currentLine() {
+        return lineOffset + tokenizer.getRecordLine();
+    }
+    
+    ImportResult result() {
+        return new ImportResult(imported, failed);
+    }
+    
+    private void onRecord(String[] fields) {
+        if (skipHeader) {
+            skipHeader = false;
+            return;
+        }
+        if (fields.length == 1 && fields[0].trim().isEmpty()) {
+            return; // Whitespace-only line
+        }
+        
+        long line = currentLine();
+        T item;
+        try {
+            item = parser.apply(fields);
+        } catch (RuntimeException e) {
+            reject(line, ImportError.PARSE_ERROR, e.getMessage());
+            return;
+        }
+        
+        try {
+            sink.accept(item);
+            imported++;
+        } catch (CCRMException e) {
+            reject(line, e.getErrorCode(), e.getMessage());
+        } catch (RuntimeException e) {
+            reject(line, ImportError.REJECTED, e.getMessage());
+        }
+    }
+    
+    private void reject(long line, String errorCode, String message) {
+        failed++;
+        errors.accept(new ImportError(source, line, errorCode, message));
+    }
+}
@@ -0,0 +1,199 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary image of every student, course and enrollment, used by Journal to
+ * start from a checkpoint instead of the full log history.
+ *
+ * An image is captured in memory first, which is quick, and written to disk afterwards,
+ * so the slow part can run in the background. Capture reads the live services, so the
+ * image is only as consistent as the caller keeps them: Journal pauses them for it, and
+ * an entity object a caller modifies directly is still read as it is at that moment.
+ * The file is replaced atomically, and a CRC32 trailer rejects a damaged one.
+ *
+ * File layout: magic and format version, the first log generation not contained in the
+ * image (long), then three sections each starting with its entity count (int): students,
+ * courses, and enrollments referring to their course by position in the course section.
+ */
+final class Snapshot {
+    private static final byte[] MAGIC = {'C', 'C', 'R', 'M', 'S', 'N', 'P', 1}; // Last byte is the version
+    
+    // Rough encoded sizes, to size the capture buffer up front
+    private static final int STUDENT_BYTES = 80;
+    private static final int COURSE_BYTES = 96;
+    private static final int ENROLLMENT_BYTES = 34;
+    
+    private final byte[] image;
+    private final int length;
+    private final long generation;
+    
+    private Snapshot(byte[] image, int length, long generation) {
+        this.image = image;
+        this.length = length;
+        this.generation = generation;
+    }
+    
+    /**
+     * Encode the current state of the services. Callers must pause the services and their
+     * logging while this runs (see Pausable): changes made meanwhile could leave the image
+     * mixing states, and the log generation would no longer match what was captured.
+     * @param generation the log generation that continues after this image
+     */
+    static Snapshot capture(long generation, StudentService studentService, CourseService courseService,
+                            EnrollmentService enrollmentService) throws IOException {
+        Collection<Student> students = studentService.findAllView();
+        Collection<Course> courses = courseService.findAllView();
+        Collection<Enrollment> enrollments = enrollmentService.getAllEnrollmentsView();
+        ImageBuffer buffer = new ImageBuffer(MAGIC.length + 8 + 12
+            + students.size() * STUDENT_BYTES + courses.size() * COURSE_BYTES + enrollments.size() * ENROLLMENT_BYTES);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.write(MAGIC);
+        out.writeLong(generation);
+        
+        // Counts are patched in afterwards rather than taken from the views' sizes
+        int countAt = buffer.size();
+        int count = 0;
+        out.writeInt(0);
+        for (Student student : students) {
+            EntityCodec.writeStudent(out, student);
+            count++;
+        }
+        buffer.patchInt(countAt, count);
+        
+        Map<String, Integer> courseIndex = new HashMap<>();
+        countAt = buffer.size();
+        out.writeInt(0);
+        for (Course course : courses) {
+            EntityCodec.writeCourse(out, course);
+            courseIndex.put(course.getCode(), courseIndex.size());
+        }
+        buffer.patchInt(countAt, courseIndex.size());
+        
+        countAt = buffer.size();
+        count = 0;
+        out.writeInt(0);
+        for (Enrollment enrollment : enrollments) {
+            EntityCodec.writeIndexedEnrollment(out, enrollment, courseIndex.getOrDefault(enrollment.getCourse().getCode(), -1));
+            count++;
+        }
+        buffer.patchInt(countAt, count);
+        
+        CRC32 crc = new CRC32();
+        crc.update(buffer.bytes(), 0, buffer.size());
+        out.writeInt((int) crc.getValue());
+        return new Snapshot(buffer.bytes(), buffer.size(), generation);
+    }
+    
+    /**
+     * Write the image to a temporary file, force it to disk, and move it over the target
+     */
+    void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.wrap(image, 0, length);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    long getGeneration() {
+        return generation;
+    }
+    
+    int size() {
+        return length;
+    }
+    
+    /**
+     * Counts from loading a snapshot into the services
+     */
+    static final class LoadResult {
+        final long generation;
+        final int entities;
+        final int skipped;
+        
+        LoadResult(long generation, int entities, int skipped) {
+            this.generation = generation;
+            this.entities = entities;
+            this.skipped = skipped;
+        }
+    }
+    
+    /**
+     * Load a snapshot into empty services. Enrollments go through restoreEnrollment;
+     * one whose student or course was removed while the image was captured is skipped.
+     */
+    static LoadResult load(Path file, StudentService studentService, CourseService courseService,
+                           EnrollmentService enrollmentService) throws IOException {
+        byte[] image = Files.readAllBytes(file);
+        if (image.length < MAGIC.length + 8 + 16
+                || !Arrays.equals(Arrays.copyOf(image, MAGIC.length), MAGIC)) {
+            throw new IOException("Not a snapshot, or an unsupported version: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(image, 0, image.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(image, image.length - 4, 4).getInt()) {
+            throw new IOException("Snapshot is damaged: " + file);
+        }
+        
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(image, MAGIC.length, image.length - MAGIC.length - 4));
+        long generation = in.readLong();
+        int students = in.readInt();
+        for (int i = 0; i < students; i++) {
+            studentService.save(EntityCodec.readStudent(in));
+        }
+        
+        Course[] courses = new Course[in.readInt()];
+        for (int i = 0; i < courses.length; i++) {
+            courses[i] = EntityCodec.readCourse(in);
+            courseService.save(courses[i]);
+        }
+        
+        int enrollments = in.readInt();
+        int skipped = 0;
+        for (int i = 0; i < enrollments; i++) {
+            Optional<Enrollment> enrollment = EntityCodec.readIndexedEnrollment(in, studentService::findById,
+                index -> index >= 0 ? courses[index] : null);
+            if (enrollment.isPresent()) {
+                enrollmentService.restoreEnrollment(enrollment.get());
+            } else {
+                skipped++;
+            }
+        }
+        return new LoadResult(generation, students + courses.length + enrollments - skipped, skipped);
+    }
+    
+    // Growable capture buffer with access to its array, for patching and writing without a copy
+    private static final class ImageBuffer extends ByteArrayOutputStream {
+        ImageBuffer(int initialSize) {
+            super(initialSize);
+        }
+        
+        byte[] bytes() {
+            return buf;
+        }
+        
+        void patchInt(int offset, int value) {
+            buf[offset] = (byte) (value >>> 24);
+            buf[offset + 1] = (byte) (value >>> 16);
+            buf[offset + 2] = (byte) (value >>> 8);
+            buf[offset + 3] = (byte) value;
+        }
+    }
+}
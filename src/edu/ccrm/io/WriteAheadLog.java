@@ -0,0 +1,377 @@
+package edu.ccrm.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log with group commit.
+ *
+ * append() only copies a record into an in-memory batch. sync() makes it durable: the
+ * first waiting thread becomes the leader, writes everything appended so far with one
+ * sequential write and one fsync, and wakes every thread whose record was in the batch.
+ * Records appended meanwhile go into the next batch, so under load the cost of an fsync
+ * is shared by every change that arrived while the previous one was running.
+ *
+ * File layout: a header (magic, format version and the log's generation), then one
+ * frame per record: payload length (int), CRC32 of type and payload (int), type (byte),
+ * payload. A torn or corrupt frame at the end, left by a crash mid-write, is cut off
+ * when the log is opened.
+ *
+ * rotate() retires the current file under another name and carries on in a fresh file
+ * of the next generation, so a checkpoint can drop the history it has captured.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final byte[] MAGIC = {'C', 'C', 'R', 'M', 'W', 'A', 'L', 2}; // Last byte is the version
+    private static final byte VERSION_WITHOUT_GENERATION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 8;
+    static final int FRAME_HEADER_SIZE = 9;
+    private static final int INITIAL_BATCH_CAPACITY = 64 * 1024;
+    
+    /**
+     * Receives each intact record when the log is opened, oldest first
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void apply(byte type, DataInput payload) throws IOException;
+    }
+    
+    private final Path file;
+    private final int recoveredRecords;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel; // Guarded by lock; replaced by rotate
+    private long generation; // Guarded by lock
+    private final Condition batchDone = lock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BATCH_CAPACITY); // Guarded by lock
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BATCH_CAPACITY); // Null while a leader writes
+    private final CRC32 crc = new CRC32(); // Guarded by lock
+    private long appended; // Sequence number of the last appended record
+    private long durable; // Sequence number of the last record known to be on disk
+    private boolean writing;
+    private IOException failure; // Once a batch fails the log accepts nothing more
+    private long batches;
+    private boolean closed;
+    
+    private WriteAheadLog(Path file, FileChannel channel, long generation, int recoveredRecords) {
+        this.file = file;
+        this.channel = channel;
+        this.generation = generation;
+        this.recoveredRecords = recoveredRecords;
+    }
+    
+    /**
+     * Open or create the log, hand every intact record to the handler, and position
+     * the log for appending after the last one
+     * @param generation the generation given to the log if it has to be created
+     */
+    public static WriteAheadLog open(Path file, long generation, RecordHandler handler) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int records = 0;
+            long end;
+            if (channel.size() == 0) {
+                writeHeader(channel, generation);
+                end = HEADER_SIZE;
+            } else {
+                Replay replay = replay(channel, file, handler);
+                records = replay.records;
+                generation = replay.generation;
+                end = replay.validEnd;
+                if (end < channel.size()) {
+                    channel.truncate(end); // Drop the torn tail
+                    channel.force(true);
+                }
+            }
+            channel.position(end);
+            return new WriteAheadLog(file, channel, generation, records);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Hand every intact record of a retired log to the handler, leaving the file as it is
+     * @return the number of records read
+     */
+    public static int read(Path file, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return replay(channel, file, handler).records;
+        }
+    }
+    
+    /**
+     * The generation recorded in a log file's header
+     */
+    public static long readGeneration(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return replay(channel, file, null).generation;
+        }
+    }
+    
+    private static void writeHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putLong(generation);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+    }
+    
+    private static final class Replay {
+        long generation;
+        int records;
+        long validEnd;
+    }
+    
+    // A null handler reads just the header
+    private static Replay replay(FileChannel channel, Path file, RecordHandler handler) throws IOException {
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        byte[] magic = new byte[MAGIC.length];
+        Replay replay = new Replay();
+        long offset;
+        try {
+            in.readFully(magic);
+            if (magic[magic.length - 1] == VERSION_WITHOUT_GENERATION) {
+                magic[magic.length - 1] = MAGIC[magic.length - 1];
+                offset = MAGIC.length; // Generation 0
+            } else {
+                replay.generation = in.readLong();
+                offset = HEADER_SIZE;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Not a write-ahead log: " + file);
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a write-ahead log, or an unsupported version: " + file);
+        }
+        replay.validEnd = offset;
+        if (handler == null) {
+            return replay;
+        }
+        
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[256];
+        int records = 0;
+        long size = channel.size();
+        while (offset + FRAME_HEADER_SIZE <= size) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            byte type = in.readByte();
+            if (length < 0 || offset + FRAME_HEADER_SIZE + length > size) {
+                break; // Torn frame
+            }
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            in.readFully(payload, 0, length);
+            crc.reset();
+            crc.update(type);
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break; // Corrupt frame: nothing after it can be trusted
+            }
+            
+            handler.apply(type, new DataInputStream(new ByteArrayInputStream(payload, 0, length)));
+            records++;
+            offset += FRAME_HEADER_SIZE + length;
+        }
+        replay.records = records;
+        replay.validEnd = offset;
+        return replay;
+    }
+    
+    /**
+     * Add a record to the current batch. It is not durable until sync() returns for its sequence number.
+     * @return the record's sequence number
+     */
+    public long append(byte type, byte[] payload, int length) throws IOException {
+        lock.lock();
+        try {
+            checkWritable();
+            if (pending.remaining() < FRAME_HEADER_SIZE + length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + FRAME_HEADER_SIZE + length));
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            crc.reset();
+            crc.update(type);
+            crc.update(payload, 0, length);
+            pending.putInt(length).putInt((int) crc.getValue()).put(type).put(payload, 0, length);
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Wait until the record with the given sequence number, and every one before it, is on disk
+     */
+    public void sync(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durable < sequence) {
+                if (failure != null) {
+                    throw new IOException("Write-ahead log " + file + " is unusable after a failed write", failure);
+                }
+                if (writing) {
+                    batchDone.awaitUninterruptibly();
+                    continue;
+                }
+                writeBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Called as leader with the lock held; the lock is released during the write itself
+    private void writeBatch() {
+        FileChannel channel = this.channel;
+        ByteBuffer batch = pending;
+        long target = appended;
+        pending = spare;
+        spare = null;
+        writing = true;
+        lock.unlock();
+        
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        
+        batch.clear();
+        spare = batch;
+        writing = false;
+        if (error != null) {
+            failure = error;
+        } else {
+            durable = target;
+            batches++;
+        }
+        batchDone.signalAll();
+    }
+    
+    /**
+     * Make everything appended so far durable, move the file to the given path, and
+     * continue in a new file of the next generation. Appends wait while this runs.
+     * @return the new generation
+     */
+    public long rotate(Path retired) throws IOException {
+        lock.lock();
+        try {
+            checkWritable();
+            sync(appended);
+            try {
+                channel.close();
+                Files.move(file, retired, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                writeHeader(channel, generation + 1);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            return ++generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Append a record and wait for it to be durable
+     */
+    public void appendAndSync(byte type, byte[] payload, int length) throws IOException {
+        sync(append(type, payload, length));
+    }
+    
+    public int getRecoveredRecords() {
+        return recoveredRecords;
+    }
+    
+    /**
+     * Number of write-and-fsync rounds so far; appended records divided by this is the average batch size
+     */
+    public long getBatchCount() {
+        lock.lock();
+        try {
+            return batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getAppendedCount() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void checkWritable() throws IOException {
+        if (closed) {
+            throw new IOException("Write-ahead log is closed: " + file);
+        }
+        if (failure != null) {
+            throw new IOException("Write-ahead log " + file + " is unusable after a failed write", failure);
+        }
+    }
+    
+    /**
+     * Write out anything still pending and close the file
+     */
+    @Override
+    public void close() throws IOException {
+        FileChannel channel;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (failure == null) {
+                sync(appended);
+            }
+            closed = true;
+            channel = this.channel;
+        } finally {
+            lock.unlock();
+        }
+        channel.close();
+    }
+}
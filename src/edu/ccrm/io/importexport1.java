@@ -2,6 +2,10 @@
 package edu.ccrm.io;
 
 import edu.ccrm.domain.*;
+import edu.ccrm.exception.CCRMException;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
 import edu.ccrm.util.FileUtility;
 
 import java.io.*;
@@ -9,7 +13,12 @@ import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Implementation demonstrating NIO.2, Streams, and CSV processing
@@ -19,79 +28,83 @@ public class ImportExportServiceImpl implements ImportExportService {
     private static final String CSV_DELIMITER = ",";
     private static final String CSV_QUOTE = "\"";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String STUDENTS_HEADER = "ID,RegNo,FullName,Email,Status,EnrollmentDate,CreatedAt";
+    private static final String COURSES_HEADER = "Code,Title,Credits,Instructor,Semester,Department,Active,CreatedAt,Capacity";
+    private static final String ENROLLMENTS_HEADER = "EnrollmentID,StudentID,StudentRegNo,CourseCode,Grade,EnrollmentDate,GradeDate,Status";
+    
+    private final ParallelCSVImporter parallelImporter = new ParallelCSVImporter();
+    
+    // Source of exportAllData; null when constructed for file conversions only
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    
+    public ImportExportServiceImpl() {
+        this.studentService = null;
+        this.courseService = null;
+        this.enrollmentService = null;
+    }
+    
+    public ImportExportServiceImpl(StudentService studentService, CourseService courseService,
+                                   EnrollmentService enrollmentService) {
+        this.studentService = Objects.requireNonNull(studentService, "Student service cannot be null");
+        this.courseService = Objects.requireNonNull(courseService, "Course service cannot be null");
+        this.enrollmentService = Objects.requireNonNull(enrollmentService, "Enrollment service cannot be null");
+    }
     
     @Override
     public List<Student> importStudentsFromCSV(Path filePath) throws IOException {
-        if (!Files.exists(filePath)) {
-            throw new FileNotFoundException("Student CSV file not found: " + filePath);
-        }
-        
         List<Student> students = new ArrayList<>();
-        
-        // Using try-with-resources for automatic resource management
-        try (Stream<String> lines = Files.lines(filePath)) {
-            List<String> lineList = lines.collect(java.util.stream.Collectors.toList());
-            
-            if (lineList.isEmpty()) {
-                return students;
-            }
-            
-            // Skip header line
-            for (int i = 1; i < lineList.size(); i++) {
-                String line = lineList.get(i).trim();
-                if (line.isEmpty()) continue;
-                
-                try {
-                    Student student = parseStudentFromCSV(line);
-                    students.add(student);
-                } catch (Exception e) {
-                    System.err.println("Error parsing student line " + (i + 1) + ": " + e.getMessage());
-                }
-            }
-        }
-        
+        importStudentsFromCSV(filePath, students::add,
+            error -> System.err.println("Error parsing student line " + error.getLine() + ": " + error.getMessage()));
         return students;
     }
     
     @Override
     public List<Course> importCoursesFromCSV(Path filePath) throws IOException {
-        if (!Files.exists(filePath)) {
-            throw new FileNotFoundException("Course CSV file not found: " + filePath);
-        }
-        
         List<Course> courses = new ArrayList<>();
+        importCoursesFromCSV(filePath, courses::add,
+            error -> System.err.println("Error parsing course line " + error.getLine() + ": " + error.getMessage()));
+        return courses;
+    }
+    
+    @Override
+    public ImportResult importStudentsFromCSV(Path filePath, ImportSink<? super Student> sink,
+                                              Consumer<? super ImportError> errors) throws IOException {
+        return streamImport(filePath, "Student", this::parseStudent, sink, errors);
+    }
+    
+    @Override
+    public ImportResult importCoursesFromCSV(Path filePath, ImportSink<? super Course> sink,
+                                             Consumer<? super ImportError> errors) throws IOException {
+        return streamImport(filePath, "Course", this::parseCourse, sink, errors);
+    }
+    
+    @Override
+    public ImportResult importStudentsFromCSVParallel(Path filePath, ImportSink<? super Student> sink,
+                                                      Consumer<? super ImportError> errors) throws IOException {
+        requireFile(filePath, "Student");
+        return parallelImporter.importFile(filePath, this::parseStudent, sink, errors);
+    }
+    
+    @Override
+    public ImportResult importCoursesFromCSVParallel(Path filePath, ImportSink<? super Course> sink,
+                                                     Consumer<? super ImportError> errors) throws IOException {
+        requireFile(filePath, "Course");
+        return parallelImporter.importFile(filePath, this::parseCourse, sink, errors);
+    }
+    
+    // Tokenize the file row by row and push each record to the sink as soon as it is parsed,
+    // so memory stays bounded by the longest record rather than the file size
+    private <T> ImportResult streamImport(Path filePath, String kind, Function<String[], T> parser,
+                                          ImportSink<? super T> sink, Consumer<? super ImportError> errors) throws IOException {
+        requireFile(filePath, kind);
         
+        RecordImporter<T> importer = new RecordImporter<>(filePath, 1, true, parser, sink, errors);
         try (BufferedReader reader = Files.newBufferedReader(filePath)) {
-            String line;
-            boolean isFirstLine = true;
-            
-            // Demonstrate while loop with labeled break
-            readLoop: while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                
-                // Skip header
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue readLoop;
-                }
-                
-                // Skip empty lines
-                if (line.isEmpty()) {
-                    continue;
-                }
-                
-                try {
-                    Course course = parseCourseFromCSV(line);
-                    courses.add(course);
-                } catch (Exception e) {
-                    System.err.println("Error parsing course line: " + e.getMessage());
-                    // Continue processing other lines instead of breaking
-                    continue readLoop;
-                }
-            }
+            importer.tokenizer().parse(reader);
         }
-        
-        return courses;
+        return importer.result();
     }
     
     @Override
@@ -102,7 +115,7 @@ public class ImportExportServiceImpl implements ImportExportService {
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
             
             // Write CSV header
-            writer.write("ID,RegNo,FullName,Email,Status,EnrollmentDate,CreatedAt");
+            writer.write(STUDENTS_HEADER);
             writer.newLine();
             
             // Write student data using enhanced for loop
@@ -123,7 +136,7 @@ public class ImportExportServiceImpl implements ImportExportService {
              PrintWriter printWriter = new PrintWriter(fileWriter)) {
             
             // Write header
-            printWriter.println("Code,Title,Credits,Instructor,Semester,Department,Active,CreatedAt");
+            printWriter.println(COURSES_HEADER);
             
             // Use Stream API for processing
             courses.stream()
@@ -138,7 +151,7 @@ public class ImportExportServiceImpl implements ImportExportService {
         FileUtility.ensureDirectoryExists(filePath.getParent());
         
         try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            writer.write("EnrollmentID,StudentID,StudentRegNo,CourseCode,Grade,EnrollmentDate,GradeDate,Status");
+            writer.write(ENROLLMENTS_HEADER);
             writer.newLine();
             
             for (Enrollment enrollment : enrollments) {
@@ -150,31 +163,134 @@ public class ImportExportServiceImpl implements ImportExportService {
     }
     
     @Override
-    public void exportAllData(Path exportFolder) throws IOException {
-        FileUtility.ensureDirectoryExists(exportFolder);
-        
-        // This would typically get data from services
-        // For demo purposes, creating empty files with headers
+    public void exportStudentsToBinary(Collection<Student> students, Path filePath) throws IOException {
+        FileUtility.ensureDirectoryExists(filePath.getParent());
+        try (BinaryFormat.Writer writer = new BinaryFormat.Writer(filePath, BinaryFormat.STUDENTS)) {
+            for (Student student : students) {
+                writer.writeStudent(student);
+            }
+            writer.finish();
+        }
+    }
+    
+    @Override
+    public void exportCoursesToBinary(Collection<Course> courses, Path filePath) throws IOException {
+        FileUtility.ensureDirectoryExists(filePath.getParent());
+        try (BinaryFormat.Writer writer = new BinaryFormat.Writer(filePath, BinaryFormat.COURSES)) {
+            for (Course course : courses) {
+                writer.writeCourse(course);
+            }
+            writer.finish();
+        }
+    }
+    
+    @Override
+    public void exportEnrollmentsToBinary(Collection<Enrollment> enrollments, Path filePath) throws IOException {
+        FileUtility.ensureDirectoryExists(filePath.getParent());
+        try (BinaryFormat.Writer writer = new BinaryFormat.Writer(filePath, BinaryFormat.ENROLLMENTS)) {
+            for (Enrollment enrollment : enrollments) {
+                writer.writeEnrollment(enrollment);
+            }
+            writer.finish();
+        }
+    }
+    
+    @Override
+    public ImportResult importStudentsFromBinary(Path filePath, ImportSink<? super Student> sink,
+                                                 Consumer<? super ImportError> errors) throws IOException {
+        return binaryImport(filePath, BinaryFormat.STUDENTS, BinaryFormat.Reader::readStudent, sink, errors);
+    }
+    
+    @Override
+    public ImportResult importCoursesFromBinary(Path filePath, ImportSink<? super Course> sink,
+                                                Consumer<? super ImportError> errors) throws IOException {
+        return binaryImport(filePath, BinaryFormat.COURSES, BinaryFormat.Reader::readCourse, sink, errors);
+    }
+    
+    @Override
+    public ImportResult importEnrollmentsFromBinary(Path filePath, Function<Long, Optional<Student>> students,
+                                                    Function<String, Optional<Course>> courses,
+                                                    ImportSink<? super Enrollment> sink,
+                                                    Consumer<? super ImportError> errors) throws IOException {
+        Objects.requireNonNull(students, "Student lookup cannot be null");
+        Objects.requireNonNull(courses, "Course lookup cannot be null");
+        return binaryImport(filePath, BinaryFormat.ENROLLMENTS,
+            reader -> reader.readEnrollment(students, courses), sink, errors);
+    }
+    
+    @FunctionalInterface
+    private interface BinaryRecordParser<T> {
+        T read(BinaryFormat.Reader reader) throws IOException;
+    }
+    
+    // Records that fail validation or are refused by the sink are reported by record number.
+    // Records are held until the END trailer confirms the count, so a damaged file stops the
+    // import with an IOException before the sink sees any of them.
+    private <T> ImportResult binaryImport(Path filePath, byte kind, BinaryRecordParser<T> parser,
+                                          ImportSink<? super T> sink, Consumer<? super ImportError> errors) throws IOException {
+        Objects.requireNonNull(sink, "Import sink cannot be null");
+        Objects.requireNonNull(errors, "Error channel cannot be null");
+        if (!Files.exists(filePath)) {
+            throw new FileNotFoundException("Binary export file not found: " + filePath);
+        }
         
-        // Create students.csv
-        Path studentsFile = exportFolder.resolve("students.csv");
-        try (BufferedWriter writer = Files.newBufferedWriter(studentsFile)) {
-            writer.write("ID,RegNo,FullName,Email,Status,EnrollmentDate,CreatedAt");
-            writer.newLine();
+        List<T> parsed = new ArrayList<>(); // Indexed by record number - 1; null if it failed to parse
+        long failed = 0;
+        try (BinaryFormat.Reader reader = new BinaryFormat.Reader(filePath, kind)) {
+            while (reader.next()) {
+                try {
+                    parsed.add(parser.read(reader));
+                } catch (RuntimeException e) {
+                    parsed.add(null);
+                    failed++;
+                    errors.accept(new ImportError(filePath, reader.getRecordNumber(), ImportError.PARSE_ERROR, e.getMessage()));
+                }
+            }
         }
         
-        // Create courses.csv
-        Path coursesFile = exportFolder.resolve("courses.csv");
-        try (BufferedWriter writer = Files.newBufferedWriter(coursesFile)) {
-            writer.write("Code,Title,Credits,Instructor,Semester,Department,Active,CreatedAt");
-            writer.newLine();
+        long imported = 0;
+        for (int i = 0; i < parsed.size(); i++) {
+            T item = parsed.get(i);
+            if (item == null) {
+                continue;
+            }
+            long record = i + 1;
+            try {
+                sink.accept(item);
+                imported++;
+            } catch (CCRMException e) {
+                failed++;
+                errors.accept(new ImportError(filePath, record, e.getErrorCode(), e.getMessage()));
+            } catch (RuntimeException e) {
+                failed++;
+                errors.accept(new ImportError(filePath, record, ImportError.REJECTED, e.getMessage()));
+            }
+        }
+        return new ImportResult(imported, failed);
+    }
+    
+    @Override
+    public void exportAllData(Path exportFolder) throws IOException {
+        if (studentService == null) {
+            throw new IllegalStateException("Exporting all data needs the services; use the service constructor");
         }
+        FileUtility.ensureDirectoryExists(exportFolder);
         
-        // Create enrollments.csv
-        Path enrollmentsFile = exportFolder.resolve("enrollments.csv");
-        try (BufferedWriter writer = Files.newBufferedWriter(enrollmentsFile)) {
-            writer.write("EnrollmentID,StudentID,StudentRegNo,CourseCode,Grade,EnrollmentDate,GradeDate,Status");
-            writer.newLine();
+        // One file per thread, streamed from the live collections without copying them
+        ExecutorService writers = Executors.newFixedThreadPool(3, task -> {
+            Thread thread = new Thread(task, "ccrm-export-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] counts;
+        try {
+            counts = awaitAll(List.of(
+                writers.submit(() -> writeStudents(studentService.findAllView(), exportFolder.resolve("students.csv"))),
+                writers.submit(() -> writeCourses(courseService.findAllView(), exportFolder.resolve("courses.csv"))),
+                writers.submit(() -> writeEnrollments(enrollmentService.getAllEnrollmentsView(),
+                    exportFolder.resolve("enrollments.csv")))));
+        } finally {
+            writers.shutdown();
         }
         
         // Create metadata file
@@ -186,34 +302,182 @@ public class ImportExportServiceImpl implements ImportExportService {
             writer.newLine();
             writer.write("Export Folder: " + exportFolder.toAbsolutePath());
             writer.newLine();
+            writer.write("Students: " + counts[0] + ", Courses: " + counts[1] + ", Enrollments: " + counts[2]);
+            writer.newLine();
+        }
+    }
+    
+    // Table writers, shared with the incremental backups of BackupServiceImpl
+    static long writeStudents(Collection<Student> students, Path filePath) throws IOException {
+        try (CSVChannelWriter writer = new CSVChannelWriter(filePath)) {
+            writer.header(STUDENTS_HEADER);
+            for (Student student : students) {
+                writer.field(student.getId())
+                    .field(student.getRegNo())
+                    .field(student.getFullName())
+                    .field(student.getEmail())
+                    .field(student.getStatus().toString())
+                    .field(student.getEnrollmentDate())
+                    .field(student.getCreatedAt())
+                    .endRecord();
+            }
+            return writer.getRecords();
+        }
+    }
+    
+    static long writeCourses(Collection<Course> courses, Path filePath) throws IOException {
+        try (CSVChannelWriter writer = new CSVChannelWriter(filePath)) {
+            writer.header(COURSES_HEADER);
+            for (Course course : courses) {
+                writer.field(course.getCode())
+                    .field(course.getTitle())
+                    .field(course.getCredits())
+                    .field(course.getInstructor())
+                    .field(course.getSemester().toString())
+                    .field(course.getDepartment())
+                    .field(course.isActive() ? "true" : "false")
+                    .field(course.getCreatedAt())
+                    .field(course.getCapacity())
+                    .endRecord();
+            }
+            return writer.getRecords();
         }
     }
     
+    static long writeEnrollments(Collection<Enrollment> enrollments, Path filePath) throws IOException {
+        try (CSVChannelWriter writer = new CSVChannelWriter(filePath)) {
+            writer.header(ENROLLMENTS_HEADER);
+            for (Enrollment enrollment : enrollments) {
+                Student student = enrollment.getStudent();
+                writer.field(enrollment.getId())
+                    .field(student.getId())
+                    .field(student.getRegNo())
+                    .field(enrollment.getCourse().getCode())
+                    .field(enrollment.hasGrade() ? enrollment.getGrade().toString() : null)
+                    .field(enrollment.getEnrollmentDate())
+                    .field(enrollment.getGradeDate())
+                    .field(enrollment.getStatus().toString())
+                    .endRecord();
+            }
+            return writer.getRecords();
+        }
+    }
+    
+    // Wait for every task, so no writer is still running when a failure is reported
+    private static long[] awaitAll(List<Future<Long>> tasks) throws IOException {
+        long[] results = new long[tasks.size()];
+        IOException failure = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                results[i] = tasks.get(i).get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                        ? (IOException) e.getCause()
+                        : new IOException("Export failed: " + e.getCause(), e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while exporting");
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+    
     @Override
     public void importAllData(Path importFolder) throws IOException {
-        if (!Files.exists(importFolder) || !Files.isDirectory(importFolder)) {
-            throw new IllegalArgumentException("Import folder does not exist: " + importFolder);
+        loadAllData(importFolder, false);
+    }
+    
+    @Override
+    public void restoreAllData(Path folder) throws IOException {
+        loadAllData(folder, true);
+    }
+    
+    // Rows go through the services, so their listeners (journal, reports, change tracking)
+    // see the import. Students and courses already present are updated in place, as
+    // enrollments refer to them; enrollments are put back exactly as exported.
+    private void loadAllData(Path folder, boolean replace) throws IOException {
+        if (studentService == null) {
+            throw new IllegalStateException("Importing all data needs the services; use the service constructor");
+        }
+        if (!Files.exists(folder) || !Files.isDirectory(folder)) {
+            throw new IllegalArgumentException("Import folder does not exist: " + folder);
+        }
+        Path studentsFile = folder.resolve("students.csv");
+        Path coursesFile = folder.resolve("courses.csv");
+        Path enrollmentsFile = folder.resolve("enrollments.csv");
+        if (replace) {
+            // Removing whatever a missing table would have held is never what a restore means
+            requireFile(studentsFile, "Student");
+            requireFile(coursesFile, "Course");
+            requireFile(enrollmentsFile, "Enrollment");
         }
         
-        // Import students if file exists
-        Path studentsFile = importFolder.resolve("students.csv");
+        Set<Long> studentIds = new HashSet<>();
         if (Files.exists(studentsFile)) {
-            List<Student> students = importStudentsFromCSV(studentsFile);
-            System.out.println("Imported " + students.size() + " students");
+            ImportResult result = streamImport(studentsFile, "Student", this::parseRestoredStudent, student -> {
+                    Journal.restoreStudent(studentService, student);
+                    studentIds.add(student.getId());
+                },
+                error -> System.err.println("Error parsing student line " + error.getLine() + ": " + error.getMessage()));
+            System.out.println("Imported " + result.getImported() + " students");
         }
         
-        // Import courses if file exists
-        Path coursesFile = importFolder.resolve("courses.csv");
+        Set<String> courseCodes = new HashSet<>();
         if (Files.exists(coursesFile)) {
-            List<Course> courses = importCoursesFromCSV(coursesFile);
-            System.out.println("Imported " + courses.size() + " courses");
+            ImportResult result = streamImport(coursesFile, "Course", this::parseCourse, course -> {
+                    Journal.restoreCourse(courseService, course);
+                    courseCodes.add(course.getCode());
+                },
+                error -> System.err.println("Error parsing course line " + error.getLine() + ": " + error.getMessage()));
+            System.out.println("Imported " + result.getImported() + " courses");
+        }
+        
+        Map<Long, Set<String>> enrolled = new HashMap<>(); // Course codes by student ID
+        if (Files.exists(enrollmentsFile)) {
+            ImportResult result = streamImport(enrollmentsFile, "Enrollment", this::parseEnrollment, enrollment -> {
+                    enrollmentService.importEnrollment(enrollment);
+                    enrolled.computeIfAbsent(enrollment.getStudent().getId(), id -> new HashSet<>())
+                        .add(enrollment.getCourse().getCode());
+                },
+                error -> System.err.println("Error parsing enrollment line " + error.getLine() + ": " + error.getMessage()));
+            System.out.println("Imported " + result.getImported() + " enrollments");
+        }
+        
+        if (replace) {
+            // Enrollments first, so no record is left pointing at a removed student or course
+            for (Enrollment enrollment : new ArrayList<>(enrollmentService.getAllEnrollmentsView())) {
+                Long studentId = enrollment.getStudent().getId();
+                String courseCode = enrollment.getCourse().getCode();
+                if (!enrolled.getOrDefault(studentId, Set.of()).contains(courseCode)) {
+                    enrollmentService.removeEnrollment(studentId, courseCode);
+                }
+            }
+            for (Course course : new ArrayList<>(courseService.findAllView())) {
+                if (!courseCodes.contains(course.getCode())) {
+                    courseService.delete(course.getCode());
+                }
+            }
+            for (Student student : new ArrayList<>(studentService.findAllView())) {
+                if (!studentIds.contains(student.getId())) {
+                    studentService.delete(student.getId());
+                }
+            }
+        }
+    }
+    
+    private static void requireFile(Path filePath, String kind) throws FileNotFoundException {
+        if (!Files.exists(filePath)) {
+            throw new FileNotFoundException(kind + " CSV file not found: " + filePath);
         }
     }
     
     // Private helper methods for CSV parsing
-    private Student parseStudentFromCSV(String csvLine) {
-        String[] fields = parseCSVLine(csvLine);
-        
+    private Student parseStudent(String[] fields) {
         if (fields.length < 4) {
             throw new IllegalArgumentException("Invalid student CSV format: insufficient fields");
         }
@@ -240,29 +504,79 @@ public class ImportExportServiceImpl implements ImportExportService {
             .build();
     }
     
-    private Course parseCourseFromCSV(String csvLine) {
-        String[] fields = parseCSVLine(csvLine);
-        
+    // Same as parseStudent, but the student keeps the ID in the first column
+    private Student parseRestoredStudent(String[] fields) {
+        return Person.restoreId(parseStudent(fields), parseId(fields[0]));
+    }
+    
+    // Expected format: EnrollmentID,StudentID,StudentRegNo,CourseCode,Grade,EnrollmentDate,GradeDate,Status
+    private Enrollment parseEnrollment(String[] fields) {
+        if (fields.length < 8) {
+            throw new IllegalArgumentException("Invalid enrollment CSV format: insufficient fields");
+        }
+        long studentId = parseId(fields[1]);
+        String courseCode = fields[3].trim();
+        Student student = studentService.findById(studentId)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown student ID: " + studentId));
+        Course course = courseService.findById(courseCode)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown course code: " + courseCode));
+        
+        return Enrollment.restore(parseId(fields[0]), student, course, parseGrade(fields[4].trim()),
+            EnrollmentStatus.valueOf(fields[7].trim().toUpperCase()),
+            LocalDateTime.parse(fields[5].trim(), DATE_FORMATTER),
+            fields[6].isBlank() ? null : LocalDateTime.parse(fields[6].trim(), DATE_FORMATTER));
+    }
+    
+    // Grades are exported by their display form, e.g. S+
+    private static Grade parseGrade(String field) {
+        if (field.isEmpty()) {
+            return null;
+        }
+        for (Grade grade : Grade.values()) {
+            if (grade.getDisplayGrade().equals(field) || grade.name().equals(field)) {
+                return grade;
+            }
+        }
+        throw new IllegalArgumentException("Invalid grade: " + field);
+    }
+    
+    private static long parseId(String field) {
+        try {
+            return Long.parseLong(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ID: " + field);
+        }
+    }
+    
+    private Course parseCourse(String[] fields) {
         if (fields.length < 6) {
             throw new IllegalArgumentException("Invalid course CSV format: insufficient fields");
         }
         
-        // Expected format: Code,Title,Credits,Instructor,Semester,Department,Active,CreatedAt
+        // Expected format: Code,Title,Credits,Instructor,Semester,Department,Active,CreatedAt,Capacity
+        // Capacity is optional; files written before it was exported mean unlimited
         String code = fields[0].trim();
         String title = fields[1].trim();
         int credits = Integer.parseInt(fields[2].trim());
         String instructor = fields[3].trim();
         Semester semester = Semester.valueOf(fields[4].trim().toUpperCase());
         String department = fields[5].trim();
+        int capacity = fields.length > 8 && !fields[8].isBlank() ? Integer.parseInt(fields[8].trim()) : 0;
         
-        return new Course.Builder()
+        // The builder interns title, instructor and department, so the per-row copies are dropped here
+        Course course = new Course.Builder()
             .code(code)
             .title(title)
             .credits(credits)
             .instructor(instructor)
             .semester(semester)
             .department(department)
+            .capacity(capacity)
             .build();
+        if (fields.length > 6 && !fields[6].isBlank()) {
+            course.setActive(Boolean.parseBoolean(fields[6].trim()));
+        }
+        return course;
     }
     
     private String formatStudentAsCSV(Student student) {
@@ -286,7 +600,8 @@ public class ImportExportServiceImpl implements ImportExportService {
             escapeCsvField(course.getSemester().toString()),
             escapeCsvField(course.getDepartment() != null ? course.getDepartment() : ""),
             escapeCsvField(String.valueOf(course.isActive())),
-            escapeCsvField(course.getCreatedAt().format(DATE_FORMATTER))
+            escapeCsvField(course.getCreatedAt().format(DATE_FORMATTER)),
+            escapeCsvField(String.valueOf(course.getCapacity()))
         );
     }
     
@@ -303,29 +618,6 @@ public class ImportExportServiceImpl implements ImportExportService {
         );
     }
     
-    private String[] parseCSVLine(String csvLine) {
-        List<String> fields = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
-        
-        // Simple CSV parser (for production, use a proper CSV library)
-        for (int i = 0; i < csvLine.length(); i++) {
-            char ch = csvLine.charAt(i);
-            
-            if (ch == '"') {
-                inQuotes = !inQuotes;
-            } else if (ch == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(ch);
-            }
-        }
-        
-        fields.add(currentField.toString()); // Add the last field
-        return fields.toArray(new String[0]);
-    }
-    
     private String escapeCsvField(String field) {
         if (field == null) {
             return "";
@@ -338,6 +630,7 @@ public class ImportExportServiceImpl implements ImportExportService {
         
         return field;
     }
+
 }
 
 // File: src/edu/ccrm/io/BackupService.java
@@ -351,6 +644,10 @@ import java.io.IOException;
  */
 public interface BackupService {
     String createBackup() throws IOException;
+    
+    // Only what changed since the previous backup; falls back to a full backup when there is none to build on
+    String createIncrementalBackup() throws IOException;
+    
     void restoreFromBackup(String backupName) throws IOException;
     List<String> listBackupFolders() throws IOException;
     boolean deleteBackup(String backupName) throws IOException;
@@ -372,18 +669,37 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * Backup service implementation demonstrating NIO.2 file operations
+ * Backup service implementation demonstrating NIO.2 file operations.
+ *
+ * Incremental backups hold only the rows changed since their parent backup, recorded
+ * by a ChangeTracker, and each backup names its chain back to the full base in a
+ * manifest (see BackupChain). Restoring one replays the base and every delta up to it.
  */
 public class BackupServiceImpl implements BackupService {
     
     private final AppConfig config;
     private final Path backupRootPath;
     private final ImportExportService importExportService;
+    private final ChangeTracker changes; // Null when every backup is full
+    private String chainHead; // Last backup taken while tracking: the parent of the next incremental one
     
     public BackupServiceImpl() {
+        this(new ImportExportServiceImpl(), null);
+    }
+    
+    public BackupServiceImpl(ImportExportService importExportService) {
+        this(importExportService, null);
+    }
+    
+    /**
+     * @param importExportService writes and reads the backup data; construct it with the services
+     * @param changes tracker attached to the same services, for incremental backups; may be null
+     */
+    public BackupServiceImpl(ImportExportService importExportService, ChangeTracker changes) {
         this.config = AppConfig.getInstance();
         this.backupRootPath = Paths.get(config.getBackupFolderPath());
-        this.importExportService = new ImportExportServiceImpl();
+        this.importExportService = Objects.requireNonNull(importExportService, "Import/export service cannot be null");
+        this.changes = changes;
         
         try {
             FileUtility.ensureDirectoryExists(backupRootPath);
@@ -394,26 +710,52 @@ public class BackupServiceImpl implements BackupService {
     
     @Override
     public String createBackup() throws IOException {
+        return writeBackup(null);
+    }
+    
+    @Override
+    public String createIncrementalBackup() throws IOException {
+        // Changes are tracked in memory, so the chain can only continue from a backup of this session
+        String parent = chainHead != null && Files.isDirectory(backupRootPath.resolve(chainHead)) ? chainHead : null;
+        return writeBackup(parent);
+    }
+    
+    // A full backup when parent is null, otherwise the changes since the parent
+    private synchronized String writeBackup(String parent) throws IOException {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String backupFolderName = "backup_" + timestamp;
-        Path backupFolder = backupRootPath.resolve(backupFolderName);
-        
-        // Create backup directory
-        Files.createDirectories(backupFolder);
+        Path backupFolder = createBackupFolder(timestamp);
+        String backupFolderName = backupFolder.getFileName().toString();
         
+        // Changes from here on go into the next backup; a failed one hands its changes back
+        ChangeTracker.ChangeSet drained = changes != null ? changes.drain() : null;
         try {
-            // Export all data to backup folder
-            importExportService.exportAllData(backupFolder);
+            List<String> chain = new ArrayList<>();
+            if (parent == null) {
+                // Export all data to backup folder
+                importExportService.exportAllData(backupFolder);
+            } else {
+                chain.addAll(BackupChain.read(backupRootPath.resolve(parent)));
+                writeChanges(backupFolder, drained);
+            }
+            chain.add(backupFolderName);
+            BackupChain.write(backupFolder, chain);
             
             // Create backup metadata
-            createBackupMetadata(backupFolder, timestamp);
+            String type = parent == null ? "Full" : "Incremental (base " + chain.get(0) + ", parent " + parent + ")";
+            createBackupMetadata(backupFolder, timestamp, type);
             
             // Create backup verification file
             createBackupVerification(backupFolder);
             
+            if (changes != null) {
+                chainHead = backupFolderName;
+            }
             return backupFolder.toString();
             
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
+            if (drained != null) {
+                changes.requeue(drained);
+            }
             // Cleanup on failure
             try {
                 FileUtility.deleteDirectory(backupFolder);
@@ -424,6 +766,34 @@ public class BackupServiceImpl implements BackupService {
         }
     }
     
+    // Two backups within the same second get a numbered folder instead of sharing one
+    private Path createBackupFolder(String timestamp) throws IOException {
+        Path backupFolder = backupRootPath.resolve("backup_" + timestamp);
+        for (int n = 1; Files.exists(backupFolder); n++) {
+            backupFolder = backupRootPath.resolve("backup_" + timestamp + "_" + n);
+        }
+        return Files.createDirectories(backupFolder);
+    }
+    
+    private void writeChanges(Path backupFolder, ChangeTracker.ChangeSet changed) throws IOException {
+        ImportExportServiceImpl.writeStudents(changes.changedStudents(changed), backupFolder.resolve("students.csv"));
+        ImportExportServiceImpl.writeCourses(changes.changedCourses(changed), backupFolder.resolve("courses.csv"));
+        ImportExportServiceImpl.writeEnrollments(changes.changedEnrollments(changed), backupFolder.resolve("enrollments.csv"));
+        
+        try (CSVChannelWriter writer = new CSVChannelWriter(backupFolder.resolve(BackupChain.DELETED))) {
+            writer.header(BackupChain.DELETED_HEADER);
+            for (Long id : changed.deletedStudents) {
+                writer.field(BackupChain.STUDENT).field(id).endRecord();
+            }
+            for (String code : changed.deletedCourses) {
+                writer.field(BackupChain.COURSE).field(code).endRecord();
+            }
+            for (Long id : changed.deletedEnrollments) {
+                writer.field(BackupChain.ENROLLMENT).field(id).endRecord();
+            }
+        }
+    }
+    
     @Override
     public void restoreFromBackup(String backupName) throws IOException {
         Path backupPath = backupRootPath.resolve(backupName);
@@ -432,22 +802,50 @@ public class BackupServiceImpl implements BackupService {
             throw new IllegalArgumentException("Backup not found: " + backupName);
         }
         
-        // Verify backup integrity
-        if (!verifyBackupIntegrity(backupPath)) {
-            throw new IOException("Backup integrity check failed for: " + backupName);
+        // Verify every backup the restore reads, base first
+        List<Path> chain = new ArrayList<>();
+        for (String name : BackupChain.read(backupPath)) {
+            Path folder = backupRootPath.resolve(name);
+            if (!Files.isDirectory(folder)) {
+                throw new IOException("Backup " + backupName + " builds on " + name + ", which is missing");
+            }
+            if (!verifyBackupIntegrity(folder)) {
+                throw new IOException("Backup integrity check failed for: " + name);
+            }
+            chain.add(folder);
         }
         
         try {
-            // Import data from backup
-            importExportService.importAllData(backupPath);
+            if (chain.size() == 1) {
+                importExportService.restoreAllData(backupPath);
+            } else {
+                restoreChain(chain, backupRootPath.resolve(".restore_" + backupName));
+            }
             
-            System.out.println("Successfully restored from backup: " + backupName);
+            System.out.println("Successfully restored from backup: " + backupName
+                + (chain.size() > 1 ? " (full backup " + chain.get(0).getFileName() + " and "
+                    + (chain.size() - 1) + " incremental)" : ""));
             
         } catch (IOException e) {
             throw new IOException("Error restoring from backup: " + e.getMessage(), e);
         }
     }
     
+    // Replay the base and deltas into full tables, then import those as from a full backup
+    private void restoreChain(List<Path> chain, Path replayFolder) throws IOException {
+        Files.createDirectories(replayFolder);
+        try {
+            BackupChain.replay(chain, replayFolder);
+            importExportService.restoreAllData(replayFolder);
+        } finally {
+            try {
+                FileUtility.deleteDirectory(replayFolder);
+            } catch (IOException deleteError) {
+                System.err.println("Error cleaning up restore folder: " + deleteError.getMessage());
+            }
+        }
+    }
+    
     @Override
     public List<String> listBackupFolders() throws IOException {
         if (!Files.exists(backupRootPath)) {
@@ -473,8 +871,19 @@ public class BackupServiceImpl implements BackupService {
             return false;
         }
         
+        // Later incremental backups cannot be restored without it
+        for (String other : listBackupFolders()) {
+            if (!other.equals(backupName) && BackupChain.read(backupRootPath.resolve(other)).contains(backupName)) {
+                System.err.println("Cannot delete backup " + backupName + ": backup " + other + " builds on it");
+                return false;
+            }
+        }
+        
         try {
             FileUtility.deleteDirectory(backupPath);
+            if (backupName.equals(chainHead)) {
+                chainHead = null;
+            }
             return true;
         } catch (IOException e) {
             System.err.println("Error deleting backup: " + e.getMessage());
@@ -493,7 +902,7 @@ public class BackupServiceImpl implements BackupService {
         return FileUtility.calculateDirectorySize(backupPath);
     }
     
-    private void createBackupMetadata(Path backupFolder, String timestamp) throws IOException {
+    private void createBackupMetadata(Path backupFolder, String timestamp, String type) throws IOException {
         Path metadataFile = backupFolder.resolve("backup_info.txt");
         
         try (var writer = Files.newBufferedWriter(metadataFile)) {
@@ -502,7 +911,7 @@ public class BackupServiceImpl implements BackupService {
             writer.write("Backup Created: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
             writer.write("Backup ID: " + timestamp + "\n");
             writer.write("Application Version: 1.0.0\n");
-            writer.write("Backup Type: Full\n");
+            writer.write("Backup Type: " + type + "\n");
             writer.write("Data Folder: " + config.getDataFolderPath() + "\n");
             
             // List files in backup
@@ -602,8 +1011,6 @@ public class BackupServiceImpl implements BackupService {
 package edu.ccrm.io;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Utility class for robust CSV parsing
@@ -614,14 +1021,9 @@ public final class CSVParser {
         throw new AssertionError("Utility class");
     }
     
-    // Pattern for CSV field parsing (handles quoted fields with embedded commas)
-    private static final Pattern CSV_PATTERN = Pattern.compile(
-        "\"([^\"]*(?:\"\"[^\"]*)*)\"|([^,]*)"
-    );
-    
     /**
      * Parse a CSV line into fields, handling quoted fields properly
-     * @param csvLine The CSV line to parse
+     * @param csvLine The CSV line to parse; if it holds several records only the first is returned
      * @return Array of fields
      */
     public static String[] parseLine(String csvLine) {
@@ -629,22 +1031,11 @@ public final class CSVParser {
             return new String[0];
         }
         
-        List<String> fields = new ArrayList<>();
-        Matcher matcher = CSV_PATTERN.matcher(csvLine);
-        
-        while (matcher.find()) {
-            String quotedField = matcher.group(1);
-            String unquotedField = matcher.group(2);
-            
-            if (quotedField != null) {
-                // Handle escaped quotes in quoted fields
-                fields.add(quotedField.replace("\"\"", "\""));
-            } else {
-                fields.add(unquotedField != null ? unquotedField : "");
-            }
-        }
-        
-        return fields.toArray(new String[0]);
+        List<String[]> records = new ArrayList<>(1);
+        CSVTokenizer tokenizer = new CSVTokenizer(CSVTokenizer.records(records::add));
+        tokenizer.feed(csvLine);
+        tokenizer.finish();
+        return records.isEmpty() ? new String[0] : records.get(0);
     }
     
     /**
@@ -5,7 +5,11 @@ import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Enrollment;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.io.IOException;
 
 /**
@@ -16,12 +20,45 @@ public interface ImportExportService {
     List<Student> importStudentsFromCSV(Path filePath) throws IOException;
     List<Course> importCoursesFromCSV(Path filePath) throws IOException;
     
+    // Streaming import: each parsed record goes straight to the sink, failures to the error channel
+    ImportResult importStudentsFromCSV(Path filePath, ImportSink<? super Student> sink,
+                                       Consumer<? super ImportError> errors) throws IOException;
+    
+    // Parallel import for large files: chunks parsed concurrently, records delivered to the sink in file order
+    ImportResult importStudentsFromCSVParallel(Path filePath, ImportSink<? super Student> sink,
+                                               Consumer<? super ImportError> errors) throws IOException;
+    ImportResult importCoursesFromCSVParallel(Path filePath, ImportSink<? super Course> sink,
+                                              Consumer<? super ImportError> errors) throws IOException;
+    ImportResult importCoursesFromCSV(Path filePath, ImportSink<? super Course> sink,
+                                      Consumer<? super ImportError> errors) throws IOException;
+    
     // Export operations
     void exportStudentsToCSV(List<Student> students, Path filePath) throws IOException;
     void exportCoursesToCSV(List<Course> courses, Path filePath) throws IOException;
     void exportEnrollmentsToCSV(List<Enrollment> enrollments, Path filePath) throws IOException;
     
-    // Bulk operations
+    // Compact binary format: smaller than CSV and much faster to write and read back.
+    // Students keep their IDs on import, so exported enrollments still refer to them.
+    // Imports hand records to the sink only once the whole file has been read and its
+    // record count checked, so a truncated or damaged file imports nothing.
+    void exportStudentsToBinary(Collection<Student> students, Path filePath) throws IOException;
+    void exportCoursesToBinary(Collection<Course> courses, Path filePath) throws IOException;
+    void exportEnrollmentsToBinary(Collection<Enrollment> enrollments, Path filePath) throws IOException;
+    ImportResult importStudentsFromBinary(Path filePath, ImportSink<? super Student> sink,
+                                          Consumer<? super ImportError> errors) throws IOException;
+    ImportResult importCoursesFromBinary(Path filePath, ImportSink<? super Course> sink,
+                                         Consumer<? super ImportError> errors) throws IOException;
+    
+    // Enrollments are attached to their student and course through the lookups, e.g. studentService::findById
+    ImportResult importEnrollmentsFromBinary(Path filePath, Function<Long, Optional<Student>> students,
+                                             Function<String, Optional<Course>> courses,
+                                             ImportSink<? super Enrollment> sink,
+                                             Consumer<? super ImportError> errors) throws IOException;
+    
+    // Bulk operations on the services the implementation was built with. exportAllData writes
+    // their live data; importAllData adds or updates the folder's records, keeping their IDs;
+    // restoreAllData also removes everything the folder does not hold, as for a backup restore.
     void exportAllData(Path exportFolder) throws IOException;
     void importAllData(Path importFolder) throws IOException;
+    void restoreAllData(Path folder) throws IOException;
 }
@@ -0,0 +1,318 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.*;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Shared validation for EnrollmentService implementations.
+ * Subclasses own the storage and decide how the checks are made atomic.
+ */
+public abstract class AbstractEnrollmentService implements EnrollmentService {
+    protected final StudentService studentService;
+    protected final CourseService courseService;
+    protected final SeatAllocator seatAllocator;
+    private final List<EnrollmentListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile QueryEngine<Enrollment> queryEngine;
+    
+    // Business rules
+    protected static final int MAX_CREDITS_PER_SEMESTER = 18;
+    
+    protected AbstractEnrollmentService(StudentService studentService, CourseService courseService) {
+        this.studentService = Objects.requireNonNull(studentService);
+        this.courseService = Objects.requireNonNull(courseService);
+        this.seatAllocator = new SeatAllocator(this::seatsHeld);
+    }
+    
+    // Validate student exists and is active
+    protected Student requireActiveStudent(Long studentId) throws StudentNotFoundException {
+        Optional<Student> optStudent = studentService.findStudentById(studentId);
+        if (optStudent.isEmpty()) {
+            throw new StudentNotFoundException("Student with ID " + studentId + " not found");
+        }
+        
+        Student student = optStudent.get();
+        if (student.getStatus() != StudentStatus.ACTIVE) {
+            throw new IllegalStateException("Cannot enroll inactive student");
+        }
+        return student;
+    }
+    
+    // Validate course exists and is active
+    protected Course requireActiveCourse(String courseCode) throws CourseNotFoundException {
+        Optional<Course> optCourse = courseService.findCourseByCode(courseCode);
+        if (optCourse.isEmpty()) {
+            throw new CourseNotFoundException("Course with code " + courseCode + " not found");
+        }
+        
+        Course course = optCourse.get();
+        if (!course.isActive()) {
+            throw new IllegalStateException("Cannot enroll in inactive course");
+        }
+        return course;
+    }
+    
+    protected static void checkCreditLimit(int currentCredits, Course course) throws MaxCreditLimitExceededException {
+        if (currentCredits + course.getCredits() > MAX_CREDITS_PER_SEMESTER) {
+            throw new MaxCreditLimitExceededException(
+                String.format("Enrollment would exceed credit limit. Current: %d, Limit: %d",
+                    currentCredits + course.getCredits(), MAX_CREDITS_PER_SEMESTER));
+        }
+    }
+    
+    /**
+     * Apply the duplicate, credit-limit and seat rules for a validated student and course,
+     * then store the enrollment. Concurrent implementations call this with the student locked.
+     */
+    protected abstract void enrollResolved(Student student, Course course)
+        throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException;
+    
+    @Override
+    public List<EnrollResult> enrollBatch(Collection<EnrollRequest> requests) {
+        Objects.requireNonNull(requests, "Requests cannot be null");
+        List<BatchItem> items = new ArrayList<>(requests.size());
+        Map<Long, List<BatchItem>> byStudent = new LinkedHashMap<>();
+        for (EnrollRequest request : requests) {
+            BatchItem item = new BatchItem(request);
+            items.add(item);
+            byStudent.computeIfAbsent(request.getStudentId(), id -> new ArrayList<>()).add(item);
+        }
+        
+        // Each distinct course is looked up and validated once for the whole batch
+        Map<String, Object> courses = new HashMap<>(); // Course, or the exception its lookup threw
+        
+        for (Map.Entry<Long, List<BatchItem>> group : byStudent.entrySet()) {
+            Student student;
+            try {
+                student = requireActiveStudent(group.getKey());
+            } catch (StudentNotFoundException | RuntimeException e) {
+                group.getValue().forEach(item -> item.fail(e));
+                continue;
+            }
+            
+            List<BatchItem> ready = new ArrayList<>(group.getValue().size());
+            for (BatchItem item : group.getValue()) {
+                Object course = courses.computeIfAbsent(item.request.getCourseCode(), this::resolveCourse);
+                if (course instanceof Course) {
+                    item.course = (Course) course;
+                    ready.add(item);
+                } else {
+                    item.fail((Exception) course);
+                }
+            }
+            enrollGroup(student, ready);
+        }
+        
+        List<EnrollResult> results = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            results.add(item.result);
+        }
+        return results;
+    }
+    
+    private Object resolveCourse(String courseCode) {
+        try {
+            return requireActiveCourse(courseCode);
+        } catch (CourseNotFoundException | RuntimeException e) {
+            return e;
+        }
+    }
+    
+    /**
+     * Enroll one student in every course of a batch group, in request order.
+     * Concurrent implementations override this to take the student's lock once for the group.
+     */
+    protected void enrollGroup(Student student, List<BatchItem> items) {
+        for (BatchItem item : items) {
+            try {
+                enrollResolved(student, item.course);
+                item.result = EnrollResult.success(item.request);
+            } catch (CCRMException | RuntimeException e) {
+                item.fail(e);
+            }
+        }
+    }
+    
+    // Batch item with its resolved course and, once processed, its result
+    protected static final class BatchItem {
+        private final EnrollRequest request;
+        private Course course;
+        private EnrollResult result;
+        
+        private BatchItem(EnrollRequest request) {
+            this.request = request;
+        }
+        
+        private void fail(Exception e) {
+            result = EnrollResult.failure(request, e);
+        }
+    }
+    
+    // Take a seat or put the student on the course's waitlist
+    protected void reserveSeat(Student student, Course course) throws CourseFullException {
+        if (!seatAllocator.tryReserve(course)) {
+            seatAllocator.joinWaitlist(course, student.getId());
+            throw new CourseFullException(String.format("Course %s is full (capacity %d); student %d added to waitlist",
+                course.getCode(), course.getCapacity(), student.getId()));
+        }
+    }
+    
+    // Return a seat and hand it to the first eligible waitlisted student.
+    // Callers must not hold a student lock: promotion enrolls other students.
+    protected void releaseSeat(Course course) {
+        seatAllocator.release(course);
+        
+        while (seatAllocator.hasAvailableSeats(course)) {
+            Optional<Long> next = seatAllocator.pollWaitlist(course.getCode());
+            if (next.isEmpty()) {
+                break;
+            }
+            try {
+                enrollStudent(next.get(), course.getCode());
+            } catch (CourseFullException e) {
+                // Seat taken by a concurrent enroll; the student keeps their place in line
+                seatAllocator.requeueFirst(course, next.get());
+                break;
+            } catch (CCRMException | RuntimeException e) {
+                // Student is no longer eligible (inactive, over the credit limit...); try the next one
+            }
+        }
+    }
+    
+    // Grading keeps the seat taken, so every enrollment but a withdrawn one holds one.
+    // Live changes, restores and ledger seeding all go by this rule.
+    protected static boolean holdsSeat(EnrollmentStatus status) {
+        return status != EnrollmentStatus.WITHDRAWN;
+    }
+    
+    // Seats held in a course, used to seed its ledger
+    private int seatsHeld(String courseCode) {
+        int held = 0;
+        for (Enrollment enrollment : getCourseEnrollments(courseCode)) {
+            if (holdsSeat(enrollment.getStatus())) {
+                held++;
+            }
+        }
+        return held;
+    }
+    
+    // Seat and student bookkeeping for an enrollment put back by restoreEnrollment
+    protected void applyRestored(Enrollment enrollment) {
+        if (holdsSeat(enrollment.getStatus())) {
+            seatAllocator.occupy(enrollment.getCourse());
+            enrollment.getStudent().addCourse(enrollment.getCourse().getCode());
+        }
+    }
+    
+    // Undo applyRestored for a record replaced by restoreEnrollment or dropped by discardEnrollment
+    protected void revertRestored(Enrollment enrollment) {
+        if (holdsSeat(enrollment.getStatus())) {
+            seatAllocator.release(enrollment.getCourse());
+            enrollment.getStudent().removeCourse(enrollment.getCourse().getCode());
+        }
+    }
+    
+    @Override
+    public void importEnrollment(Enrollment enrollment) {
+        Optional<Enrollment> previous = findEnrollment(enrollment.getStudent().getId(), enrollment.getCourse().getCode());
+        restoreEnrollment(enrollment);
+        if (previous.isPresent()) {
+            fireUpdated(enrollment, previous.get().getGrade(), previous.get().getStatus());
+        } else {
+            fireEnrolled(enrollment);
+        }
+    }
+    
+    @Override
+    public boolean removeEnrollment(Long studentId, String courseCode) {
+        Optional<Enrollment> previous = findEnrollment(studentId, courseCode);
+        if (previous.isEmpty() || !discardEnrollment(studentId, courseCode)) {
+            return false;
+        }
+        fireUnenrolled(previous.get());
+        return true;
+    }
+    
+    // Single-threaded implementations have no concurrent changes to hold off
+    @Override
+    public <T, X extends Exception> T whilePaused(PausedWork<T, X> work) throws X {
+        return work.run();
+    }
+    
+    @Override
+    public void addEnrollmentListener(EnrollmentListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+    
+    @Override
+    public void removeEnrollmentListener(EnrollmentListener listener) {
+        listeners.remove(listener);
+    }
+    
+    protected void fireEnrolled(Enrollment enrollment) {
+        for (EnrollmentListener listener : listeners) {
+            listener.enrolled(enrollment);
+        }
+    }
+    
+    protected void fireUnenrolled(Enrollment enrollment) {
+        for (EnrollmentListener listener : listeners) {
+            listener.unenrolled(enrollment);
+        }
+    }
+    
+    protected void fireUpdated(Enrollment enrollment, Grade previousGrade, EnrollmentStatus previousStatus) {
+        for (EnrollmentListener listener : listeners) {
+            listener.updated(enrollment, previousGrade, previousStatus);
+        }
+    }
+    
+    @Override
+    public int getAvailableSeats(String courseCode) {
+        return courseService.findCourseByCode(courseCode)
+            .map(seatAllocator::availableSeats)
+            .orElse(0);
+    }
+    
+    @Override
+    public List<Long> getWaitlist(String courseCode) {
+        return seatAllocator.getWaitlist(courseCode);
+    }
+    
+    // Typed queries, served from the by-student and by-course indexes where possible
+    
+    @Override
+    public List<Enrollment> query(Query<Enrollment> query) {
+        return queryEngine().execute(query);
+    }
+    
+    @Override
+    public QueryPlan<Enrollment> explain(Query<Enrollment> query) {
+        return queryEngine().plan(query);
+    }
+    
+    private QueryEngine<Enrollment> queryEngine() {
+        // Built on first use: the subclass's index doesn't exist yet while this constructor runs
+        QueryEngine<Enrollment> engine = queryEngine;
+        if (engine == null) {
+            engine = new QueryEngine<Enrollment>("enrollments", this::getAllEnrollmentsView, this::enrollmentCount)
+                .addAccessPath(QueryEngine.valueLookup("enrollments", QueryFields.Enrollments.STUDENT_ID,
+                    this::getStudentEnrollments))
+                .addAccessPath(QueryEngine.valueLookup("enrollments", QueryFields.Enrollments.COURSE_CODE,
+                    this::getCourseEnrollments));
+            queryEngine = engine;
+        }
+        return engine;
+    }
+    
+    protected long enrollmentCount() {
+        return getAllEnrollmentsView().size();
+    }
+    
+    protected static EnrollmentNotFoundException enrollmentNotFound(Long studentId, String courseCode) {
+        return new EnrollmentNotFoundException("Enrollment not found for student " + studentId +
+            " in course " + courseCode);
+    }
+}
@@ -0,0 +1,201 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.*;
+
+import java.util.*;
+
+/**
+ * Single-threaded enrollment service over a ColumnarEnrollmentStore, for large
+ * historical datasets. Enrollments handed out are snapshots of their row; every
+ * change goes through this service. GPA and credit checks are computed from the
+ * student's rows on demand rather than kept as running totals.
+ */
+public class ColumnarEnrollmentServiceImpl extends AbstractEnrollmentService {
+    private final ColumnarEnrollmentStore enrollments;
+    
+    public ColumnarEnrollmentServiceImpl(StudentService studentService, CourseService courseService) {
+        this(studentService, courseService, 1024);
+    }
+    
+    public ColumnarEnrollmentServiceImpl(StudentService studentService, CourseService courseService,
+                                         int expectedEnrollments) {
+        super(studentService, courseService);
+        this.enrollments = new ColumnarEnrollmentStore(expectedEnrollments);
+        
+        // Credits are cached per course for the aggregate loops
+        courseService.addCourseListener(new PersistenceListener<Course, String>() {
+            @Override
+            public void updated(Course course) {
+                enrollments.refreshCourse(course);
+            }
+        });
+    }
+    
+    @Override
+    public void enrollStudent(Long studentId, String courseCode)
+        throws StudentNotFoundException, CourseNotFoundException,
+               DuplicateEnrollmentException, MaxCreditLimitExceededException,
+               CourseFullException {
+        
+        Student student = requireActiveStudent(studentId);
+        Course course = requireActiveCourse(courseCode);
+        enrollResolved(student, course);
+    }
+    
+    @Override
+    protected void enrollResolved(Student student, Course course)
+        throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+        
+        Long studentId = student.getId();
+        String courseCode = course.getCode();
+        if (enrollments.contains(studentId, courseCode)) {
+            throw new DuplicateEnrollmentException("Student is already enrolled in course " + courseCode);
+        }
+        
+        checkCreditLimit(enrollments.enrolledCredits(studentId), course);
+        reserveSeat(student, course);
+        
+        Enrollment enrollment = new Enrollment(student, course);
+        enrollments.add(enrollment);
+        student.addCourse(courseCode);
+        fireEnrolled(enrollment);
+    }
+    
+    @Override
+    public void unenrollStudent(Long studentId, String courseCode) throws EnrollmentNotFoundException {
+        Enrollment enrollment = enrollments.find(studentId, courseCode)
+            .orElseThrow(() -> enrollmentNotFound(studentId, courseCode));
+        
+        Grade previousGrade = enrollment.getGrade();
+        EnrollmentStatus previousStatus = enrollment.getStatus();
+        boolean seatFreed = holdsSeat(previousStatus);
+        
+        boolean kept = enrollment.hasGrade();
+        if (kept) {
+            enrollment.withdraw(); // Mark as withdrawn but keep record
+            enrollments.update(enrollment);
+        } else {
+            enrollments.remove(enrollment);
+        }
+        
+        enrollment.getStudent().removeCourse(courseCode);
+        if (kept) {
+            fireUpdated(enrollment, previousGrade, previousStatus);
+        } else {
+            fireUnenrolled(enrollment);
+        }
+        
+        if (seatFreed) {
+            releaseSeat(enrollment.getCourse());
+        }
+    }
+    
+    @Override
+    public void recordGrade(Long studentId, String courseCode, Grade grade) throws EnrollmentNotFoundException {
+        Enrollment enrollment = enrollments.find(studentId, courseCode)
+            .orElseThrow(() -> enrollmentNotFound(studentId, courseCode));
+        
+        Grade previousGrade = enrollment.getGrade();
+        EnrollmentStatus previousStatus = enrollment.getStatus();
+        enrollment.assignGrade(grade); // A rejected grade leaves the stored row untouched
+        enrollments.update(enrollment);
+        fireUpdated(enrollment, previousGrade, previousStatus);
+    }
+    
+    @Override
+    public void updateGrade(Long studentId, String courseCode, Grade grade) throws EnrollmentNotFoundException {
+        Enrollment enrollment = enrollments.find(studentId, courseCode)
+            .orElseThrow(() -> enrollmentNotFound(studentId, courseCode));
+        
+        Grade previousGrade = enrollment.getGrade();
+        EnrollmentStatus previousStatus = enrollment.getStatus();
+        enrollment.updateGrade(grade);
+        enrollments.update(enrollment);
+        fireUpdated(enrollment, previousGrade, previousStatus);
+    }
+    
+    @Override
+    public void restoreEnrollment(Enrollment enrollment) {
+        discardEnrollment(enrollment.getStudent().getId(), enrollment.getCourse().getCode());
+        enrollments.add(enrollment);
+        applyRestored(enrollment);
+    }
+    
+    @Override
+    public boolean discardEnrollment(Long studentId, String courseCode) {
+        Optional<Enrollment> existing = enrollments.find(studentId, courseCode);
+        if (existing.isEmpty()) {
+            return false;
+        }
+        enrollments.remove(existing.get());
+        revertRestored(existing.get());
+        return true;
+    }
+    
+    @Override
+    public Optional<Enrollment> findEnrollment(Long studentId, String courseCode) {
+        return enrollments.find(studentId, courseCode);
+    }
+    
+    @Override
+    public List<Enrollment> getStudentEnrollments(Long studentId) {
+        return enrollments.forStudent(studentId);
+    }
+    
+    @Override
+    public List<Enrollment> getCourseEnrollments(String courseCode) {
+        return enrollments.forCourse(courseCode);
+    }
+    
+    @Override
+    public List<Enrollment> getAllEnrollments() {
+        return new ArrayList<>(enrollments.all());
+    }
+    
+    @Override
+    public Collection<Enrollment> getAllEnrollmentsView() {
+        return enrollments.all();
+    }
+    
+    @Override
+    protected long enrollmentCount() {
+        return enrollments.size();
+    }
+    
+    @Override
+    public boolean isStudentEnrolled(Long studentId, String courseCode) {
+        return enrollments.contains(studentId, courseCode);
+    }
+    
+    @Override
+    public int getStudentCreditHours(Long studentId) {
+        return enrollments.enrolledCredits(studentId);
+    }
+    
+    @Override
+    public double calculateStudentGPA(Long studentId) {
+        return enrollments.gpa(studentId);
+    }
+    
+    /**
+     * GPA of every student with graded credits, from one scan of the store
+     */
+    public Map<Long, Double> calculateAllStudentGPAs() {
+        return enrollments.gpaByStudent();
+    }
+    
+    /**
+     * Graded enrollments per grade; grades nobody holds are left out
+     */
+    public Map<Grade, Long> getGradeDistribution() {
+        long[] counts = enrollments.gradeCounts();
+        Map<Grade, Long> distribution = new EnumMap<>(Grade.class);
+        for (Grade grade : Grade.values()) {
+            if (counts[grade.ordinal()] > 0) {
+                distribution.put(grade, counts[grade.ordinal()]);
+            }
+        }
+        return distribution;
+    }
+}
@@ -0,0 +1,414 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Enrollments stored column by column in primitive arrays: one slot per row for the ID,
+ * student and course (as dense indexes into per-student and per-course dictionaries),
+ * grade and status ordinals, and timestamps as epoch microseconds. A row costs about
+ * 35 bytes plus its place in the by-student and by-course row lists, against several
+ * hundred for an Enrollment object and its index entries.
+ *
+ * Reads materialize a fresh Enrollment per row; changing it does not change the store,
+ * so write it back with update(). Aggregates (GPA, grade counts) run over the columns
+ * without materializing anything. Removed rows are tombstoned and compacted away in bulk,
+ * which keeps rows in insertion order. Not thread-safe.
+ */
+public class ColumnarEnrollmentStore {
+    private static final byte NO_GRADE = -1;
+    private static final byte REMOVED = -1;      // Status of a tombstoned row
+    static final long NO_TIME = Long.MIN_VALUE;
+    private static final int MIN_COMPACTION = 1024;
+    
+    private static final Grade[] GRADES = Grade.values();
+    private static final EnrollmentStatus[] STATUSES = EnrollmentStatus.values();
+    private static final double[] GRADE_POINTS = new double[GRADES.length];
+    private static final boolean[] COUNTS_TOWARDS_GPA = new boolean[GRADES.length];
+    private static final byte ENROLLED = (byte) EnrollmentStatus.ENROLLED.ordinal();
+    
+    static {
+        for (Grade grade : GRADES) {
+            GRADE_POINTS[grade.ordinal()] = grade.getGradePoints();
+            COUNTS_TOWARDS_GPA[grade.ordinal()] = grade != Grade.W && grade != Grade.I;
+        }
+    }
+    
+    // Row columns; rows [0, rowCount) are in use, removed ones included
+    private long[] ids;
+    private int[] studentRefs;
+    private int[] courseRefs;
+    private byte[] grades;
+    private byte[] statuses;
+    private long[] enrolledAt;
+    private long[] gradedAt;
+    private int rowCount;
+    private int removedCount;
+    
+    // Dictionaries, one entry per distinct student or course ever stored
+    private final Map<Long, Integer> studentRefsById = new HashMap<>();
+    private Student[] students = new Student[16];
+    private int studentCount;
+    private final Map<String, Integer> courseRefsByCode = new HashMap<>();
+    private Course[] courses = new Course[16];
+    private int[] courseCredits = new int[16]; // Read by the aggregate loops instead of the Course
+    private int courseCount;
+    
+    private final RowLists byStudent = new RowLists();
+    private final RowLists byCourse = new RowLists();
+    
+    public ColumnarEnrollmentStore() {
+        this(1024);
+    }
+    
+    public ColumnarEnrollmentStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.ids = new long[capacity];
+        this.studentRefs = new int[capacity];
+        this.courseRefs = new int[capacity];
+        this.grades = new byte[capacity];
+        this.statuses = new byte[capacity];
+        this.enrolledAt = new long[capacity];
+        this.gradedAt = new long[capacity];
+    }
+    
+    /**
+     * Append an enrollment
+     * @return false if an enrollment for the same student and course is already stored
+     */
+    public boolean add(Enrollment enrollment) {
+        int student = studentRef(enrollment.getStudent());
+        int course = courseRef(enrollment.getCourse());
+        if (rowFor(student, course) >= 0) {
+            return false;
+        }
+        
+        if (rowCount == ids.length) {
+            grow();
+        }
+        int row = rowCount++;
+        ids[row] = enrollment.getId();
+        studentRefs[row] = student;
+        courseRefs[row] = course;
+        enrolledAt[row] = toEpochMicros(enrollment.getEnrollmentDate());
+        write(row, enrollment);
+        byStudent.add(student, row);
+        byCourse.add(course, row);
+        return true;
+    }
+    
+    /**
+     * Write back an enrollment's grade, status and grade date
+     * @return false if no enrollment for its student and course is stored
+     */
+    public boolean update(Enrollment enrollment) {
+        int row = findRow(enrollment.getStudent().getId(), enrollment.getCourse().getCode());
+        if (row < 0) {
+            return false;
+        }
+        write(row, enrollment);
+        return true;
+    }
+    
+    private void write(int row, Enrollment enrollment) {
+        grades[row] = enrollment.hasGrade() ? (byte) enrollment.getGrade().ordinal() : NO_GRADE;
+        statuses[row] = (byte) enrollment.getStatus().ordinal();
+        gradedAt[row] = toEpochMicros(enrollment.getGradeDate());
+    }
+    
+    /**
+     * @return true if the enrollment was stored
+     */
+    public boolean remove(Enrollment enrollment) {
+        int row = findRow(enrollment.getStudent().getId(), enrollment.getCourse().getCode());
+        if (row < 0) {
+            return false;
+        }
+        byStudent.remove(studentRefs[row], row);
+        byCourse.remove(courseRefs[row], row);
+        grades[row] = NO_GRADE; // Aggregate loops skip the row without checking its status
+        statuses[row] = REMOVED;
+        removedCount++;
+        if (removedCount >= MIN_COMPACTION && removedCount > rowCount / 2) {
+            compact();
+        }
+        return true;
+    }
+    
+    public Optional<Enrollment> find(Long studentId, String courseCode) {
+        if (studentId == null || courseCode == null) {
+            return Optional.empty();
+        }
+        int row = findRow(studentId, courseCode);
+        return row >= 0 ? Optional.of(materialize(row)) : Optional.empty();
+    }
+    
+    public boolean contains(Long studentId, String courseCode) {
+        return studentId != null && courseCode != null && findRow(studentId, courseCode) >= 0;
+    }
+    
+    public List<Enrollment> forStudent(Long studentId) {
+        Integer student = studentRefsById.get(studentId);
+        return student != null ? materialize(byStudent, student) : new ArrayList<>();
+    }
+    
+    public List<Enrollment> forCourse(String courseCode) {
+        Integer course = courseRefsByCode.get(courseCode);
+        return course != null ? materialize(byCourse, course) : new ArrayList<>();
+    }
+    
+    /**
+     * Read-only live view of every stored enrollment in insertion order, materialized
+     * one row at a time as it is iterated
+     */
+    public Collection<Enrollment> all() {
+        return new AbstractCollection<Enrollment>() {
+            @Override
+            public Iterator<Enrollment> iterator() {
+                return new Iterator<Enrollment>() {
+                    private int next = skipRemoved(0);
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return next < rowCount;
+                    }
+                    
+                    @Override
+                    public Enrollment next() {
+                        if (next >= rowCount) {
+                            throw new NoSuchElementException();
+                        }
+                        Enrollment enrollment = materialize(next);
+                        next = skipRemoved(next + 1);
+                        return enrollment;
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return ColumnarEnrollmentStore.this.size();
+            }
+        };
+    }
+    
+    private int skipRemoved(int row) {
+        while (row < rowCount && statuses[row] == REMOVED) {
+            row++;
+        }
+        return row;
+    }
+    
+    public int size() {
+        return rowCount - removedCount;
+    }
+    
+    /**
+     * Pick up a course's new credit value; aggregates use the current credits of each course
+     */
+    public void refreshCourse(Course course) {
+        Integer ref = courseRefsByCode.get(course.getCode());
+        if (ref != null) {
+            courses[ref] = course;
+            courseCredits[ref] = course.getCredits();
+        }
+    }
+    
+    // Aggregates, as loops over the primitive columns
+    
+    /**
+     * Credits of the student's enrollments still in ENROLLED status
+     */
+    public int enrolledCredits(Long studentId) {
+        Integer student = studentRefsById.get(studentId);
+        if (student == null) {
+            return 0;
+        }
+        int[] rows = byStudent.rows(student);
+        int credits = 0;
+        for (int i = 0, n = byStudent.size(student); i < n; i++) {
+            int row = rows[i];
+            if (statuses[row] == ENROLLED) {
+                credits += courseCredits[courseRefs[row]];
+            }
+        }
+        return credits;
+    }
+    
+    /**
+     * Credit-weighted GPA over the student's graded enrollments, excluding I and W
+     */
+    public double gpa(Long studentId) {
+        Integer student = studentRefsById.get(studentId);
+        if (student == null) {
+            return 0.0;
+        }
+        int[] rows = byStudent.rows(student);
+        double points = 0.0;
+        int credits = 0;
+        for (int i = 0, n = byStudent.size(student); i < n; i++) {
+            int row = rows[i];
+            byte grade = grades[row];
+            if (grade >= 0 && COUNTS_TOWARDS_GPA[grade]) {
+                int hours = courseCredits[courseRefs[row]];
+                points += GRADE_POINTS[grade] * hours;
+                credits += hours;
+            }
+        }
+        return credits > 0 ? points / credits : 0.0;
+    }
+    
+    /**
+     * GPA of every student with graded credits, in one pass over all rows
+     */
+    public Map<Long, Double> gpaByStudent() {
+        double[] points = new double[studentCount];
+        int[] credits = new int[studentCount];
+        for (int row = 0; row < rowCount; row++) {
+            byte grade = grades[row];
+            if (grade >= 0 && COUNTS_TOWARDS_GPA[grade]) {
+                int student = studentRefs[row];
+                int hours = courseCredits[courseRefs[row]];
+                points[student] += GRADE_POINTS[grade] * hours;
+                credits[student] += hours;
+            }
+        }
+        
+        Map<Long, Double> gpas = new HashMap<>();
+        for (int student = 0; student < studentCount; student++) {
+            if (credits[student] > 0) {
+                gpas.put(students[student].getId(), points[student] / credits[student]);
+            }
+        }
+        return gpas;
+    }
+    
+    /**
+     * Number of graded enrollments per grade, indexed by Grade ordinal
+     */
+    public long[] gradeCounts() {
+        long[] counts = new long[GRADES.length];
+        for (int row = 0; row < rowCount; row++) {
+            byte grade = grades[row];
+            if (grade >= 0) {
+                counts[grade]++;
+            }
+        }
+        return counts;
+    }
+    
+    // Row lookup via the student's rows, which are few, so no (student, course) hash index is needed
+    private int findRow(Long studentId, String courseCode) {
+        Integer student = studentRefsById.get(studentId);
+        Integer course = courseRefsByCode.get(courseCode);
+        return student != null && course != null ? rowFor(student, course) : -1;
+    }
+    
+    private int rowFor(int student, int course) {
+        int[] rows = byStudent.rows(student);
+        for (int i = 0, n = byStudent.size(student); i < n; i++) {
+            if (courseRefs[rows[i]] == course) {
+                return rows[i];
+            }
+        }
+        return -1;
+    }
+    
+    private Enrollment materialize(int row) {
+        return Enrollment.rebuild(ids[row], students[studentRefs[row]], courses[courseRefs[row]],
+            grades[row] >= 0 ? GRADES[grades[row]] : null, STATUSES[statuses[row]],
+            fromEpochMicros(enrolledAt[row]), fromEpochMicros(gradedAt[row]));
+    }
+    
+    private List<Enrollment> materialize(RowLists lists, int ref) {
+        int[] rows = lists.rows(ref);
+        int n = lists.size(ref);
+        List<Enrollment> enrollments = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            enrollments.add(materialize(rows[i]));
+        }
+        return enrollments;
+    }
+    
+    private int studentRef(Student student) {
+        Integer ref = studentRefsById.get(student.getId());
+        if (ref != null) {
+            return ref;
+        }
+        if (studentCount == students.length) {
+            students = Arrays.copyOf(students, studentCount * 2);
+        }
+        students[studentCount] = student;
+        studentRefsById.put(student.getId(), studentCount);
+        return studentCount++;
+    }
+    
+    private int courseRef(Course course) {
+        Integer ref = courseRefsByCode.get(course.getCode());
+        if (ref != null) {
+            return ref;
+        }
+        if (courseCount == courses.length) {
+            courses = Arrays.copyOf(courses, courseCount * 2);
+            courseCredits = Arrays.copyOf(courseCredits, courseCount * 2);
+        }
+        courses[courseCount] = course;
+        courseCredits[courseCount] = course.getCredits();
+        courseRefsByCode.put(course.getCode(), courseCount);
+        return courseCount++;
+    }
+    
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        studentRefs = Arrays.copyOf(studentRefs, capacity);
+        courseRefs = Arrays.copyOf(courseRefs, capacity);
+        grades = Arrays.copyOf(grades, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        enrolledAt = Arrays.copyOf(enrolledAt, capacity);
+        gradedAt = Arrays.copyOf(gradedAt, capacity);
+    }
+    
+    // Slide live rows down over the tombstones, keeping their order, and rebuild the row lists
+    private void compact() {
+        byStudent.clear();
+        byCourse.clear();
+        int live = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (statuses[row] == REMOVED) {
+                continue;
+            }
+            ids[live] = ids[row];
+            studentRefs[live] = studentRefs[row];
+            courseRefs[live] = courseRefs[row];
+            grades[live] = grades[row];
+            statuses[live] = statuses[row];
+            enrolledAt[live] = enrolledAt[row];
+            gradedAt[live] = gradedAt[row];
+            byStudent.add(studentRefs[live], live);
+            byCourse.add(courseRefs[live], live);
+            live++;
+        }
+        rowCount = live;
+        removedCount = 0;
+    }
+    
+    // Microsecond precision, which is what the system clock provides
+    static long toEpochMicros(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+    
+    static LocalDateTime fromEpochMicros(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
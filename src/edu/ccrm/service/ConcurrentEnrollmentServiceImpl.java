@@ -0,0 +1,323 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe enrollment service for parallel registration traffic.
+ * All mutations for a student run under that student's lock stripe, so the duplicate
+ * and credit-limit checks in enrollStudent are atomic with the insert. Different
+ * students hash to different stripes and proceed in parallel.
+ */
+public class ConcurrentEnrollmentServiceImpl extends AbstractEnrollmentService {
+    private final EnrollmentIndex enrollments;
+    private final ConcurrentHashMap<Long, StudentAggregate> aggregates; // Guarded by the student's stripe
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+    
+    public ConcurrentEnrollmentServiceImpl(StudentService studentService, CourseService courseService) {
+        this(studentService, courseService, Runtime.getRuntime().availableProcessors() * 4);
+    }
+    
+    public ConcurrentEnrollmentServiceImpl(StudentService studentService, CourseService courseService, int concurrencyLevel) {
+        super(studentService, courseService);
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException("Concurrency level must be positive");
+        }
+        
+        // Round up to a power of two so a stripe can be picked with a mask
+        int size = 1;
+        while (size < concurrencyLevel) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.stripeMask = size - 1;
+        this.enrollments = new EnrollmentIndex(true);
+        this.aggregates = new ConcurrentHashMap<>();
+    }
+    
+    private ReentrantLock stripeFor(Long studentId) {
+        int h = studentId.hashCode();
+        h ^= (h >>> 16); // Spread sequential IDs across stripes
+        return stripes[h & stripeMask];
+    }
+    
+    @Override
+    public void enrollStudent(Long studentId, String courseCode)
+        throws StudentNotFoundException, CourseNotFoundException,
+               DuplicateEnrollmentException, MaxCreditLimitExceededException,
+               CourseFullException {
+        
+        // Lookups don't need the lock; the rule checks and the insert do
+        Student student = requireActiveStudent(studentId);
+        Course course = requireActiveCourse(courseCode);
+        
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            enrollResolved(student, course);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Caller must hold the student's stripe
+    @Override
+    protected void enrollResolved(Student student, Course course)
+        throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+        
+        Long studentId = student.getId();
+        String courseCode = course.getCode();
+        if (enrollments.contains(studentId, courseCode)) {
+            throw new DuplicateEnrollmentException("Student is already enrolled in course " + courseCode);
+        }
+        
+        StudentAggregate aggregate = aggregateFor(studentId);
+        checkCreditLimit(aggregate.getEnrolledCredits(), course);
+        
+        // Seat counter is lock-free, so contention on a hot course never widens this critical section
+        reserveSeat(student, course);
+        
+        Enrollment enrollment = new Enrollment(student, course);
+        enrollments.add(enrollment);
+        aggregate.add(enrollment);
+        student.addCourse(courseCode);
+        fireEnrolled(enrollment);
+    }
+    
+    // One lock acquisition covers all of a student's batch items
+    @Override
+    protected void enrollGroup(Student student, List<BatchItem> items) {
+        ReentrantLock lock = stripeFor(student.getId());
+        lock.lock();
+        try {
+            super.enrollGroup(student, items);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void unenrollStudent(Long studentId, String courseCode) throws EnrollmentNotFoundException {
+        Course freedSeat = null;
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            Enrollment enrollment = enrollments.find(studentId, courseCode)
+                .orElseThrow(() -> enrollmentNotFound(studentId, courseCode));
+            
+            StudentAggregate aggregate = aggregateFor(studentId);
+            aggregate.remove(enrollment);
+            Grade previousGrade = enrollment.getGrade();
+            EnrollmentStatus previousStatus = enrollment.getStatus();
+            if (holdsSeat(previousStatus)) {
+                freedSeat = enrollment.getCourse();
+            }
+            
+            boolean kept = enrollment.hasGrade();
+            if (kept) {
+                enrollment.withdraw(); // Mark as withdrawn but keep record
+                aggregate.add(enrollment);
+            } else {
+                enrollments.remove(enrollment);
+            }
+            
+            enrollment.getStudent().removeCourse(courseCode);
+            if (kept) {
+                fireUpdated(enrollment, previousGrade, previousStatus);
+            } else {
+                fireUnenrolled(enrollment);
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        // Promote outside the stripe: waitlisted students live on other stripes
+        if (freedSeat != null) {
+            releaseSeat(freedSeat);
+        }
+    }
+    
+    @Override
+    public void recordGrade(Long studentId, String courseCode, Grade grade) throws EnrollmentNotFoundException {
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            Enrollment enrollment = enrollments.find(studentId, courseCode)
+                .orElseThrow(() -> enrollmentNotFound(studentId, courseCode));
+            
+            Grade previousGrade = enrollment.getGrade();
+            EnrollmentStatus previousStatus = enrollment.getStatus();
+            StudentAggregate aggregate = aggregateFor(studentId);
+            aggregate.remove(enrollment);
+            try {
+                enrollment.assignGrade(grade);
+            } finally {
+                aggregate.add(enrollment);
+            }
+            fireUpdated(enrollment, previousGrade, previousStatus);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void updateGrade(Long studentId, String courseCode, Grade grade) throws EnrollmentNotFoundException {
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            Enrollment enrollment = enrollments.find(studentId, courseCode)
+                .orElseThrow(() -> enrollmentNotFound(studentId, courseCode));
+            
+            Grade previousGrade = enrollment.getGrade();
+            EnrollmentStatus previousStatus = enrollment.getStatus();
+            StudentAggregate aggregate = aggregateFor(studentId);
+            aggregate.remove(enrollment);
+            try {
+                enrollment.updateGrade(grade);
+            } finally {
+                aggregate.add(enrollment);
+            }
+            fireUpdated(enrollment, previousGrade, previousStatus);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void restoreEnrollment(Enrollment enrollment) {
+        Long studentId = enrollment.getStudent().getId();
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            discardLocked(studentId, enrollment.getCourse().getCode());
+            enrollments.add(enrollment);
+            aggregateFor(studentId).add(enrollment);
+            applyRestored(enrollment);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public boolean discardEnrollment(Long studentId, String courseCode) {
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            return discardLocked(studentId, courseCode);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Caller must hold the student's stripe
+    private boolean discardLocked(Long studentId, String courseCode) {
+        Optional<Enrollment> existing = enrollments.find(studentId, courseCode);
+        if (existing.isEmpty()) {
+            return false;
+        }
+        Enrollment enrollment = existing.get();
+        enrollments.remove(enrollment);
+        aggregateFor(studentId).remove(enrollment);
+        revertRestored(enrollment);
+        return true;
+    }
+    
+    // Every change holds its student's stripe, so holding all of them holds off every change.
+    // No change holds two stripes, so taking them in order cannot deadlock.
+    @Override
+    public <T, X extends Exception> T whilePaused(PausedWork<T, X> work) throws X {
+        int locked = 0;
+        try {
+            for (ReentrantLock stripe : stripes) {
+                stripe.lock();
+                locked++;
+            }
+            return work.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+    
+    @Override
+    public Optional<Enrollment> findEnrollment(Long studentId, String courseCode) {
+        return enrollments.find(studentId, courseCode);
+    }
+    
+    @Override
+    public List<Enrollment> getStudentEnrollments(Long studentId) {
+        return new ArrayList<>(enrollments.forStudent(studentId));
+    }
+    
+    @Override
+    public List<Enrollment> getCourseEnrollments(String courseCode) {
+        return new ArrayList<>(enrollments.forCourse(courseCode));
+    }
+    
+    @Override
+    public List<Enrollment> getAllEnrollments() {
+        return new ArrayList<>(enrollments.all());
+    }
+    
+    @Override
+    public Collection<Enrollment> getAllEnrollmentsView() {
+        return enrollments.all();
+    }
+    
+    @Override
+    protected long enrollmentCount() {
+        return enrollments.size();
+    }
+    
+    @Override
+    public boolean isStudentEnrolled(Long studentId, String courseCode) {
+        return enrollments.contains(studentId, courseCode);
+    }
+    
+    @Override
+    public int getStudentCreditHours(Long studentId) {
+        StudentAggregate aggregate = aggregates.get(studentId);
+        if (aggregate == null) {
+            return 0;
+        }
+        
+        // Lock so the read never observes a half-applied remove/add delta
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            return aggregate.getEnrolledCredits();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public double calculateStudentGPA(Long studentId) {
+        StudentAggregate aggregate = aggregates.get(studentId);
+        if (aggregate == null) {
+            return 0.0;
+        }
+        
+        ReentrantLock lock = stripeFor(studentId);
+        lock.lock();
+        try {
+            return aggregate.getGpa();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Caller must hold the student's stripe
+    private StudentAggregate aggregateFor(Long studentId) {
+        return aggregates.computeIfAbsent(studentId, id -> new StudentAggregate());
+    }
+}
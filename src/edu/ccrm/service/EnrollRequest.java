@@ -0,0 +1,41 @@
+package edu.ccrm.service;
+
+import java.util.Objects;
+
+/**
+ * One item of a batch enrollment: enroll this student in this course
+ */
+public final class EnrollRequest {
+    private final Long studentId;
+    private final String courseCode;
+    
+    public EnrollRequest(Long studentId, String courseCode) {
+        this.studentId = Objects.requireNonNull(studentId, "Student ID cannot be null");
+        this.courseCode = Objects.requireNonNull(courseCode, "Course code cannot be null");
+    }
+    
+    public static EnrollRequest of(Long studentId, String courseCode) {
+        return new EnrollRequest(studentId, courseCode);
+    }
+    
+    public Long getStudentId() { return studentId; }
+    public String getCourseCode() { return courseCode; }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof EnrollRequest)) return false;
+        EnrollRequest other = (EnrollRequest) obj;
+        return studentId.equals(other.studentId) && courseCode.equals(other.courseCode);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(studentId, courseCode);
+    }
+    
+    @Override
+    public String toString() {
+        return studentId + "->" + courseCode;
+    }
+}
@@ -0,0 +1,56 @@
+package edu.ccrm.service;
+
+import edu.ccrm.exception.CCRMException;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Outcome of one batch enrollment item: success, or the exception enrollStudent would have thrown
+ */
+public final class EnrollResult {
+    private final EnrollRequest request;
+    private final Exception error;
+    
+    private EnrollResult(EnrollRequest request, Exception error) {
+        this.request = Objects.requireNonNull(request);
+        this.error = error;
+    }
+    
+    public static EnrollResult success(EnrollRequest request) {
+        return new EnrollResult(request, null);
+    }
+    
+    public static EnrollResult failure(EnrollRequest request, Exception error) {
+        return new EnrollResult(request, Objects.requireNonNull(error, "Error cannot be null"));
+    }
+    
+    public EnrollRequest getRequest() { return request; }
+    
+    public boolean isSuccess() {
+        return error == null;
+    }
+    
+    public Optional<Exception> getError() {
+        return Optional.ofNullable(error);
+    }
+    
+    /**
+     * Error code of a CCRMException failure, the exception's simple name for other failures, empty on success
+     */
+    public Optional<String> getErrorCode() {
+        if (error == null) {
+            return Optional.empty();
+        }
+        return Optional.of(error instanceof CCRMException
+            ? ((CCRMException) error).getErrorCode()
+            : error.getClass().getSimpleName());
+    }
+    
+    @Override
+    public String toString() {
+        return isSuccess()
+            ? String.format("EnrollResult{%s, OK}", request)
+            : String.format("EnrollResult{%s, %s: %s}", request, getErrorCode().orElse(""), error.getMessage());
+    }
+}
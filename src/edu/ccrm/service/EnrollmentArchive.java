@@ -0,0 +1,270 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Off-heap tier for finished enrollments. Each enrollment is a fixed-width record in
+ * a direct buffer, so the garbage collector never traces or copies it; the heap only
+ * holds one dictionary entry per student and course and an int per record in the
+ * by-student and by-course row lists.
+ *
+ * Record layout (36 bytes): id, student ref, course ref, grade ordinal (-1 for none),
+ * status ordinal, two bytes padding, enrollment and grade timestamps in epoch microseconds.
+ *
+ * Reads materialize a fresh Enrollment; write changes back with update(). Finished
+ * enrollments are kept on record, so records are only removed when a restore replaces
+ * the data; the last record then moves into the freed slot. Not thread-safe.
+ */
+public class EnrollmentArchive {
+    static final int RECORD_SIZE = 36;
+    private static final int ID = 0;
+    private static final int STUDENT = 8;
+    private static final int COURSE = 12;
+    private static final int GRADE = 16;
+    private static final int STATUS = 17;
+    private static final int ENROLLED_AT = 20;
+    private static final int GRADED_AT = 28;
+    
+    private static final int SEGMENT_SHIFT = 16; // 64K records, 2.25 MB per buffer
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+    
+    private static final Grade[] GRADES = Grade.values();
+    private static final EnrollmentStatus[] STATUSES = EnrollmentStatus.values();
+    
+    // Fixed-size segments: growing never copies records already written
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private int recordCount;
+    
+    private final Map<Long, Integer> studentRefsById = new HashMap<>();
+    private Student[] students = new Student[16];
+    private int studentCount;
+    private final Map<String, Integer> courseRefsByCode = new HashMap<>();
+    private Course[] courses = new Course[16];
+    private int courseCount;
+    
+    private final RowLists byStudent = new RowLists();
+    private final RowLists byCourse = new RowLists();
+    
+    /**
+     * Append an enrollment
+     * @return false if an enrollment for the same student and course is already archived
+     */
+    public boolean add(Enrollment enrollment) {
+        int student = studentRef(enrollment.getStudent());
+        int course = courseRef(enrollment.getCourse());
+        if (recordFor(student, course) >= 0) {
+            return false;
+        }
+        
+        if (recordCount == segments.size() * SEGMENT_RECORDS) {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_RECORDS * RECORD_SIZE));
+        }
+        int record = recordCount++;
+        ByteBuffer segment = segmentOf(record);
+        int base = offsetOf(record);
+        segment.putLong(base + ID, enrollment.getId());
+        segment.putInt(base + STUDENT, student);
+        segment.putInt(base + COURSE, course);
+        segment.putLong(base + ENROLLED_AT, ColumnarEnrollmentStore.toEpochMicros(enrollment.getEnrollmentDate()));
+        write(segment, base, enrollment);
+        byStudent.add(student, record);
+        byCourse.add(course, record);
+        return true;
+    }
+    
+    /**
+     * Write back an archived enrollment's grade, status and grade date
+     * @return false if the enrollment is not archived
+     */
+    public boolean update(Enrollment enrollment) {
+        int record = findRecord(enrollment.getStudent().getId(), enrollment.getCourse().getCode());
+        if (record < 0) {
+            return false;
+        }
+        write(segmentOf(record), offsetOf(record), enrollment);
+        return true;
+    }
+    
+    /**
+     * Drop an archived enrollment, moving the last record into its slot
+     * @return false if the enrollment is not archived
+     */
+    public boolean remove(Long studentId, String courseCode) {
+        int record = studentId != null && courseCode != null ? findRecord(studentId, courseCode) : -1;
+        if (record < 0) {
+            return false;
+        }
+        ByteBuffer segment = segmentOf(record);
+        int base = offsetOf(record);
+        byStudent.remove(segment.getInt(base + STUDENT), record);
+        byCourse.remove(segment.getInt(base + COURSE), record);
+        
+        int last = --recordCount;
+        if (record != last) {
+            ByteBuffer lastSegment = segmentOf(last);
+            int lastBase = offsetOf(last);
+            int student = lastSegment.getInt(lastBase + STUDENT);
+            int course = lastSegment.getInt(lastBase + COURSE);
+            segment.putLong(base + ID, lastSegment.getLong(lastBase + ID));
+            segment.putInt(base + STUDENT, student);
+            segment.putInt(base + COURSE, course);
+            segment.put(base + GRADE, lastSegment.get(lastBase + GRADE));
+            segment.put(base + STATUS, lastSegment.get(lastBase + STATUS));
+            segment.putLong(base + ENROLLED_AT, lastSegment.getLong(lastBase + ENROLLED_AT));
+            segment.putLong(base + GRADED_AT, lastSegment.getLong(lastBase + GRADED_AT));
+            byStudent.remove(student, last);
+            byStudent.add(student, record);
+            byCourse.remove(course, last);
+            byCourse.add(course, record);
+        }
+        return true;
+    }
+    
+    private static void write(ByteBuffer segment, int base, Enrollment enrollment) {
+        segment.put(base + GRADE, enrollment.hasGrade() ? (byte) enrollment.getGrade().ordinal() : -1);
+        segment.put(base + STATUS, (byte) enrollment.getStatus().ordinal());
+        segment.putLong(base + GRADED_AT, ColumnarEnrollmentStore.toEpochMicros(enrollment.getGradeDate()));
+    }
+    
+    public Optional<Enrollment> find(Long studentId, String courseCode) {
+        if (studentId == null || courseCode == null) {
+            return Optional.empty();
+        }
+        int record = findRecord(studentId, courseCode);
+        return record >= 0 ? Optional.of(materialize(record)) : Optional.empty();
+    }
+    
+    public boolean contains(Long studentId, String courseCode) {
+        return studentId != null && courseCode != null && findRecord(studentId, courseCode) >= 0;
+    }
+    
+    public List<Enrollment> forStudent(Long studentId) {
+        Integer student = studentRefsById.get(studentId);
+        return student != null ? materialize(byStudent, student) : new ArrayList<>();
+    }
+    
+    public List<Enrollment> forCourse(String courseCode) {
+        Integer course = courseRefsByCode.get(courseCode);
+        return course != null ? materialize(byCourse, course) : new ArrayList<>();
+    }
+    
+    /**
+     * Read-only view of every archived enrollment, materialized as iterated; in archiving
+     * order unless records were removed
+     */
+    public Collection<Enrollment> all() {
+        return new AbstractCollection<Enrollment>() {
+            @Override
+            public Iterator<Enrollment> iterator() {
+                return new Iterator<Enrollment>() {
+                    private int next;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return next < recordCount;
+                    }
+                    
+                    @Override
+                    public Enrollment next() {
+                        if (next >= recordCount) {
+                            throw new NoSuchElementException();
+                        }
+                        return materialize(next++);
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return recordCount;
+            }
+        };
+    }
+    
+    public int size() {
+        return recordCount;
+    }
+    
+    // Direct memory reserved for records, including the unused tail of the last segment
+    public long getOffHeapBytes() {
+        return (long) segments.size() * SEGMENT_RECORDS * RECORD_SIZE;
+    }
+    
+    private int findRecord(Long studentId, String courseCode) {
+        Integer student = studentRefsById.get(studentId);
+        Integer course = courseRefsByCode.get(courseCode);
+        return student != null && course != null ? recordFor(student, course) : -1;
+    }
+    
+    private int recordFor(int student, int course) {
+        int[] records = byStudent.rows(student);
+        for (int i = 0, n = byStudent.size(student); i < n; i++) {
+            int record = records[i];
+            if (segmentOf(record).getInt(offsetOf(record) + COURSE) == course) {
+                return record;
+            }
+        }
+        return -1;
+    }
+    
+    private Enrollment materialize(int record) {
+        ByteBuffer segment = segmentOf(record);
+        int base = offsetOf(record);
+        byte grade = segment.get(base + GRADE);
+        return Enrollment.rebuild(segment.getLong(base + ID),
+            students[segment.getInt(base + STUDENT)], courses[segment.getInt(base + COURSE)],
+            grade >= 0 ? GRADES[grade] : null, STATUSES[segment.get(base + STATUS)],
+            ColumnarEnrollmentStore.fromEpochMicros(segment.getLong(base + ENROLLED_AT)),
+            ColumnarEnrollmentStore.fromEpochMicros(segment.getLong(base + GRADED_AT)));
+    }
+    
+    private List<Enrollment> materialize(RowLists lists, int ref) {
+        int[] records = lists.rows(ref);
+        int n = lists.size(ref);
+        List<Enrollment> enrollments = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            enrollments.add(materialize(records[i]));
+        }
+        return enrollments;
+    }
+    
+    private ByteBuffer segmentOf(int record) {
+        return segments.get(record >>> SEGMENT_SHIFT);
+    }
+    
+    private static int offsetOf(int record) {
+        return (record & SEGMENT_MASK) * RECORD_SIZE;
+    }
+    
+    private int studentRef(Student student) {
+        Integer ref = studentRefsById.get(student.getId());
+        if (ref != null) {
+            students[ref] = student; // Keep the current instance
+            return ref;
+        }
+        if (studentCount == students.length) {
+            students = Arrays.copyOf(students, studentCount * 2);
+        }
+        students[studentCount] = student;
+        studentRefsById.put(student.getId(), studentCount);
+        return studentCount++;
+    }
+    
+    private int courseRef(Course course) {
+        Integer ref = courseRefsByCode.get(course.getCode());
+        if (ref != null) {
+            courses[ref] = course;
+            return ref;
+        }
+        if (courseCount == courses.length) {
+            courses = Arrays.copyOf(courses, courseCount * 2);
+        }
+        courses[courseCount] = course;
+        courseRefsByCode.put(course.getCode(), courseCount);
+        return courseCount++;
+    }
+}
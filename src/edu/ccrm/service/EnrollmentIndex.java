@@ -0,0 +1,154 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index over enrollments: a primary index keyed on (studentId, courseCode)
+ * plus secondary indexes by student and by course.
+ * Lookups are O(1) and per-student/per-course listings are O(k) in the size of the result.
+ * A concurrent index is backed by ConcurrentHashMaps; listings are then weakly consistent
+ * and not in enrollment order.
+ */
+public class EnrollmentIndex {
+    private final boolean concurrent;
+    private final Map<Key, Enrollment> primary;
+    private final Map<Long, Map<String, Enrollment>> byStudent;
+    private final Map<String, Map<Long, Enrollment>> byCourse;
+
+    // Immutable composite key for the primary index
+    public static final class Key {
+        private final Long studentId;
+        private final String courseCode;
+        private final int hash;
+
+        public Key(Long studentId, String courseCode) {
+            this.studentId = Objects.requireNonNull(studentId, "Student ID cannot be null");
+            this.courseCode = Objects.requireNonNull(courseCode, "Course code cannot be null");
+            this.hash = 31 * studentId.hashCode() + courseCode.hashCode();
+        }
+
+        public static Key of(Enrollment enrollment) {
+            return new Key(enrollment.getStudent().getId(), enrollment.getCourse().getCode());
+        }
+
+        public Long getStudentId() { return studentId; }
+        public String getCourseCode() { return courseCode; }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return studentId.equals(other.studentId) && courseCode.equals(other.courseCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return studentId + "/" + courseCode;
+        }
+    }
+
+    public EnrollmentIndex() {
+        this(false);
+    }
+
+    public EnrollmentIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        if (concurrent) {
+            this.primary = new ConcurrentHashMap<>();
+            this.byStudent = new ConcurrentHashMap<>();
+            this.byCourse = new ConcurrentHashMap<>();
+        } else {
+            // Linked maps keep listings in enrollment order, matching the old list-based behaviour
+            this.primary = new LinkedHashMap<>();
+            this.byStudent = new HashMap<>();
+            this.byCourse = new HashMap<>();
+        }
+    }
+
+    /**
+     * Add an enrollment to all indexes
+     * @return false if an enrollment for the same student and course is already indexed
+     */
+    public boolean add(Enrollment enrollment) {
+        Key key = Key.of(enrollment);
+        if (primary.putIfAbsent(key, enrollment) != null) {
+            return false;
+        }
+        addTo(byStudent, key.studentId, key.courseCode, enrollment);
+        addTo(byCourse, key.courseCode, key.studentId, enrollment);
+        return true;
+    }
+
+    /**
+     * Remove an enrollment from all indexes
+     * @return true if the enrollment was indexed
+     */
+    public boolean remove(Enrollment enrollment) {
+        Key key = Key.of(enrollment);
+        if (primary.remove(key) == null) {
+            return false;
+        }
+        removeFrom(byStudent, key.studentId, key.courseCode);
+        removeFrom(byCourse, key.courseCode, key.studentId);
+        return true;
+    }
+
+    // Bucket updates go through compute so a concurrent index never races an add against
+    // the removal of an empty bucket
+    private <K, S> void addTo(Map<K, Map<S, Enrollment>> index, K key, S subKey, Enrollment enrollment) {
+        index.compute(key, (k, bucket) -> {
+            Map<S, Enrollment> target = bucket != null ? bucket : newBucket();
+            target.put(subKey, enrollment);
+            return target;
+        });
+    }
+
+    private static <K, S> void removeFrom(Map<K, Map<S, Enrollment>> index, K key, S subKey) {
+        index.computeIfPresent(key, (k, bucket) -> {
+            bucket.remove(subKey);
+            return bucket.isEmpty() ? null : bucket; // Don't keep empty buckets
+        });
+    }
+
+    private <S> Map<S, Enrollment> newBucket() {
+        return concurrent ? new ConcurrentHashMap<>() : new LinkedHashMap<>();
+    }
+
+    public Optional<Enrollment> find(Long studentId, String courseCode) {
+        if (studentId == null || courseCode == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(primary.get(new Key(studentId, courseCode)));
+    }
+
+    public boolean contains(Long studentId, String courseCode) {
+        return find(studentId, courseCode).isPresent();
+    }
+
+    public Collection<Enrollment> forStudent(Long studentId) {
+        Map<String, Enrollment> bucket = byStudent.get(studentId);
+        return bucket != null ? Collections.unmodifiableCollection(bucket.values()) : Collections.emptyList();
+    }
+
+    public Collection<Enrollment> forCourse(String courseCode) {
+        Map<Long, Enrollment> bucket = byCourse.get(courseCode);
+        return bucket != null ? Collections.unmodifiableCollection(bucket.values()) : Collections.emptyList();
+    }
+
+    public Collection<Enrollment> all() {
+        return Collections.unmodifiableCollection(primary.values());
+    }
+
+    public int size() {
+        return primary.size();
+    }
+}
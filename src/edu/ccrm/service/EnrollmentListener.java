@@ -0,0 +1,20 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.EnrollmentStatus;
+import edu.ccrm.domain.Grade;
+
+/**
+ * Callback for enrollment changes, fired after the service has applied them.
+ * Implementations of a concurrent service call listeners with the student's lock held,
+ * so listeners must be thread-safe, quick, and must not call back into mutating methods.
+ */
+public interface EnrollmentListener {
+    default void enrolled(Enrollment enrollment) {}
+    
+    // The enrollment record was removed entirely
+    default void unenrolled(Enrollment enrollment) {}
+    
+    // Grade or status changed in place (grading, re-grading, withdrawal)
+    default void updated(Enrollment enrollment, Grade previousGrade, EnrollmentStatus previousStatus) {}
+}
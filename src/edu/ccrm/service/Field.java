@@ -0,0 +1,37 @@
+package edu.ccrm.service;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A named, typed entity attribute that queries can refer to.
+ * The name is what the planner matches against index names, case-insensitively.
+ * See QueryFields for the fields of students, courses and enrollments.
+ */
+public final class Field<T, V> {
+    private final String name;
+    private final Class<V> type;
+    private final Function<? super T, ? extends V> getter;
+    
+    private Field(String name, Class<V> type, Function<? super T, ? extends V> getter) {
+        this.name = Objects.requireNonNull(name, "Field name cannot be null");
+        this.type = Objects.requireNonNull(type, "Field type cannot be null");
+        this.getter = Objects.requireNonNull(getter, "Getter cannot be null");
+    }
+    
+    public static <T, V> Field<T, V> of(String name, Class<V> type, Function<? super T, ? extends V> getter) {
+        return new Field<>(name, type, getter);
+    }
+    
+    public V get(T entity) {
+        return getter.apply(entity);
+    }
+    
+    public String getName() { return name; }
+    public Class<V> getType() { return type; }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,281 @@
+package edu.ccrm.service;
+
+import java.util.*;
+
+/**
+ * Hash map from primitive long keys to values, with open addressing and linear probing,
+ * so neither keys nor entries are boxed. A slot costs a long and a reference; the table
+ * is kept at most half full.
+ *
+ * The keys are also kept in a sorted long array for ordered views and keyed pages.
+ * Ascending inserts (the usual case with generated IDs) append to it; anything else
+ * marks it for a sort before the next ordered read. Removes leave their key behind as a
+ * stale entry that ordered reads skip, and the array is compacted once stale entries
+ * outnumber live keys, so a remove costs amortized O(1) rather than an array shift.
+ * Not thread-safe.
+ */
+public class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    
+    private long[] keys;
+    private Object[] values; // Null marks a free slot
+    private int size;
+    
+    private long[] sortedKeys = new long[MIN_CAPACITY];
+    private int sortedLength; // Live keys plus stale ones; a key removed and put again appears twice
+    private boolean sorted = true;
+    
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    public LongObjectMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+    
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return value(slot);
+            }
+        }
+        return null;
+    }
+    
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * @return the previous value, or null if the key was absent
+     */
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "Value cannot be null");
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = value(slot);
+                values[slot] = value;
+                return previous;
+            }
+        }
+        
+        keys[slot] = key;
+        values[slot] = value;
+        addSortedKey(key);
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+    
+    /**
+     * @return the removed value, or null if the key was absent
+     */
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == null) {
+            return null;
+        }
+        V removed = value(slot);
+        
+        // Shift later entries of the probe run back, so lookups never stop at a hole
+        int hole = slot;
+        for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = null;
+        size--;
+        if (sortedLength - size > Math.max(size, MIN_CAPACITY)) {
+            compactSortedKeys();
+        }
+        return removed;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * False when the next ordered read (values iteration or page) first sorts the keys,
+     * which modifies the map. Callers sharing the map under a read lock check this first.
+     */
+    public boolean isKeyOrderCurrent() {
+        return sorted;
+    }
+    
+    /**
+     * Read-only live view of the values in key order
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                ensureSorted();
+                return new Iterator<V>() {
+                    private int index = -1;
+                    private V next = advance();
+                    
+                    private V advance() {
+                        V value = null;
+                        while (value == null && ++index < sortedLength) {
+                            value = liveValue(index);
+                        }
+                        return value;
+                    }
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+                    
+                    @Override
+                    public V next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = next;
+                        next = advance();
+                        return value;
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+    
+    /**
+     * Up to limit values with keys above afterKey (or from the first key when null), in key order
+     */
+    public Page<V, Long> page(Long afterKey, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        ensureSorted();
+        int index = 0;
+        if (afterKey != null) {
+            // Past every copy of afterKey
+            index = upperBound(afterKey);
+        }
+        List<V> items = new ArrayList<>(Math.min(limit, size));
+        long lastKey = 0;
+        for (; index < sortedLength; index++) {
+            V value = liveValue(index);
+            if (value == null) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, lastKey); // More values follow
+            }
+            items.add(value);
+            lastKey = sortedKeys[index];
+        }
+        return new Page<>(items, null);
+    }
+    
+    // Value for a sorted entry, or null if the entry is stale or repeats the previous key
+    private V liveValue(int index) {
+        long key = sortedKeys[index];
+        if (index > 0 && sortedKeys[index - 1] == key) {
+            return null;
+        }
+        return get(key);
+    }
+    
+    // Index of the first sorted entry above key
+    private int upperBound(long key) {
+        int low = 0;
+        int high = sortedLength;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedKeys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void addSortedKey(long key) {
+        if (sortedLength == sortedKeys.length) {
+            if (sortedLength - size > sortedLength / 4) {
+                compactSortedKeys();
+            }
+            if (sortedLength == sortedKeys.length) {
+                sortedKeys = Arrays.copyOf(sortedKeys, sortedLength * 2);
+            }
+        }
+        if (sortedLength > 0 && key < sortedKeys[sortedLength - 1]) {
+            sorted = false;
+        }
+        sortedKeys[sortedLength++] = key;
+    }
+    
+    // Drop stale and repeated entries, leaving exactly the live keys in order
+    private void compactSortedKeys() {
+        ensureSorted();
+        int kept = 0;
+        for (int i = 0; i < sortedLength; i++) {
+            if (liveValue(i) != null) {
+                sortedKeys[kept++] = sortedKeys[i];
+            }
+        }
+        sortedLength = kept;
+    }
+    
+    private void ensureSorted() {
+        if (!sorted) {
+            Arrays.sort(sortedKeys, 0, sortedLength);
+            sorted = true;
+        }
+    }
+    
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i], mask);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    // Fibonacci hashing spreads sequential IDs across the table
+    private static int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return (V) values[slot];
+    }
+}
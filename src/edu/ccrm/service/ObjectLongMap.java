@@ -0,0 +1,116 @@
+package edu.ccrm.service;
+
+import java.util.Objects;
+
+/**
+ * Hash map from object keys to primitive long values, with open addressing and linear
+ * probing: no entry objects and no boxed values. Used to index long IDs by a unique
+ * string such as a registration number. Not thread-safe.
+ */
+public class ObjectLongMap<K> {
+    private static final int MIN_CAPACITY = 16;
+    
+    private Object[] keys; // Null marks a free slot
+    private long[] values;
+    private int size;
+    
+    public ObjectLongMap() {
+        this.keys = new Object[MIN_CAPACITY];
+        this.values = new long[MIN_CAPACITY];
+    }
+    
+    /**
+     * @return the value for the key, or missing if absent
+     */
+    public long get(K key, long missing) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) {
+                return values[slot];
+            }
+        }
+        return missing;
+    }
+    
+    public boolean containsKey(K key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public void put(K key, long value) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+    
+    /**
+     * @return true if the key was present
+     */
+    public boolean remove(K key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == null) {
+            return false;
+        }
+        
+        // Shift later entries of the probe run back, so lookups never stop at a hole
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = null;
+        size--;
+        return true;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new Object[capacity];
+        values = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int slot(Object key, int mask) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
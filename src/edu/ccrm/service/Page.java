@@ -0,0 +1,48 @@
+package edu.ccrm.service;
+
+import java.util.*;
+
+/**
+ * One page of entities in key order, with the cursor for the next page.
+ * Pages are keyed rather than numbered, so inserts and deletes between calls
+ * never shift later pages or repeat an entity.
+ */
+public final class Page<T, ID> {
+    private final List<T> items;
+    private final ID nextKey; // Key of the last item when more may follow, else null
+    
+    Page(List<T> items, ID nextKey) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextKey = nextKey;
+    }
+    
+    /**
+     * Read a page from a key-ordered map
+     * @param afterKey cursor from the previous page, or null for the first page
+     */
+    public static <T, ID> Page<T, ID> of(NavigableMap<ID, T> ordered, ID afterKey, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        
+        NavigableMap<ID, T> rest = afterKey == null ? ordered : ordered.tailMap(afterKey, false);
+        List<T> items = new ArrayList<>(Math.min(limit, 256));
+        ID lastKey = null;
+        Iterator<Map.Entry<ID, T>> it = rest.entrySet().iterator();
+        while (items.size() < limit && it.hasNext()) {
+            Map.Entry<ID, T> entry = it.next();
+            items.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new Page<>(items, it.hasNext() ? lastKey : null);
+    }
+    
+    public List<T> getItems() { return items; }
+    public boolean isEmpty() { return items.isEmpty(); }
+    public boolean hasMore() { return nextKey != null; }
+    
+    // Pass to page() to continue after this page
+    public Optional<ID> getNextKey() {
+        return Optional.ofNullable(nextKey);
+    }
+}
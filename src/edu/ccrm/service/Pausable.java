@@ -0,0 +1,20 @@
+package edu.ccrm.service;
+
+/**
+ * A service whose changes can be held off while some work reads it, so the work sees one
+ * consistent state. Journal checkpoints use this to capture a snapshot.
+ *
+ * Only changes made through the service are held off. An entity object that a caller
+ * modifies directly, before passing it to an update call, is not covered until that call.
+ */
+public interface Pausable {
+    /**
+     * Run the work once the changes in progress have finished, holding off new ones until it returns
+     */
+    <T, X extends Exception> T whilePaused(PausedWork<T, X> work) throws X;
+    
+    @FunctionalInterface
+    interface PausedWork<T, X extends Exception> {
+        T run() throws X;
+    }
+}
@@ -0,0 +1,10 @@
+package edu.ccrm.service;
+
+/**
+ * Callback for entities saved, updated or deleted through a Persistable service
+ */
+public interface PersistenceListener<T, ID> {
+    default void saved(T entity) {}
+    default void updated(T entity) {}
+    default void deleted(ID id) {}
+}
@@ -0,0 +1,216 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Typed query over an entity's fields: equality, membership, ranges and prefixes,
+ * combined with AND and OR. Unlike an opaque Predicate, a query can be inspected,
+ * so a service can answer conditions from its indexes and only test what's left.
+ *
+ * <pre>
+ *   Query&lt;Course&gt; q = Query.eq(Courses.SEMESTER, Semester.FALL)
+ *       .and(Query.atLeast(Courses.CREDITS, 3));
+ *   courseService.explain(q);  // which index serves it
+ *   courseService.query(q);
+ * </pre>
+ */
+public abstract class Query<T> {
+    Query() {}
+    
+    public enum Kind { EQ, IN, RANGE, PREFIX }
+    
+    public static <T, V> Query<T> eq(Field<T, V> field, V value) {
+        Objects.requireNonNull(value, "Value cannot be null");
+        return new Condition<>(field, Kind.EQ, List.of(value), null, null, null);
+    }
+    
+    public static <T, V> Query<T> in(Field<T, V> field, Collection<? extends V> values) {
+        return new Condition<>(field, Kind.IN, List.copyOf(values), null, null, null);
+    }
+    
+    /**
+     * Inclusive range; a null bound leaves that side open
+     */
+    public static <T, V extends Comparable<? super V>> Query<T> between(Field<T, V> field, V from, V to) {
+        if (from == null && to == null) {
+            throw new IllegalArgumentException("A range needs at least one bound");
+        }
+        return new Condition<>(field, Kind.RANGE, List.of(), from, to, null);
+    }
+    
+    public static <T, V extends Comparable<? super V>> Query<T> atLeast(Field<T, V> field, V from) {
+        return between(field, from, null);
+    }
+    
+    public static <T, V extends Comparable<? super V>> Query<T> atMost(Field<T, V> field, V to) {
+        return between(field, null, to);
+    }
+    
+    /**
+     * Case-insensitive prefix match on a text field
+     */
+    public static <T> Query<T> prefix(Field<T, String> field, String prefix) {
+        Objects.requireNonNull(prefix, "Prefix cannot be null");
+        return new Condition<>(field, Kind.PREFIX, List.of(), null, null, prefix.toLowerCase(Locale.ROOT));
+    }
+    
+    @SafeVarargs
+    public static <T> Query<T> allOf(Query<T>... parts) {
+        // Elements are copied out one by one: handing the array on is what @SafeVarargs rules out
+        List<Query<T>> list = new ArrayList<>(parts.length);
+        for (Query<T> part : parts) {
+            list.add(part);
+        }
+        return junction(true, list);
+    }
+    
+    public static <T> Query<T> allOf(List<Query<T>> parts) {
+        return junction(true, parts);
+    }
+    
+    @SafeVarargs
+    public static <T> Query<T> anyOf(Query<T>... parts) {
+        List<Query<T>> list = new ArrayList<>(parts.length);
+        for (Query<T> part : parts) {
+            list.add(part);
+        }
+        return junction(false, list);
+    }
+    
+    public static <T> Query<T> anyOf(List<Query<T>> parts) {
+        return junction(false, parts);
+    }
+    
+    // Nested junctions of the same kind are flattened, so a.and(b).and(c) plans like allOf(a, b, c)
+    private static <T> Query<T> junction(boolean all, List<Query<T>> parts) {
+        List<Query<T>> flat = new ArrayList<>(parts.size());
+        for (Query<T> part : parts) {
+            Objects.requireNonNull(part, "Query cannot be null");
+            if (part instanceof Junction && ((Junction<T>) part).all == all) {
+                flat.addAll(((Junction<T>) part).parts);
+            } else {
+                flat.add(part);
+            }
+        }
+        return new Junction<>(all, Collections.unmodifiableList(flat));
+    }
+    
+    public Query<T> and(Query<T> other) {
+        return junction(true, Arrays.asList(this, other));
+    }
+    
+    public Query<T> or(Query<T> other) {
+        return junction(false, Arrays.asList(this, other));
+    }
+    
+    public abstract boolean test(T entity);
+    
+    /**
+     * A single condition on one field
+     */
+    public static final class Condition<T, V> extends Query<T> {
+        private final Field<T, V> field;
+        private final Kind kind;
+        private final List<V> values;     // EQ and IN
+        private final Set<V> valueSet;
+        private final V from;             // RANGE bounds, inclusive; null when open
+        private final V to;
+        private final String prefix;      // PREFIX, lowercased
+        
+        private Condition(Field<T, V> field, Kind kind, List<V> values, V from, V to, String prefix) {
+            this.field = Objects.requireNonNull(field, "Field cannot be null");
+            this.kind = kind;
+            this.values = values;
+            this.valueSet = new HashSet<>(values);
+            this.from = from;
+            this.to = to;
+            this.prefix = prefix;
+        }
+        
+        @Override
+        public boolean test(T entity) {
+            return matchesValue(field.get(entity));
+        }
+        
+        /**
+         * Whether a field value satisfies the condition; lets an index test its distinct values
+         */
+        public boolean matchesValue(Object value) {
+            if (value == null) {
+                return false;
+            }
+            switch (kind) {
+                case EQ:
+                case IN:
+                    return valueSet.contains(value);
+                case RANGE:
+                    return (from == null || compare(value, from) >= 0) && (to == null || compare(value, to) <= 0);
+                case PREFIX:
+                    return value.toString().toLowerCase(Locale.ROOT).startsWith(prefix);
+                default:
+                    return false;
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static int compare(Object value, Object bound) {
+            return ((Comparable<Object>) value).compareTo(bound);
+        }
+        
+        public Field<T, V> getField() { return field; }
+        public Kind getKind() { return kind; }
+        public List<V> getValues() { return values; }
+        public String getPrefix() { return prefix; }
+        
+        @Override
+        public String toString() {
+            switch (kind) {
+                case EQ:
+                    return field + " = " + values.get(0);
+                case IN:
+                    return values.stream().map(String::valueOf).collect(Collectors.joining(", ", field + " IN (", ")"));
+                case RANGE:
+                    if (from == null) return field + " <= " + to;
+                    if (to == null) return field + " >= " + from;
+                    return field + " BETWEEN " + from + " AND " + to;
+                default:
+                    return field + " PREFIX '" + prefix + "'";
+            }
+        }
+    }
+    
+    /**
+     * AND or OR over several queries
+     */
+    public static final class Junction<T> extends Query<T> {
+        private final boolean all;
+        private final List<Query<T>> parts;
+        
+        private Junction(boolean all, List<Query<T>> parts) {
+            if (parts.isEmpty()) {
+                throw new IllegalArgumentException("A junction needs at least one query");
+            }
+            this.all = all;
+            this.parts = parts;
+        }
+        
+        @Override
+        public boolean test(T entity) {
+            for (Query<T> part : parts) {
+                if (part.test(entity) != all) {
+                    return !all;
+                }
+            }
+            return all;
+        }
+        
+        public boolean isAnd() { return all; }
+        public List<Query<T>> getParts() { return parts; }
+        
+        @Override
+        public String toString() {
+            return parts.stream().map(Query::toString).collect(Collectors.joining(all ? " AND " : " OR ", "(", ")"));
+        }
+    }
+}
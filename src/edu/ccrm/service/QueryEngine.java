@@ -0,0 +1,232 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Plans and runs queries for one entity type against the access paths a service offers.
+ *
+ * Each condition is offered to every access path and served by the one with the fewest
+ * estimated rows. An AND is driven by its most selective servable part; an OR is a union
+ * of its parts when every part can be served. Anything else is a full scan. Candidates are
+ * rechecked against the whole query, except that an AND driven by an exact access path skips
+ * the driving part; inexact access paths therefore only need to return a superset.
+ */
+public final class QueryEngine<T> {
+    private final String entityName;
+    private final Supplier<? extends Collection<T>> scan;
+    private final LongSupplier count;
+    private final List<AccessPath<T>> accessPaths = new ArrayList<>();
+    
+    /**
+     * A way to find the rows matching a single condition without a scan
+     */
+    @FunctionalInterface
+    public interface AccessPath<T> {
+        Optional<Access<T>> access(Query.Condition<T, ?> condition);
+    }
+    
+    /**
+     * Rows for one condition: how they are found, roughly how many, and the rows themselves.
+     * Exact rows are precisely those matching the condition; otherwise they are a superset.
+     */
+    public static final class Access<T> {
+        private final String description;
+        private final long estimate;
+        private final boolean exact;
+        private final Supplier<? extends Collection<T>> rows;
+        
+        public Access(String description, long estimate, boolean exact, Supplier<? extends Collection<T>> rows) {
+            this.description = Objects.requireNonNull(description, "Description cannot be null");
+            this.estimate = estimate;
+            this.exact = exact;
+            this.rows = Objects.requireNonNull(rows, "Rows cannot be null");
+        }
+        
+        public String getDescription() { return description; }
+        public long getEstimate() { return estimate; }
+        public boolean isExact() { return exact; }
+        
+        Collection<T> rows() {
+            return rows.get();
+        }
+    }
+    
+    public QueryEngine(String entityName, Supplier<? extends Collection<T>> scan, LongSupplier count) {
+        this.entityName = Objects.requireNonNull(entityName, "Entity name cannot be null");
+        this.scan = Objects.requireNonNull(scan, "Scan cannot be null");
+        this.count = Objects.requireNonNull(count, "Count cannot be null");
+    }
+    
+    public QueryEngine<T> addAccessPath(AccessPath<T> accessPath) {
+        accessPaths.add(Objects.requireNonNull(accessPath, "Access path cannot be null"));
+        return this;
+    }
+    
+    /**
+     * Serve equality and IN conditions on the primary key by direct lookup
+     */
+    public static <T, ID> AccessPath<T> keyLookup(String entityName, Field<T, ID> keyField,
+                                                  Function<ID, Optional<T>> finder) {
+        return condition -> {
+            if (condition.getField() != keyField
+                    || (condition.getKind() != Query.Kind.EQ && condition.getKind() != Query.Kind.IN)) {
+                return Optional.empty();
+            }
+            List<?> keys = condition.getValues();
+            return Optional.of(new Access<>("Key lookup " + entityName + "." + keyField + ": " + condition,
+                keys.size(), true, () -> {
+                    List<T> rows = new ArrayList<>(keys.size());
+                    for (Object key : keys) {
+                        finder.apply(keyField.getType().cast(key)).ifPresent(rows::add);
+                    }
+                    return rows;
+                }));
+        };
+    }
+    
+    /**
+     * Serve equality and IN conditions on a field through a lookup that lists the rows for one value,
+     * such as a by-student or by-course index
+     */
+    public static <T, K> AccessPath<T> valueLookup(String entityName, Field<T, K> field,
+                                                   Function<K, ? extends Collection<T>> lookup) {
+        return condition -> {
+            if (condition.getField() != field
+                    || (condition.getKind() != Query.Kind.EQ && condition.getKind() != Query.Kind.IN)) {
+                return Optional.empty();
+            }
+            List<T> rows = new ArrayList<>();
+            for (Object value : condition.getValues()) {
+                rows.addAll(lookup.apply(field.getType().cast(value)));
+            }
+            return Optional.of(new Access<>("Index " + entityName + "." + field + ": " + condition,
+                rows.size(), true, () -> rows));
+        };
+    }
+    
+    /**
+     * Serve prefix conditions on text fields covered by a substring search index. The search
+     * may return entities matching in another field; the filter drops those.
+     */
+    public static <T> AccessPath<T> textSearch(String entityName, Collection<Field<T, String>> fields,
+                                               Function<String, ? extends Collection<T>> search) {
+        return condition -> {
+            if (condition.getKind() != Query.Kind.PREFIX || !fields.contains(condition.getField())) {
+                return Optional.empty();
+            }
+            Collection<T> rows = search.apply(condition.getPrefix());
+            return Optional.of(new Access<>("Text index " + entityName + ": " + condition, rows.size(), false,
+                () -> rows));
+        };
+    }
+    
+    /**
+     * Serve conditions on any field with a registered secondary index. Equality and IN read
+     * buckets directly; ranges and prefixes test the index's distinct values.
+     */
+    public static <T, ID> AccessPath<T> secondaryIndexes(String entityName, SecondaryIndexes<T, ID> indexes,
+                                                         Function<ID, Optional<T>> finder) {
+        return condition -> indexes.get(condition.getField().getName())
+            .filter(index -> index.getValueType() == condition.getField().getType())
+            .map(index -> new Access<T>("Index " + entityName + "." + condition.getField() + ": " + condition,
+                index.count(condition::matchesValue), true, () -> {
+                    // Only the chosen access path collects its IDs
+                    Collection<ID> ids = matchingIds(index, condition);
+                    List<T> rows = new ArrayList<>(ids.size());
+                    for (ID id : ids) {
+                        finder.apply(id).ifPresent(rows::add);
+                    }
+                    return rows;
+                }));
+    }
+    
+    private static <T, ID, V> Collection<ID> matchingIds(SecondaryIndex<T, ID, V> index,
+                                                         Query.Condition<T, ?> condition) {
+        if (condition.getKind() == Query.Kind.EQ) {
+            return index.get(index.getValueType().cast(condition.getValues().get(0)));
+        }
+        return index.matching(condition::matchesValue);
+    }
+    
+    public QueryPlan<T> plan(Query<T> query) {
+        Objects.requireNonNull(query, "Query cannot be null");
+        if (!(query instanceof Query.Junction) || !((Query.Junction<T>) query).isAnd()) {
+            QueryPlan.Source<T> source = source(query);
+            return new QueryPlan<>(source, source.exact() ? null : query);
+        }
+        
+        // A top-level AND: the driving part is dropped from the filter when answered exactly
+        List<Query<T>> parts = ((Query.Junction<T>) query).getParts();
+        int driver = -1;
+        QueryPlan.Source<T> best = null;
+        for (int i = 0; i < parts.size(); i++) {
+            QueryPlan.Source<T> part = source(parts.get(i));
+            if (!(part instanceof QueryPlan.Scan) && (best == null || part.estimate() < best.estimate())) {
+                best = part;
+                driver = i;
+            }
+        }
+        if (best == null) {
+            return new QueryPlan<>(fullScan(), query);
+        }
+        if (!best.exact()) {
+            return new QueryPlan<>(best, query);
+        }
+        List<Query<T>> rest = new ArrayList<>(parts);
+        rest.remove(driver);
+        return new QueryPlan<>(best, rest.size() == 1 ? rest.get(0) : Query.allOf(rest));
+    }
+    
+    public List<T> execute(Query<T> query) {
+        return plan(query).execute();
+    }
+    
+    private QueryPlan.Source<T> source(Query<T> query) {
+        if (query instanceof Query.Condition) {
+            return best((Query.Condition<T, ?>) query);
+        }
+        
+        Query.Junction<T> junction = (Query.Junction<T>) query;
+        List<QueryPlan.Source<T>> parts = new ArrayList<>();
+        for (Query<T> part : junction.getParts()) {
+            parts.add(source(part));
+        }
+        
+        if (junction.isAnd()) {
+            // Drive from the most selective part; the filter applies the rest
+            QueryPlan.Source<T> best = null;
+            for (QueryPlan.Source<T> part : parts) {
+                if (!(part instanceof QueryPlan.Scan) && (best == null || part.estimate() < best.estimate())) {
+                    best = part;
+                }
+            }
+            return best != null ? new QueryPlan.Partial<>(best) : fullScan();
+        }
+        
+        // An OR can skip the scan only if every branch can
+        for (QueryPlan.Source<T> part : parts) {
+            if (part instanceof QueryPlan.Scan) {
+                return fullScan();
+            }
+        }
+        return parts.size() == 1 ? parts.get(0) : new QueryPlan.Union<>(parts);
+    }
+    
+    private QueryPlan.Source<T> best(Query.Condition<T, ?> condition) {
+        Access<T> best = null;
+        for (AccessPath<T> accessPath : accessPaths) {
+            Optional<Access<T>> access = accessPath.access(condition);
+            if (access.isPresent() && (best == null || access.get().getEstimate() < best.getEstimate())) {
+                best = access.get();
+            }
+        }
+        return best != null ? new QueryPlan.Lookup<>(best) : fullScan();
+    }
+    
+    private QueryPlan.Source<T> fullScan() {
+        return new QueryPlan.Scan<>(entityName, count.getAsLong(), scan);
+    }
+}
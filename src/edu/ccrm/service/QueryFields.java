@@ -0,0 +1,52 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+
+/**
+ * Queryable fields of each entity. Names match the services' index names,
+ * so conditions on these fields can be answered from an index.
+ */
+public final class QueryFields {
+    private QueryFields() {}
+    
+    public static final class Students {
+        public static final Field<Student, Long> ID = Field.of("id", Long.class, Student::getId);
+        public static final Field<Student, String> REG_NO = Field.of("regNo", String.class, Student::getRegNo);
+        public static final Field<Student, String> FULL_NAME = Field.of("fullName", String.class, Student::getFullName);
+        public static final Field<Student, String> EMAIL = Field.of("email", String.class, Student::getEmail);
+        public static final Field<Student, StudentStatus> STATUS =
+            Field.of("status", StudentStatus.class, Student::getStatus);
+        
+        private Students() {}
+    }
+    
+    public static final class Courses {
+        public static final Field<Course, String> CODE = Field.of("code", String.class, Course::getCode);
+        public static final Field<Course, String> TITLE = Field.of("title", String.class, Course::getTitle);
+        public static final Field<Course, Integer> CREDITS = Field.of("credits", Integer.class, Course::getCredits);
+        public static final Field<Course, String> INSTRUCTOR =
+            Field.of("instructor", String.class, Course::getInstructor);
+        public static final Field<Course, String> DEPARTMENT =
+            Field.of("department", String.class, Course::getDepartment);
+        public static final Field<Course, Semester> SEMESTER = Field.of("semester", Semester.class, Course::getSemester);
+        public static final Field<Course, Boolean> ACTIVE = Field.of("active", Boolean.class, Course::isActive);
+        
+        private Courses() {}
+    }
+    
+    public static final class Enrollments {
+        public static final Field<Enrollment, Long> STUDENT_ID =
+            Field.of("studentId", Long.class, enrollment -> enrollment.getStudent().getId());
+        public static final Field<Enrollment, String> COURSE_CODE =
+            Field.of("courseCode", String.class, enrollment -> enrollment.getCourse().getCode());
+        public static final Field<Enrollment, EnrollmentStatus> STATUS =
+            Field.of("status", EnrollmentStatus.class, Enrollment::getStatus);
+        public static final Field<Enrollment, Grade> GRADE = Field.of("grade", Grade.class, Enrollment::getGrade);
+        public static final Field<Enrollment, Semester> SEMESTER =
+            Field.of("semester", Semester.class, enrollment -> enrollment.getCourse().getSemester());
+        public static final Field<Enrollment, Integer> CREDITS =
+            Field.of("credits", Integer.class, enrollment -> enrollment.getCourse().getCredits());
+        
+        private Enrollments() {}
+    }
+}
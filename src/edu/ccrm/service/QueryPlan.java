@@ -0,0 +1,174 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * How a query will run: where candidate rows come from (a key lookup, an index,
+ * a union of those, or a full scan), and the residual filter applied to them: the
+ * conditions the source doesn't answer exactly. Built by QueryEngine; describe() is
+ * the explain output.
+ */
+public final class QueryPlan<T> {
+    private final Source<T> source;
+    private final Query<T> residual; // Null when the source answers the whole query
+    
+    QueryPlan(Source<T> source, Query<T> residual) {
+        this.source = source;
+        this.residual = residual;
+    }
+    
+    List<T> execute() {
+        Collection<T> rows = source.rows();
+        if (residual == null) {
+            return new ArrayList<>(rows);
+        }
+        List<T> results = new ArrayList<>();
+        for (T row : rows) {
+            if (residual.test(row)) {
+                results.add(row);
+            }
+        }
+        return results;
+    }
+    
+    public boolean usesIndex() {
+        return !(source instanceof Scan);
+    }
+    
+    public long getEstimatedRows() {
+        return source.estimate();
+    }
+    
+    public Optional<Query<T>> getResidual() {
+        return Optional.ofNullable(residual);
+    }
+    
+    /**
+     * One line per step, innermost last, e.g.
+     * <pre>
+     * Filter credits &gt;= 3
+     *   Index courses.semester: semester = FALL (~120 rows)
+     * </pre>
+     */
+    public String describe() {
+        StringBuilder out = new StringBuilder();
+        if (residual != null) {
+            out.append("\nFilter ").append(residual);
+        }
+        source.describe(out, residual != null ? "  " : "");
+        return out.substring(1);
+    }
+    
+    @Override
+    public String toString() {
+        return describe();
+    }
+    
+    // Where candidate rows come from
+    abstract static class Source<T> {
+        abstract long estimate();
+        abstract Collection<T> rows();
+        abstract void describe(StringBuilder out, String indent);
+        
+        // Whether the rows are exactly those matching the query this source was planned for
+        abstract boolean exact();
+    }
+    
+    static final class Scan<T> extends Source<T> {
+        private final String entityName;
+        private final long estimate;
+        private final Supplier<? extends Collection<T>> rows;
+        
+        Scan(String entityName, long estimate, Supplier<? extends Collection<T>> rows) {
+            this.entityName = entityName;
+            this.estimate = estimate;
+            this.rows = rows;
+        }
+        
+        @Override long estimate() { return estimate; }
+        @Override Collection<T> rows() { return rows.get(); }
+        @Override boolean exact() { return false; }
+        
+        @Override
+        void describe(StringBuilder out, String indent) {
+            out.append('\n').append(indent).append("Full scan ").append(entityName)
+                .append(" (~").append(estimate).append(" rows)");
+        }
+    }
+    
+    static final class Lookup<T> extends Source<T> {
+        private final QueryEngine.Access<T> access;
+        
+        Lookup(QueryEngine.Access<T> access) {
+            this.access = access;
+        }
+        
+        @Override long estimate() { return access.getEstimate(); }
+        @Override Collection<T> rows() { return access.rows(); }
+        @Override boolean exact() { return access.isExact(); }
+        
+        @Override
+        void describe(StringBuilder out, String indent) {
+            out.append('\n').append(indent).append(access.getDescription())
+                .append(" (~").append(access.getEstimate()).append(" rows)");
+        }
+    }
+    
+    // Rows of every branch of an OR, each row once
+    static final class Union<T> extends Source<T> {
+        private final List<Source<T>> branches;
+        
+        Union(List<Source<T>> branches) {
+            this.branches = branches;
+        }
+        
+        @Override
+        long estimate() {
+            return branches.stream().mapToLong(Source::estimate).sum();
+        }
+        
+        @Override
+        boolean exact() {
+            return branches.stream().allMatch(Source::exact);
+        }
+        
+        @Override
+        Collection<T> rows() {
+            Set<T> seen = new HashSet<>(); // Entities are equal by key, even as separate snapshots
+            List<T> rows = new ArrayList<>();
+            for (Source<T> branch : branches) {
+                for (T row : branch.rows()) {
+                    if (seen.add(row)) {
+                        rows.add(row);
+                    }
+                }
+            }
+            return rows;
+        }
+        
+        @Override
+        void describe(StringBuilder out, String indent) {
+            out.append('\n').append(indent).append("Union (~").append(estimate()).append(" rows)");
+            branches.forEach(branch -> branch.describe(out, indent + "  "));
+        }
+    }
+    
+    // Rows for one part of an AND, standing in for the whole; never exact for it
+    static final class Partial<T> extends Source<T> {
+        private final Source<T> part;
+        
+        Partial(Source<T> part) {
+            this.part = part;
+        }
+        
+        @Override long estimate() { return part.estimate(); }
+        @Override Collection<T> rows() { return part.rows(); }
+        @Override boolean exact() { return false; }
+        
+        @Override
+        void describe(StringBuilder out, String indent) {
+            part.describe(out, indent);
+        }
+    }
+}
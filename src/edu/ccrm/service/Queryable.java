@@ -0,0 +1,13 @@
+package edu.ccrm.service;
+
+import java.util.List;
+
+/**
+ * Services that answer typed queries, using their indexes where they can
+ */
+public interface Queryable<T> {
+    List<T> query(Query<T> query);
+    
+    // The plan query() would run, without running it
+    QueryPlan<T> explain(Query<T> query);
+}
@@ -0,0 +1,30 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Statistics behind the Reports menu
+ */
+public interface ReportService {
+    // Students with a GPA above zero, counted per band (Excellent, Good, Average, Below Average)
+    Map<String, Long> getGpaDistribution();
+    
+    // Highest-GPA students first; students without a GPA are left out
+    List<Student> getTopStudents(int limit);
+    OptionalInt getStudentRank(Long studentId);
+    int getRankedStudentCount();
+    double getStudentGpa(Long studentId);
+    
+    int getCourseEnrollmentCount(String courseCode);
+    long getTotalEnrollments();
+    
+    Map<Grade, Long> getGradeDistribution();
+    long getTotalGradedEnrollments();
+    
+    Map<String, Long> getDepartmentCourseCounts();
+}
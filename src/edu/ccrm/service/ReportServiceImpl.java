@@ -0,0 +1,229 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.*;
+
+import java.util.*;
+
+/**
+ * Report service backed by a materialized statistics snapshot.
+ * The snapshot is built once from the services' current state and then kept up to date
+ * from enrollment, course and student deletion events, so each report costs O(result size)
+ * instead of a transcript per student or a scan per course.
+ */
+public class ReportServiceImpl implements ReportService, EnrollmentListener, PersistenceListener<Course, String> {
+    static final String[] GPA_BANDS = {
+        "Excellent (3.5-4.0)", "Good (3.0-3.49)", "Average (2.5-2.99)", "Below Average (<2.5)"
+    };
+    
+    private final StudentService studentService;
+    private final EnrollmentService enrollmentService;
+    
+    // All state below is guarded by this. Event handlers read the student's GPA before taking
+    // the monitor, so a concurrent service's student lock is never requested while holding it.
+    private final StudentRanking ranking = new StudentRanking();            // Students with GPA > 0; reads are lock-free
+    private final long[] gpaBandCounts = new long[GPA_BANDS.length];
+    private final Map<String, Integer> courseEnrollments = new HashMap<>(); // Enrollment records per course
+    private long totalEnrollments;
+    private final Map<Grade, Long> gradeCounts = new EnumMap<>(Grade.class);
+    private long totalGraded;
+    private final Map<String, String> courseDepartments = new HashMap<>();  // Department each course was counted under
+    private final Map<String, Long> departmentCounts = new HashMap<>();
+    
+    public ReportServiceImpl(StudentService studentService, CourseService courseService,
+                             EnrollmentService enrollmentService) {
+        this.studentService = Objects.requireNonNull(studentService);
+        this.enrollmentService = Objects.requireNonNull(enrollmentService);
+        Objects.requireNonNull(courseService);
+        
+        // Initial scan; create the service before concurrent traffic starts
+        courseService.getAllCourses().forEach(this::countCourse);
+        Map<Long, StudentAggregate> aggregates = new HashMap<>();
+        for (Enrollment enrollment : enrollmentService.getAllEnrollmentsView()) {
+            countEnrollment(enrollment, 1);
+            countGrade(enrollment.getGrade(), 1);
+            aggregates.computeIfAbsent(enrollment.getStudent().getId(), id -> new StudentAggregate()).add(enrollment);
+        }
+        aggregates.forEach((id, aggregate) -> setStudentGpa(id, aggregate.getGpa()));
+        
+        courseService.addCourseListener(this);
+        enrollmentService.addEnrollmentListener(this);
+        studentService.addStudentListener(new PersistenceListener<Student, Long>() {
+            @Override
+            public void deleted(Long studentId) {
+                synchronized (ReportServiceImpl.this) {
+                    setGpa(studentId, 0.0);
+                }
+            }
+        });
+    }
+    
+    // Enrollment events
+    
+    @Override
+    public void enrolled(Enrollment enrollment) {
+        Long studentId = enrollment.getStudent().getId();
+        double gpa = enrollmentService.calculateStudentGPA(studentId);
+        synchronized (this) {
+            countEnrollment(enrollment, 1);
+            countGrade(enrollment.getGrade(), 1);
+            setStudentGpa(studentId, gpa);
+        }
+    }
+    
+    @Override
+    public void unenrolled(Enrollment enrollment) {
+        Long studentId = enrollment.getStudent().getId();
+        double gpa = enrollmentService.calculateStudentGPA(studentId);
+        synchronized (this) {
+            countEnrollment(enrollment, -1);
+            countGrade(enrollment.getGrade(), -1);
+            setStudentGpa(studentId, gpa);
+        }
+    }
+    
+    @Override
+    public void updated(Enrollment enrollment, Grade previousGrade, EnrollmentStatus previousStatus) {
+        Long studentId = enrollment.getStudent().getId();
+        double gpa = enrollmentService.calculateStudentGPA(studentId);
+        synchronized (this) {
+            countGrade(previousGrade, -1);
+            countGrade(enrollment.getGrade(), 1);
+            setStudentGpa(studentId, gpa);
+        }
+    }
+    
+    // Course events
+    
+    @Override
+    public synchronized void saved(Course course) {
+        uncountCourse(course.getCode()); // A re-save replaces the earlier entry
+        countCourse(course);
+    }
+    
+    @Override
+    public synchronized void updated(Course course) {
+        // Courses are edited in place, so compare against the department we counted
+        String previous = courseDepartments.get(course.getCode());
+        if (!Objects.equals(previous, course.getDepartment())) {
+            uncountCourse(course.getCode());
+            countCourse(course);
+        }
+    }
+    
+    @Override
+    public synchronized void deleted(String courseCode) {
+        uncountCourse(courseCode);
+    }
+    
+    // Reports
+    
+    @Override
+    public synchronized Map<String, Long> getGpaDistribution() {
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < GPA_BANDS.length; i++) {
+            if (gpaBandCounts[i] > 0) {
+                distribution.put(GPA_BANDS[i], gpaBandCounts[i]);
+            }
+        }
+        return distribution;
+    }
+    
+    @Override
+    public List<Student> getTopStudents(int limit) {
+        List<Student> top = new ArrayList<>();
+        for (Long studentId : ranking.top(limit)) {
+            studentService.findStudentById(studentId).ifPresent(top::add);
+        }
+        return top;
+    }
+    
+    @Override
+    public OptionalInt getStudentRank(Long studentId) {
+        return ranking.rankOf(studentId);
+    }
+    
+    @Override
+    public int getRankedStudentCount() {
+        return ranking.size();
+    }
+    
+    @Override
+    public double getStudentGpa(Long studentId) {
+        return ranking.getGpa(studentId);
+    }
+    
+    @Override
+    public synchronized int getCourseEnrollmentCount(String courseCode) {
+        return courseEnrollments.getOrDefault(courseCode, 0);
+    }
+    
+    @Override
+    public synchronized long getTotalEnrollments() {
+        return totalEnrollments;
+    }
+    
+    @Override
+    public synchronized Map<Grade, Long> getGradeDistribution() {
+        return new EnumMap<>(gradeCounts);
+    }
+    
+    @Override
+    public synchronized long getTotalGradedEnrollments() {
+        return totalGraded;
+    }
+    
+    @Override
+    public synchronized Map<String, Long> getDepartmentCourseCounts() {
+        return new HashMap<>(departmentCounts);
+    }
+    
+    // Snapshot maintenance; callers hold the monitor
+    
+    private void countEnrollment(Enrollment enrollment, int delta) {
+        courseEnrollments.merge(enrollment.getCourse().getCode(), delta, (a, b) -> a + b == 0 ? null : a + b);
+        totalEnrollments += delta;
+    }
+    
+    private void countGrade(Grade grade, int delta) {
+        if (grade != null) {
+            gradeCounts.merge(grade, (long) delta, (a, b) -> a + b == 0 ? null : a + b);
+            totalGraded += delta;
+        }
+    }
+    
+    private void setGpa(Long studentId, double gpa) {
+        double previous = ranking.update(studentId, gpa);
+        if (previous > 0) {
+            gpaBandCounts[bandOf(previous)]--;
+        }
+        if (gpa > 0) {
+            gpaBandCounts[bandOf(gpa)]++;
+        }
+    }
+    
+    // Enrollments outlive a deleted student, but the student leaves the ranking and bands.
+    // The store drops the student before the deletion event, so checking here under the
+    // monitor cannot re-rank a student whose deletion was already handled.
+    private void setStudentGpa(Long studentId, double gpa) {
+        setGpa(studentId, studentService.findStudentById(studentId).isPresent() ? gpa : 0.0);
+    }
+    
+    static int bandOf(double gpa) {
+        if (gpa >= 3.5) return 0;
+        else if (gpa >= 3.0) return 1;
+        else if (gpa >= 2.5) return 2;
+        else return 3;
+    }
+    
+    private void countCourse(Course course) {
+        courseDepartments.put(course.getCode(), course.getDepartment());
+        departmentCounts.merge(String.valueOf(course.getDepartment()), 1L, Long::sum);
+    }
+    
+    private void uncountCourse(String courseCode) {
+        if (courseDepartments.containsKey(courseCode)) {
+            String department = courseDepartments.remove(courseCode);
+            departmentCounts.merge(String.valueOf(department), -1L, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package edu.ccrm.service;
+
+import java.util.Arrays;
+
+/**
+ * Row numbers per dense reference (a student or course), in insertion order, as growable
+ * int arrays. Backs the by-student and by-course lookups of the primitive enrollment stores.
+ */
+final class RowLists {
+    private static final int[] EMPTY = new int[0];
+    
+    private int[][] rows = new int[16][];
+    private int[] sizes = new int[16];
+    
+    void add(int ref, int row) {
+        if (ref >= rows.length) {
+            int capacity = Math.max(ref + 1, rows.length * 2);
+            rows = Arrays.copyOf(rows, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        int[] list = rows[ref];
+        if (list == null) {
+            list = rows[ref] = new int[4];
+        } else if (sizes[ref] == list.length) {
+            list = rows[ref] = Arrays.copyOf(list, list.length * 2);
+        }
+        list[sizes[ref]++] = row;
+    }
+    
+    void remove(int ref, int row) {
+        int[] list = rows[ref];
+        int n = sizes[ref];
+        for (int i = 0; i < n; i++) {
+            if (list[i] == row) {
+                System.arraycopy(list, i + 1, list, i, n - i - 1);
+                sizes[ref] = n - 1;
+                return;
+            }
+        }
+    }
+    
+    // Backing array; only the first size(ref) entries are rows
+    int[] rows(int ref) {
+        return ref < rows.length && rows[ref] != null ? rows[ref] : EMPTY;
+    }
+    
+    int size(int ref) {
+        return ref < sizes.length ? sizes[ref] : 0;
+    }
+    
+    void clear() {
+        Arrays.fill(sizes, 0);
+    }
+}
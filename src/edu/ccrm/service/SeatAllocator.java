@@ -0,0 +1,275 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.ToIntFunction;
+
+/**
+ * Lock-free seat allocation for capacity-limited courses.
+ * Each course's free seats are spread over a striped counter so threads registering
+ * for the same popular course mostly CAS on different cache lines. Students who find
+ * the course full join a FIFO waitlist.
+ *
+ * A course's ledger is created the first time it is asked about while the course has a
+ * capacity limit, and starts from the seats its enrollments already hold, as reported by
+ * the occupancy function. Seats taken while the course has no limit are not counted, so
+ * the ledger is dropped then and seeded again once a limit is set.
+ */
+public class SeatAllocator {
+    private final ConcurrentHashMap<String, SeatLedger> ledgers;
+    private final int stripes;
+    private final ToIntFunction<String> occupancy; // Seats held in a course, by course code
+    
+    public SeatAllocator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public SeatAllocator(int stripes) {
+        this(stripes, courseCode -> 0);
+    }
+    
+    public SeatAllocator(ToIntFunction<String> occupancy) {
+        this(Runtime.getRuntime().availableProcessors(), occupancy);
+    }
+    
+    public SeatAllocator(int stripes, ToIntFunction<String> occupancy) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = size;
+        this.ledgers = new ConcurrentHashMap<>();
+        this.occupancy = Objects.requireNonNull(occupancy);
+    }
+    
+    /**
+     * Take a seat in the course
+     * @return true if a seat was taken or the course has no capacity limit
+     */
+    public boolean tryReserve(Course course) {
+        if (!course.hasCapacityLimit()) {
+            forget(course);
+            return true;
+        }
+        return ledgerFor(course).seats.tryAcquire();
+    }
+    
+    /**
+     * Take a seat without the capacity check, for an enrollment restored as it was recorded.
+     * A seat taken beyond capacity is owed back by the next release. Without a ledger yet,
+     * the enrollment is counted when the ledger is seeded instead.
+     */
+    public void occupy(Course course) {
+        SeatLedger ledger = existingLedger(course);
+        if (ledger != null) {
+            ledger.seats.acquireOrOwe();
+        }
+    }
+    
+    /**
+     * Give a seat back once its enrollment no longer holds it
+     */
+    public void release(Course course) {
+        SeatLedger ledger = existingLedger(course);
+        if (ledger != null) {
+            ledger.seats.release();
+        }
+    }
+    
+    public int availableSeats(Course course) {
+        if (!course.hasCapacityLimit()) {
+            return Integer.MAX_VALUE;
+        }
+        return ledgerFor(course).seats.available();
+    }
+    
+    public boolean hasAvailableSeats(Course course) {
+        return availableSeats(course) > 0;
+    }
+    
+    /**
+     * Add a student to the back of the course's waitlist
+     * @return false if the student is already waitlisted
+     */
+    public boolean joinWaitlist(Course course, Long studentId) {
+        SeatLedger ledger = ledgerFor(course);
+        if (!ledger.waitlisted.add(studentId)) {
+            return false;
+        }
+        ledger.waitlist.add(studentId);
+        return true;
+    }
+    
+    /**
+     * Put a student back at the front of the course's waitlist, for a promotion that lost
+     * its seat to a concurrent enroll. A copy the failed enroll queued at the back is moved.
+     */
+    public void requeueFirst(Course course, Long studentId) {
+        SeatLedger ledger = ledgerFor(course);
+        if (!ledger.waitlisted.add(studentId)) {
+            ledger.waitlist.remove(studentId);
+        }
+        ledger.waitlist.addFirst(studentId);
+    }
+    
+    /**
+     * Remove and return the student at the front of the course's waitlist
+     */
+    public Optional<Long> pollWaitlist(String courseCode) {
+        SeatLedger ledger = ledgers.get(courseCode);
+        if (ledger == null) {
+            return Optional.empty();
+        }
+        Long studentId = ledger.waitlist.poll();
+        if (studentId != null) {
+            ledger.waitlisted.remove(studentId);
+        }
+        return Optional.ofNullable(studentId);
+    }
+    
+    public List<Long> getWaitlist(String courseCode) {
+        SeatLedger ledger = ledgers.get(courseCode);
+        return ledger != null ? new ArrayList<>(ledger.waitlist) : List.of();
+    }
+    
+    private SeatLedger ledgerFor(Course course) {
+        SeatLedger ledger = ledgers.computeIfAbsent(course.getCode(),
+            code -> new SeatLedger(course.getCapacity(), occupancy.applyAsInt(code), stripes));
+        ledger.syncCapacity(course.getCapacity());
+        return ledger;
+    }
+    
+    // Ledger to update for a seat taken or given back, or null if seeding will count it
+    private SeatLedger existingLedger(Course course) {
+        if (!course.hasCapacityLimit()) {
+            forget(course);
+            return null;
+        }
+        SeatLedger ledger = ledgers.get(course.getCode());
+        if (ledger != null) {
+            ledger.syncCapacity(course.getCapacity());
+        }
+        return ledger;
+    }
+    
+    // The course has no limit now; its ledger would miss the seats taken meanwhile
+    private void forget(Course course) {
+        if (!ledgers.isEmpty()) {
+            ledgers.remove(course.getCode());
+        }
+    }
+    
+    // Per-course seat counter and waitlist
+    private static final class SeatLedger {
+        private final AtomicInteger capacity;
+        private final StripedSeatCounter seats;
+        private final Deque<Long> waitlist = new ConcurrentLinkedDeque<>();
+        private final Set<Long> waitlisted = ConcurrentHashMap.newKeySet();
+        
+        // Seats held beyond capacity, after a cut below current occupancy, are owed
+        SeatLedger(int capacity, int occupied, int stripes) {
+            this.capacity = new AtomicInteger(capacity);
+            this.seats = new StripedSeatCounter(capacity, stripes);
+            seats.adjust(-occupied);
+        }
+        
+        // Apply a Course.setCapacity change as a delta on the free seats
+        void syncCapacity(int current) {
+            int known = capacity.get();
+            if (known != current && capacity.compareAndSet(known, current)) {
+                seats.adjust(current - known);
+            }
+        }
+    }
+    
+    /**
+     * Free-seat counter split across padded stripes. A thread starts at its home stripe and
+     * moves on only when that stripe is empty, so uncontended CAS is the common case.
+     */
+    static final class StripedSeatCounter {
+        private static final int PAD = 16; // 16 ints = 64 bytes, one stripe per cache line
+        
+        private final AtomicIntegerArray cells;
+        private final AtomicInteger debt; // Seats owed after a capacity cut below current occupancy
+        private final int mask;
+        
+        StripedSeatCounter(int seats, int stripes) {
+            this.cells = new AtomicIntegerArray(stripes * PAD);
+            this.debt = new AtomicInteger();
+            this.mask = stripes - 1;
+            for (int i = 0; i < stripes; i++) {
+                cells.set(i * PAD, seats / stripes + (i < seats % stripes ? 1 : 0));
+            }
+        }
+        
+        private int home() {
+            long id = Thread.currentThread().getId();
+            return (int) (id ^ (id >>> 16)) & mask;
+        }
+        
+        boolean tryAcquire() {
+            int home = home();
+            for (int n = 0; n <= mask; n++) {
+                int slot = ((home + n) & mask) * PAD;
+                int free;
+                while ((free = cells.get(slot)) > 0) {
+                    if (cells.compareAndSet(slot, free, free - 1)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        
+        void acquireOrOwe() {
+            if (!tryAcquire()) {
+                debt.incrementAndGet();
+            }
+        }
+        
+        void release() {
+            // Returned seats pay off any debt before they become free again
+            int owed;
+            while ((owed = debt.get()) > 0) {
+                if (debt.compareAndSet(owed, owed - 1)) {
+                    return;
+                }
+            }
+            cells.getAndIncrement(home() * PAD);
+        }
+        
+        void adjust(int delta) {
+            if (delta > 0) {
+                for (int i = 0; i < delta; i++) {
+                    release();
+                }
+                return;
+            }
+            int owed = 0;
+            for (int i = 0; i < -delta; i++) {
+                if (!tryAcquire()) {
+                    owed++;
+                }
+            }
+            if (owed > 0) {
+                debt.addAndGet(owed);
+            }
+        }
+        
+        int available() {
+            int total = 0;
+            for (int i = 0; i <= mask; i++) {
+                total += cells.get(i * PAD);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Equality index from one field's value to the IDs of the entities holding it.
+ * Entities are edited in place, so the index remembers the value each ID was filed
+ * under and moves the ID when re-indexed with a different value. Null values are not indexed.
+ * Buckets keep indexing order. Not thread-safe, like the services that own it.
+ *
+ * @param <T> entity type
+ * @param <ID> entity ID type
+ * @param <V> indexed value type
+ */
+public abstract class SecondaryIndex<T, ID, V> {
+    private final Class<V> valueType;
+    private final Function<? super T, ? extends V> extractor;
+    private final Map<ID, V> filedUnder = new HashMap<>();
+    
+    protected SecondaryIndex(Class<V> valueType, Function<? super T, ? extends V> extractor) {
+        this.valueType = Objects.requireNonNull(valueType, "Value type cannot be null");
+        this.extractor = Objects.requireNonNull(extractor, "Extractor cannot be null");
+    }
+    
+    /**
+     * Buckets in an EnumMap, for fields like Semester or StudentStatus
+     */
+    public static <T, ID, E extends Enum<E>> SecondaryIndex<T, ID, E> byEnum(Class<E> type,
+                                                                              Function<? super T, E> extractor) {
+        return new EnumIndex<>(type, extractor);
+    }
+    
+    /**
+     * Buckets in an array indexed by the value, for small non-negative ints like credits.
+     * Values outside the dense range go to a hash map.
+     */
+    public static <T, ID> SecondaryIndex<T, ID, Integer> byInt(ToIntFunction<? super T> extractor) {
+        Objects.requireNonNull(extractor, "Extractor cannot be null");
+        return new IntIndex<>(entity -> extractor.applyAsInt(entity));
+    }
+    
+    /**
+     * Buckets in a hash map, for free-form values like department or instructor
+     */
+    public static <T, ID, V> SecondaryIndex<T, ID, V> byHash(Class<V> type, Function<? super T, ? extends V> extractor) {
+        return new HashIndex<>(type, extractor);
+    }
+    
+    /**
+     * File the entity under its current value, moving it if the value changed
+     */
+    public void index(ID id, T entity) {
+        V value = extractor.apply(entity);
+        if (filedUnder.containsKey(id)) {
+            V previous = filedUnder.get(id);
+            if (Objects.equals(previous, value)) {
+                return;
+            }
+            unfile(id, previous);
+        }
+        filedUnder.put(id, value);
+        if (value != null) {
+            bucket(value, true).add(id);
+        }
+    }
+    
+    public void remove(ID id) {
+        if (filedUnder.containsKey(id)) {
+            unfile(id, filedUnder.remove(id));
+        }
+    }
+    
+    /**
+     * IDs filed under the value, in indexing order; a read-only view
+     */
+    public Set<ID> get(V value) {
+        Set<ID> bucket = value != null ? bucket(value, false) : null;
+        return bucket != null ? Collections.unmodifiableSet(bucket) : Set.of();
+    }
+    
+    /**
+     * IDs filed under any value the predicate accepts. Costs O(distinct values + result).
+     */
+    public List<ID> matching(Predicate<? super V> predicate) {
+        List<ID> ids = new ArrayList<>();
+        forEachBucket((value, bucket) -> {
+            if (predicate.test(value)) {
+                ids.addAll(bucket);
+            }
+        });
+        return ids;
+    }
+    
+    /**
+     * Number of IDs filed under values the predicate accepts, without collecting them
+     */
+    public long count(Predicate<? super V> predicate) {
+        long[] count = {0};
+        forEachBucket((value, bucket) -> {
+            if (predicate.test(value)) {
+                count[0] += bucket.size();
+            }
+        });
+        return count[0];
+    }
+    
+    public boolean accepts(Object value) {
+        return valueType.isInstance(value);
+    }
+    
+    public Class<V> getValueType() {
+        return valueType;
+    }
+    
+    private void unfile(ID id, V value) {
+        if (value == null) {
+            return;
+        }
+        Set<ID> bucket = bucket(value, false);
+        if (bucket != null) {
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+                dropBucket(value);
+            }
+        }
+    }
+    
+    // Bucket for a non-null value, created on demand if asked; null if absent otherwise
+    protected abstract Set<ID> bucket(V value, boolean create);
+    protected abstract void dropBucket(V value);
+    protected abstract void forEachBucket(BiConsumer<V, Set<ID>> action);
+    
+    private static final class EnumIndex<T, ID, E extends Enum<E>> extends SecondaryIndex<T, ID, E> {
+        private final EnumMap<E, Set<ID>> buckets;
+        
+        EnumIndex(Class<E> type, Function<? super T, E> extractor) {
+            super(type, extractor);
+            this.buckets = new EnumMap<>(type);
+        }
+        
+        @Override
+        protected Set<ID> bucket(E value, boolean create) {
+            return create ? buckets.computeIfAbsent(value, v -> new LinkedHashSet<>()) : buckets.get(value);
+        }
+        
+        @Override
+        protected void dropBucket(E value) {
+            buckets.remove(value);
+        }
+        
+        @Override
+        protected void forEachBucket(BiConsumer<E, Set<ID>> action) {
+            buckets.forEach(action);
+        }
+    }
+    
+    private static final class IntIndex<T, ID> extends SecondaryIndex<T, ID, Integer> {
+        private static final int DENSE_LIMIT = 256;
+        
+        private Object[] dense = new Object[8]; // Bucket per value in [0, dense.length)
+        private final Map<Integer, Set<ID>> sparse = new HashMap<>();
+        
+        IntIndex(Function<? super T, Integer> extractor) {
+            super(Integer.class, extractor);
+        }
+        
+        @Override
+        protected Set<ID> bucket(Integer value, boolean create) {
+            int v = value;
+            if (v < 0 || v >= DENSE_LIMIT) {
+                return create ? sparse.computeIfAbsent(value, k -> new LinkedHashSet<>()) : sparse.get(value);
+            }
+            if (v >= dense.length) {
+                if (!create) {
+                    return null;
+                }
+                dense = Arrays.copyOf(dense, Math.min(DENSE_LIMIT, Math.max(v + 1, dense.length * 2)));
+            }
+            Set<ID> bucket = denseBucket(v);
+            if (bucket == null && create) {
+                bucket = new LinkedHashSet<>();
+                dense[v] = bucket;
+            }
+            return bucket;
+        }
+        
+        @Override
+        protected void dropBucket(Integer value) {
+            int v = value;
+            if (v >= 0 && v < dense.length) {
+                dense[v] = null;
+            } else {
+                sparse.remove(value);
+            }
+        }
+        
+        @Override
+        protected void forEachBucket(BiConsumer<Integer, Set<ID>> action) {
+            for (int v = 0; v < dense.length; v++) {
+                if (dense[v] != null) {
+                    action.accept(v, denseBucket(v));
+                }
+            }
+            sparse.forEach(action);
+        }
+        
+        @SuppressWarnings("unchecked")
+        private Set<ID> denseBucket(int v) {
+            return (Set<ID>) dense[v];
+        }
+    }
+    
+    private static final class HashIndex<T, ID, V> extends SecondaryIndex<T, ID, V> {
+        private final Map<V, Set<ID>> buckets = new HashMap<>();
+        
+        HashIndex(Class<V> type, Function<? super T, ? extends V> extractor) {
+            super(type, extractor);
+        }
+        
+        @Override
+        protected Set<ID> bucket(V value, boolean create) {
+            return create ? buckets.computeIfAbsent(value, v -> new LinkedHashSet<>()) : buckets.get(value);
+        }
+        
+        @Override
+        protected void dropBucket(V value) {
+            buckets.remove(value);
+        }
+        
+        @Override
+        protected void forEachBucket(BiConsumer<V, Set<ID>> action) {
+            buckets.forEach(action);
+        }
+    }
+}
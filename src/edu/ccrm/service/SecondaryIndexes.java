@@ -0,0 +1,69 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Named secondary indexes for one entity type, kept in step with the primary store.
+ * Services call index() from save/update and remove() from delete, and findByField
+ * consults lookup() before falling back to a scan.
+ */
+public final class SecondaryIndexes<T, ID> {
+    private final Function<? super T, ? extends ID> idOf;
+    private final Map<String, SecondaryIndex<T, ID, ?>> byField = new LinkedHashMap<>();
+    
+    public SecondaryIndexes(Function<? super T, ? extends ID> idOf) {
+        this.idOf = Objects.requireNonNull(idOf, "ID function cannot be null");
+    }
+    
+    /**
+     * Register an index under a field name (matched case-insensitively), filling it from the given entities
+     */
+    public <V> SecondaryIndex<T, ID, V> register(String fieldName, SecondaryIndex<T, ID, V> index,
+                                                 Collection<? extends T> existing) {
+        Objects.requireNonNull(index, "Index cannot be null");
+        String key = fieldName.toLowerCase(Locale.ROOT);
+        if (byField.containsKey(key)) {
+            throw new IllegalArgumentException("Field " + fieldName + " is already indexed");
+        }
+        existing.forEach(entity -> index.index(idOf.apply(entity), entity));
+        byField.put(key, index);
+        return index;
+    }
+    
+    public void index(T entity) {
+        ID id = idOf.apply(entity);
+        for (SecondaryIndex<T, ID, ?> index : byField.values()) {
+            index.index(id, entity);
+        }
+    }
+    
+    public void remove(ID id) {
+        for (SecondaryIndex<T, ID, ?> index : byField.values()) {
+            index.remove(id);
+        }
+    }
+    
+    /**
+     * IDs whose field equals the value, or empty if the field isn't indexed for that value type
+     */
+    public Optional<Set<ID>> lookup(String fieldName, Object value) {
+        SecondaryIndex<T, ID, ?> index = byField.get(fieldName.toLowerCase(Locale.ROOT));
+        if (index == null || !index.accepts(value)) {
+            return Optional.empty();
+        }
+        return Optional.of(get(index, value));
+    }
+    
+    public Optional<SecondaryIndex<T, ID, ?>> get(String fieldName) {
+        return Optional.ofNullable(byField.get(fieldName.toLowerCase(Locale.ROOT)));
+    }
+    
+    public boolean isIndexed(String fieldName) {
+        return byField.containsKey(fieldName.toLowerCase(Locale.ROOT));
+    }
+    
+    private static <T, ID, V> Set<ID> get(SecondaryIndex<T, ID, V> index, Object value) {
+        return index.get(index.getValueType().cast(value));
+    }
+}
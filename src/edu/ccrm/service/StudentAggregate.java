@@ -0,0 +1,79 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.EnrollmentStatus;
+import edu.ccrm.domain.Grade;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running credit and grade-point totals for one student.
+ * Updated as a delta whenever one of the student's enrollments changes, so GPA
+ * and credit-limit checks are O(1) reads regardless of the student's history.
+ *
+ * Each enrollment's course credits are remembered when it is added, and removing it
+ * subtracts those same credits, so a course whose credits change in between cannot
+ * make the totals drift. The new credits count from the enrollment's next add.
+ */
+public class StudentAggregate {
+    private int attemptedCredits;   // Credits of every enrollment on record
+    private int enrolledCredits;    // Credits of enrollments still in ENROLLED status
+    private int gradedCredits;      // Credits counted towards GPA (graded, excluding I and W)
+    private double gradePointSum;   // Sum of grade points x credits over graded enrollments
+    private final Map<Long, Integer> addedCredits = new HashMap<>(); // By enrollment ID
+
+    /**
+     * Add an enrollment's current contribution to the totals
+     */
+    public void add(Enrollment enrollment) {
+        int credits = enrollment.getCourse().getCredits();
+        addedCredits.put(enrollment.getId(), credits);
+        apply(enrollment, credits, 1);
+    }
+
+    /**
+     * Remove an enrollment's current contribution from the totals.
+     * Call before mutating the enrollment, then {@link #add(Enrollment)} afterwards.
+     */
+    public void remove(Enrollment enrollment) {
+        Integer credits = addedCredits.remove(enrollment.getId());
+        apply(enrollment, credits != null ? credits : enrollment.getCourse().getCredits(), -1);
+    }
+
+    private void apply(Enrollment enrollment, int credits, int sign) {
+        attemptedCredits += sign * credits;
+
+        if (enrollment.getStatus() == EnrollmentStatus.ENROLLED) {
+            enrolledCredits += sign * credits;
+        }
+
+        if (countsTowardsGpa(enrollment)) {
+            gradedCredits += sign * credits;
+            gradePointSum += sign * enrollment.getGrade().getGradePoints() * credits;
+        }
+    }
+
+    static boolean countsTowardsGpa(Enrollment enrollment) {
+        return enrollment.hasGrade() && enrollment.getGrade() != Grade.W && enrollment.getGrade() != Grade.I;
+    }
+
+    public int getAttemptedCredits() { return attemptedCredits; }
+    public int getEnrolledCredits() { return enrolledCredits; }
+    public int getGradedCredits() { return gradedCredits; }
+    public double getGradePointSum() { return gradePointSum; }
+
+    public double getGpa() {
+        return gradedCredits > 0 ? gradePointSum / gradedCredits : 0.0;
+    }
+
+    public boolean isEmpty() {
+        return attemptedCredits == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StudentAggregate{attempted=%d, enrolled=%d, graded=%d, gpa=%.3f}",
+            attemptedCredits, enrolledCredits, gradedCredits, getGpa());
+    }
+}
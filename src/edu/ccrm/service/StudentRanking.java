@@ -0,0 +1,143 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Students ordered by GPA, kept current as grades change.
+ * A concurrent skip list holds the order, so top-K is a walk over the first K entries.
+ * A Fenwick tree over GPA buckets of 0.001 counts students above any GPA, which makes
+ * rank-of-student O(log n) plus the few students sharing the student's bucket.
+ *
+ * Updates for one student must not run concurrently with each other (the enrollment
+ * services guarantee this with the student's lock); reads are lock-free and weakly consistent.
+ */
+public class StudentRanking {
+    private static final double MAX_GPA = 4.0;
+    private static final int BUCKETS_PER_POINT = 1000;
+    private static final int BUCKETS = (int) (MAX_GPA * BUCKETS_PER_POINT) + 1;
+    
+    private final ConcurrentSkipListSet<Entry> ranked = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray tree = new AtomicIntegerArray(BUCKETS + 1); // 1-based Fenwick tree
+    
+    // Highest GPA first, then lowest student ID
+    private static final class Entry implements Comparable<Entry> {
+        final Long studentId;
+        final double gpa;
+        
+        Entry(Long studentId, double gpa) {
+            this.studentId = studentId;
+            this.gpa = gpa;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            int byGpa = Double.compare(other.gpa, gpa);
+            return byGpa != 0 ? byGpa : studentId.compareTo(other.studentId);
+        }
+    }
+    
+    /**
+     * Set a student's GPA; a GPA of zero or less removes the student from the ranking
+     * @return the previous GPA, or 0.0 if the student was not ranked
+     */
+    public double update(Long studentId, double gpa) {
+        Objects.requireNonNull(studentId, "Student ID cannot be null");
+        Entry previous = entries.get(studentId);
+        if (previous != null && previous.gpa == gpa) {
+            return gpa;
+        }
+        
+        if (previous != null) {
+            ranked.remove(previous);
+            addToBucket(bucketOf(previous.gpa), -1);
+        }
+        if (gpa > 0) {
+            Entry entry = new Entry(studentId, gpa);
+            entries.put(studentId, entry);
+            ranked.add(entry);
+            addToBucket(bucketOf(gpa), 1);
+        } else if (previous != null) {
+            entries.remove(studentId);
+        }
+        return previous != null ? previous.gpa : 0.0;
+    }
+    
+    public void remove(Long studentId) {
+        update(studentId, 0.0);
+    }
+    
+    /**
+     * IDs of the K highest-ranked students, best first. O(K).
+     */
+    public List<Long> top(int k) {
+        List<Long> top = new ArrayList<>(Math.max(0, Math.min(k, entries.size())));
+        Iterator<Entry> it = ranked.iterator();
+        while (top.size() < k && it.hasNext()) {
+            top.add(it.next().studentId);
+        }
+        return top;
+    }
+    
+    /**
+     * 1-based competition rank ("1224"): one more than the number of students with a higher GPA
+     */
+    public OptionalInt rankOf(Long studentId) {
+        Entry entry = entries.get(studentId);
+        if (entry == null) {
+            return OptionalInt.empty();
+        }
+        
+        // Everyone in a strictly higher bucket, from the tree
+        int bucket = bucketOf(entry.gpa);
+        int above = countFromBucket(bucket + 1);
+        
+        // Plus students in the same bucket with a strictly higher GPA, from the skip list.
+        // The window starts one bucket higher so rounding at the bucket edge can't hide anyone.
+        Entry bucketTop = new Entry(Long.MIN_VALUE, Math.min(MAX_GPA, (bucket + 2) / (double) BUCKETS_PER_POINT));
+        Entry firstTied = new Entry(Long.MIN_VALUE, entry.gpa);
+        for (Entry e : ranked.subSet(bucketTop, true, firstTied, false)) {
+            if (e.gpa > entry.gpa && bucketOf(e.gpa) == bucket) {
+                above++;
+            }
+        }
+        return OptionalInt.of(above + 1);
+    }
+    
+    public double getGpa(Long studentId) {
+        Entry entry = entries.get(studentId);
+        return entry != null ? entry.gpa : 0.0;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private static int bucketOf(double gpa) {
+        double clamped = Math.max(0.0, Math.min(MAX_GPA, gpa));
+        return (int) (clamped * BUCKETS_PER_POINT);
+    }
+    
+    private void addToBucket(int bucket, int delta) {
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+            tree.addAndGet(i, delta);
+        }
+    }
+    
+    // Students in buckets [bucket, BUCKETS)
+    private int countFromBucket(int bucket) {
+        return prefix(BUCKETS) - prefix(bucket);
+    }
+    
+    // Students in buckets [0, bucket)
+    private int prefix(int bucket) {
+        int sum = 0;
+        for (int i = bucket; i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,295 @@
+package edu.ccrm.service;
+
+import java.util.*;
+
+/**
+ * Case-insensitive substring index over a few text fields per entity.
+ *
+ * Every lowercased field is broken into trigrams, and each trigram maps to a sorted posting
+ * list of document numbers. A query of three or more characters intersects the postings of its
+ * trigrams, starting from the shortest list, and only the surviving candidates are checked with
+ * contains(), so a search touches a handful of entities instead of all of them. Shorter queries
+ * fall back to a scan of the already lowercased fields.
+ *
+ * Results are ranked by match quality: an exact field match beats a field prefix, which beats
+ * a word prefix, which beats a plain substring. Ties go to the earlier field (fields are given
+ * in priority order), then the shorter field, then indexing order.
+ *
+ * Removed and re-indexed entities leave dead document numbers behind; postings are rebuilt once
+ * dead documents outnumber live ones. Not thread-safe, like the services that own it.
+ */
+public class TextIndex<K> {
+    private static final int MIN_GRAM_QUERY = 3;
+    private static final int MIN_COMPACT_SIZE = 1024;
+    private static final int VERIFY_DIRECTLY = 32;
+    
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int WORD_PREFIX = 1;
+    private static final int SUBSTRING = 0;
+    
+    private final Map<K, Integer> docOf = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private Object[] keys = new Object[16];   // Document number -> key, null once dead
+    private String[][] fields = new String[16][]; // Document number -> lowercased fields
+    private int docCount;
+    private int deadCount;
+    
+    // Growable sorted list of document numbers
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+        
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+    
+    /**
+     * Index or re-index an entity; fields are given highest priority first and may be null
+     */
+    public void put(K key, String... values) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        String[] normalized = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            normalized[i] = normalize(values[i]);
+        }
+        
+        Integer existing = docOf.get(key);
+        if (existing != null) {
+            if (Arrays.equals(fields[existing], normalized)) {
+                return; // Nothing searchable changed
+            }
+            kill(existing);
+        }
+        docOf.put(key, addDocument(key, normalized));
+        compactIfNeeded();
+    }
+    
+    public void remove(K key) {
+        Integer doc = docOf.remove(key);
+        if (doc != null) {
+            kill(doc);
+            compactIfNeeded();
+        }
+    }
+    
+    /**
+     * Keys of all entities with a field containing the query, best match first
+     */
+    public List<K> search(String query) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Match> matches = new ArrayList<>();
+        if (needle.length() < MIN_GRAM_QUERY) {
+            for (int doc = 0; doc < docCount; doc++) {
+                collect(doc, needle, matches);
+            }
+        } else {
+            Postings[] lists = postingsFor(needle);
+            if (lists == null) {
+                return List.of();
+            }
+            
+            // Narrow the shortest list against the others. Once few candidates remain, or the next
+            // trigram is in most documents anyway, verifying directly is cheaper than intersecting
+            int[] candidates = Arrays.copyOf(lists[0].docs, lists[0].size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > VERIFY_DIRECTLY && lists[i].size < docCount / 2; i++) {
+                count = retain(candidates, count, lists[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                collect(candidates[i], needle, matches);
+            }
+        }
+        
+        matches.sort(null);
+        List<K> results = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            results.add(keyOf(match.doc));
+        }
+        return results;
+    }
+    
+    public int size() {
+        return docOf.size();
+    }
+    
+    // Postings for every distinct trigram of the query, shortest first; null if one is missing
+    private Postings[] postingsFor(String needle) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + MIN_GRAM_QUERY <= needle.length(); i++) {
+            grams.add(gram(needle, i));
+        }
+        
+        Postings[] lists = new Postings[grams.size()];
+        int n = 0;
+        for (Long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return null;
+            }
+            lists[n++] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        return lists;
+    }
+    
+    // Keep the sorted candidates that also appear in the list; galloping makes this
+    // O(n log(m / n)) for n candidates against a list of m
+    private static int retain(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < list.size; i++) {
+            int doc = candidates[i];
+            int bound = 1;
+            while (from + bound < list.size && list.docs[from + bound] < doc) {
+                bound <<= 1;
+            }
+            int at = Arrays.binarySearch(list.docs, from, Math.min(from + bound + 1, list.size), doc);
+            if (at >= 0) {
+                candidates[kept++] = doc;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return kept;
+    }
+    
+    // Score a live document against the query and keep it if any field really contains it
+    private void collect(int doc, String needle, List<Match> matches) {
+        if (keys[doc] == null) {
+            return;
+        }
+        String[] values = fields[doc];
+        
+        Match best = null;
+        for (int f = 0; f < values.length; f++) {
+            int at = values[f].indexOf(needle);
+            if (at < 0) {
+                continue;
+            }
+            
+            int quality;
+            if (at == 0) {
+                quality = values[f].length() == needle.length() ? EXACT : PREFIX;
+            } else {
+                quality = SUBSTRING;
+                for (; at > 0; at = values[f].indexOf(needle, at + 1)) {
+                    if (!Character.isLetterOrDigit(values[f].charAt(at - 1))) {
+                        quality = WORD_PREFIX;
+                        break;
+                    }
+                }
+            }
+            
+            Match match = new Match(doc, quality, f, values[f].length());
+            if (best == null || match.compareTo(best) < 0) {
+                best = match;
+            }
+        }
+        if (best != null) {
+            matches.add(best);
+        }
+    }
+    
+    private int addDocument(K key, String[] normalized) {
+        if (docCount == keys.length) {
+            keys = Arrays.copyOf(keys, docCount * 2);
+            fields = Arrays.copyOf(fields, docCount * 2);
+        }
+        int doc = docCount++;
+        keys[doc] = key;
+        fields[doc] = normalized;
+        
+        // Each trigram is posted once per document, and document numbers only grow,
+        // so every posting list stays sorted
+        Set<Long> grams = new HashSet<>();
+        for (String value : normalized) {
+            for (int i = 0; i + MIN_GRAM_QUERY <= value.length(); i++) {
+                grams.add(gram(value, i));
+            }
+        }
+        for (Long gram : grams) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(doc);
+        }
+        return doc;
+    }
+    
+    private void kill(int doc) {
+        keys[doc] = null;
+        deadCount++;
+    }
+    
+    // Renumber live documents and rebuild postings without the dead ones
+    private void compactIfNeeded() {
+        if (deadCount < MIN_COMPACT_SIZE || deadCount <= docCount - deadCount) {
+            return;
+        }
+        
+        Object[] oldKeys = keys;
+        String[][] oldFields = fields;
+        int oldCount = docCount;
+        keys = new Object[Math.max(16, oldCount - deadCount)];
+        fields = new String[keys.length][];
+        docCount = 0;
+        deadCount = 0;
+        postings.clear();
+        docOf.clear();
+        
+        for (int doc = 0; doc < oldCount; doc++) {
+            if (oldKeys[doc] != null) {
+                K key = keyOfAny(oldKeys[doc]);
+                docOf.put(key, addDocument(key, oldFields[doc]));
+            }
+        }
+    }
+    
+    private K keyOf(int doc) {
+        return keyOfAny(keys[doc]);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private K keyOfAny(Object key) {
+        return (K) key;
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+    
+    // Three UTF-16 chars packed into one long
+    private static long gram(String value, int at) {
+        return ((long) value.charAt(at) << 32) | ((long) value.charAt(at + 1) << 16) | value.charAt(at + 2);
+    }
+    
+    // Ordering: better quality, earlier field, shorter field, earlier document
+    private static final class Match implements Comparable<Match> {
+        final int doc;
+        final int quality;
+        final int field;
+        final int length;
+        
+        Match(int doc, int quality, int field, int length) {
+            this.doc = doc;
+            this.quality = quality;
+            this.field = field;
+            this.length = length;
+        }
+        
+        @Override
+        public int compareTo(Match other) {
+            if (quality != other.quality) return Integer.compare(other.quality, quality);
+            if (field != other.field) return Integer.compare(field, other.field);
+            if (length != other.length) return Integer.compare(length, other.length);
+            return Integer.compare(doc, other.doc);
+        }
+    }
+}
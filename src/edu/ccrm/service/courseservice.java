@@ -8,7 +8,7 @@ import edu.ccrm.exception.CourseNotFoundException;
 import java.util.List;
 import java.util.Optional;
 
-public interface CourseService extends Persistable<Course, String>, Searchable<Course> {
+public interface CourseService extends Persistable<Course, String>, Searchable<Course>, Queryable<Course>, Pausable {
     void addCourse(Course course) throws DuplicateCourseException;
     void updateCourse(Course course) throws CourseNotFoundException;
     void deactivateCourse(String courseCode) throws CourseNotFoundException;
@@ -21,4 +21,7 @@ public interface CourseService extends Persistable<Course, String>, Searchable<C
     List<Course> findCoursesByInstructor(String instructor);
     List<Course> findCoursesBySemester(Semester semester);
     List<Course> findCoursesByCredits(int credits);
+    
+    // Change notifications for save/update/delete
+    void addCourseListener(PersistenceListener<Course, String> listener);
 }
@@ -7,48 +7,90 @@ import edu.ccrm.exception.CourseNotFoundException;
 import edu.ccrm.util.DataStore;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class CourseServiceImpl implements CourseService {
     private final DataStore<Course, String> courseStore;
+    private final List<PersistenceListener<Course, String>> listeners = new CopyOnWriteArrayList<>();
+    private final NavigableMap<String, Course> byCode = new ConcurrentSkipListMap<>(); // Key order, for views and pagination
+    private final TextIndex<String> searchIndex = new TextIndex<>(); // Code, title, instructor, department
+    private final SecondaryIndexes<Course, String> indexes = new SecondaryIndexes<>(Course::getCode);
+    private final SecondaryIndex<Course, String, Semester> bySemester;
+    private final SecondaryIndex<Course, String, Integer> byCredits;
+    private final SecondaryIndex<Course, String, String> byDepartment;
+    private final SecondaryIndex<Course, String, String> byInstructor;
+    private final QueryEngine<Course> queryEngine;
+    // Held shared while a change runs, listeners included, and exclusively by whilePaused
+    private final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
     
     public CourseServiceImpl() {
         this.courseStore = new DataStore<>();
+        this.bySemester = indexes.register("semester",
+            SecondaryIndex.byEnum(Semester.class, Course::getSemester), List.of());
+        this.byCredits = indexes.register("credits",
+            SecondaryIndex.byInt(Course::getCredits), List.of());
+        this.byDepartment = indexes.register("department",
+            SecondaryIndex.byHash(String.class, Course::getDepartment), List.of());
+        this.byInstructor = indexes.register("instructor",
+            SecondaryIndex.byHash(String.class, Course::getInstructor), List.of());
+        this.queryEngine = new QueryEngine<>("courses", this::findAllView, this::count)
+            .addAccessPath(QueryEngine.keyLookup("courses", QueryFields.Courses.CODE, this::findById))
+            .addAccessPath(QueryEngine.secondaryIndexes("courses", indexes, this::findById))
+            .addAccessPath(QueryEngine.textSearch("courses", List.of(QueryFields.Courses.CODE,
+                QueryFields.Courses.TITLE, QueryFields.Courses.INSTRUCTOR, QueryFields.Courses.DEPARTMENT), this::search));
     }
     
     @Override
     public void addCourse(Course course) throws DuplicateCourseException {
         Objects.requireNonNull(course, "Course cannot be null");
         
-        if (exists(course.getCode())) {
-            throw new DuplicateCourseException("Course with code " + course.getCode() + " already exists");
+        changeLock.readLock().lock();
+        try {
+            if (exists(course.getCode())) {
+                throw new DuplicateCourseException("Course with code " + course.getCode() + " already exists");
+            }
+            
+            save(course);
+        } finally {
+            changeLock.readLock().unlock();
         }
-        
-        save(course);
     }
     
     @Override
     public void updateCourse(Course course) throws CourseNotFoundException {
         Objects.requireNonNull(course, "Course cannot be null");
         
-        if (!exists(course.getCode())) {
-            throw new CourseNotFoundException("Course with code " + course.getCode() + " not found");
+        changeLock.readLock().lock();
+        try {
+            if (!exists(course.getCode())) {
+                throw new CourseNotFoundException("Course with code " + course.getCode() + " not found");
+            }
+            
+            update(course);
+        } finally {
+            changeLock.readLock().unlock();
         }
-        
-        update(course);
     }
     
     @Override
     public void deactivateCourse(String courseCode) throws CourseNotFoundException {
-        Optional<Course> optCourse = findById(courseCode);
-        if (optCourse.isEmpty()) {
-            throw new CourseNotFoundException("Course with code " + courseCode + " not found");
+        changeLock.readLock().lock();
+        try {
+            Optional<Course> optCourse = findById(courseCode);
+            if (optCourse.isEmpty()) {
+                throw new CourseNotFoundException("Course with code " + courseCode + " not found");
+            }
+            
+            Course course = optCourse.get();
+            course.setActive(false);
+            update(course);
+        } finally {
+            changeLock.readLock().unlock();
         }
-        
-        Course course = optCourse.get();
-        course.setActive(false);
-        update(course);
     }
     
     @Override
@@ -63,55 +105,98 @@ public class CourseServiceImpl implements CourseService {
     
     @Override
     public List<Course> getActiveCourses() {
-        return findAll().stream()
+        return byCode.values().stream()
             .filter(Course::isActive)
             .collect(Collectors.toList());
     }
     
     @Override
     public List<Course> findCoursesByDepartment(String department) {
-        return findAll().stream()
-            .filter(course -> course.getDepartment() != null && 
-                             course.getDepartment().toLowerCase().contains(department.toLowerCase()))
-            .collect(Collectors.toList());
+        // Substring match over the distinct departments rather than every course. The index
+        // holds departments as entered, for exact findByField lookups, so matching lowercases here.
+        String lowerDepartment = lowerCase(department);
+        return resolve(byDepartment.matching(value -> lowerCase(value).contains(lowerDepartment)));
     }
     
     @Override
     public List<Course> findCoursesByInstructor(String instructor) {
-        return findAll().stream()
-            .filter(course -> course.getInstructor() != null && 
-                             course.getInstructor().toLowerCase().contains(instructor.toLowerCase()))
-            .collect(Collectors.toList());
+        String lowerInstructor = lowerCase(instructor);
+        return resolve(byInstructor.matching(value -> lowerCase(value).contains(lowerInstructor)));
     }
     
     @Override
     public List<Course> findCoursesBySemester(Semester semester) {
-        return findAll().stream()
-            .filter(course -> course.getSemester() == semester)
-            .collect(Collectors.toList());
+        return resolve(bySemester.get(semester));
     }
     
     @Override
     public List<Course> findCoursesByCredits(int credits) {
-        return findAll().stream()
-            .filter(course -> course.getCredits() == credits)
-            .collect(Collectors.toList());
+        return resolve(byCredits.get(credits));
+    }
+    
+    /**
+     * Add a secondary index that findByField will consult for the field name
+     */
+    public <V> void registerIndex(String fieldName, SecondaryIndex<Course, String, V> index) {
+        indexes.register(fieldName, index, findAll());
+    }
+    
+    @Override
+    public void addCourseListener(PersistenceListener<Course, String> listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
     }
     
     // Persistable interface implementation
     @Override
     public void save(Course course) {
-        courseStore.save(course);
+        changeLock.readLock().lock();
+        try {
+            courseStore.save(course);
+            byCode.put(course.getCode(), course);
+            indexes.index(course);
+            indexForSearch(course);
+            listeners.forEach(listener -> listener.saved(course));
+        } finally {
+            changeLock.readLock().unlock();
+        }
     }
     
     @Override
     public void update(Course course) {
-        courseStore.update(course);
+        changeLock.readLock().lock();
+        try {
+            courseStore.update(course);
+            byCode.put(course.getCode(), course);
+            indexes.index(course);
+            indexForSearch(course);
+            listeners.forEach(listener -> listener.updated(course));
+        } finally {
+            changeLock.readLock().unlock();
+        }
     }
     
     @Override
     public void delete(String code) {
-        courseStore.delete(code);
+        changeLock.readLock().lock();
+        try {
+            courseStore.delete(code);
+            byCode.remove(code);
+            indexes.remove(code);
+            searchIndex.remove(code);
+            listeners.forEach(listener -> listener.deleted(code));
+        } finally {
+            changeLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public <T, X extends Exception> T whilePaused(PausedWork<T, X> work) throws X {
+        changeLock.writeLock().lock();
+        try {
+            return work.run();
+        } finally {
+            changeLock.writeLock().unlock();
+        }
     }
     
     @Override
@@ -134,21 +219,60 @@ public class CourseServiceImpl implements CourseService {
         return courseStore.count();
     }
     
+    @Override
+    public Collection<Course> findAllView() {
+        return Collections.unmodifiableCollection(byCode.values());
+    }
+    
+    @Override
+    public Page<Course, String> page(String afterCode, int limit) {
+        return Page.of(byCode, afterCode, limit);
+    }
+    
     // Searchable interface implementation
     @Override
     public List<Course> search(String query) {
-        String lowerQuery = query.toLowerCase();
-        return findAll().stream()
-            .filter(course -> course.getCode().toLowerCase().contains(lowerQuery) ||
-                             course.getTitle().toLowerCase().contains(lowerQuery) ||
-                             (course.getInstructor() != null && course.getInstructor().toLowerCase().contains(lowerQuery)) ||
-                             (course.getDepartment() != null && course.getDepartment().toLowerCase().contains(lowerQuery)))
-            .collect(Collectors.toList());
+        // Best matches first: exact, then prefix, then word prefix, then any substring
+        List<Course> results = new ArrayList<>();
+        for (String code : searchIndex.search(query)) {
+            findById(code).ifPresent(results::add);
+        }
+        return results;
+    }
+    
+    private void indexForSearch(Course course) {
+        searchIndex.put(course.getCode(), course.getCode(), course.getTitle(),
+            course.getInstructor(), course.getDepartment());
+    }
+    
+    // Courses for index hits in code order, like the views, rather than bucket order
+    private List<Course> resolve(Collection<String> codes) {
+        List<String> sorted = new ArrayList<>(codes);
+        Collections.sort(sorted);
+        List<Course> courses = new ArrayList<>(sorted.size());
+        for (String code : sorted) {
+            findById(code).ifPresent(courses::add);
+        }
+        return courses;
+    }
+    
+    private static String lowerCase(String value) {
+        return value != null ? value.toLowerCase() : null;
+    }
+    
+    @Override
+    public List<Course> query(Query<Course> query) {
+        return queryEngine.execute(query);
+    }
+    
+    @Override
+    public QueryPlan<Course> explain(Query<Course> query) {
+        return queryEngine.plan(query);
     }
     
     @Override
     public List<Course> filter(Predicate<Course> predicate) {
-        return findAll().stream()
+        return findAllView().stream()
             .filter(predicate)
             .collect(Collectors.toList());
     }
@@ -176,6 +300,8 @@ public class CourseServiceImpl implements CourseService {
                     return findCoursesByCredits((Integer) value);
                 }
                 break;
+            default:
+                return indexes.lookup(fieldName, value).map(this::resolve).orElse(List.of());
         }
         return List.of();
     }
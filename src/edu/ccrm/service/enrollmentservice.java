@@ -3,13 +3,22 @@ package edu.ccrm.service;
 import edu.ccrm.domain.*;
 import edu.ccrm.exception.*;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface EnrollmentService {
+public interface EnrollmentService extends Queryable<Enrollment>, Pausable {
     void enrollStudent(Long studentId, String courseCode) 
         throws StudentNotFoundException, CourseNotFoundException, 
-               DuplicateEnrollmentException, MaxCreditLimitExceededException;
+               DuplicateEnrollmentException, MaxCreditLimitExceededException,
+               CourseFullException;
+    
+    /**
+     * Enroll a batch in one pass. Every student and course is looked up once, and requests are
+     * applied in order per student, with the same rules as enrollStudent.
+     * @return one result per request, in request order; a failed item does not stop the batch
+     */
+    List<EnrollResult> enrollBatch(Collection<EnrollRequest> requests);
     
     void unenrollStudent(Long studentId, String courseCode) 
         throws EnrollmentNotFoundException;
@@ -25,10 +34,56 @@ public interface EnrollmentService {
     List<Enrollment> getCourseEnrollments(String courseCode);
     List<Enrollment> getAllEnrollments();
     
+    // Read-only live view of all enrollments, without copying
+    Collection<Enrollment> getAllEnrollmentsView();
+    
     // Business logic
     boolean isStudentEnrolled(Long studentId, String courseCode);
     int getStudentCreditHours(Long studentId);
     double calculateStudentGPA(Long studentId);
+    
+    // Seat capacity and waitlist
+    int getAvailableSeats(String courseCode);
+    List<Long> getWaitlist(String courseCode);
+    
+    // Change notifications
+    void addEnrollmentListener(EnrollmentListener listener);
+    void removeEnrollmentListener(EnrollmentListener listener);
+    
+    /**
+     * Move finished (COMPLETED or WITHDRAWN) enrollments to archive storage. They stay
+     * visible through every lookup; implementations without an archive move nothing.
+     * @return number of enrollments moved
+     */
+    default int archiveFinishedEnrollments() {
+        return 0;
+    }
+    
+    /**
+     * Put back an enrollment exactly as it was recorded (in a log, snapshot or backup),
+     * replacing any record for the same student and course. No rules are checked, no
+     * waitlisted student is promoted and no listener is notified.
+     */
+    void restoreEnrollment(Enrollment enrollment);
+    
+    /**
+     * Drop the record for a student and course, with the same caveats as restoreEnrollment;
+     * an occupied seat is freed without promoting anyone
+     * @return false if there was no such record
+     */
+    boolean discardEnrollment(Long studentId, String courseCode);
+    
+    /**
+     * Same as restoreEnrollment, but listeners hear of it as an enrollment or an update, so
+     * the journal, reports and change tracking follow a backup restored at runtime
+     */
+    void importEnrollment(Enrollment enrollment);
+    
+    /**
+     * Same as discardEnrollment, but listeners hear of the removal
+     * @return false if there was no such record
+     */
+    boolean removeEnrollment(Long studentId, String courseCode);
 }
 
 // File: src/edu/ccrm/service/EnrollmentServiceImpl.java
@@ -38,48 +93,41 @@ import edu.ccrm.domain.*;
 import edu.ccrm.exception.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class EnrollmentServiceImpl implements EnrollmentService {
-    private final List<Enrollment> enrollments;
-    private final StudentService studentService;
-    private final CourseService courseService;
-    
-    // Business rules
-    private static final int MAX_CREDITS_PER_SEMESTER = 18;
+/**
+ * Single-threaded enrollment service; see ConcurrentEnrollmentServiceImpl for parallel use.
+ * Finished enrollments can be moved off-heap with archiveFinishedEnrollments; lookups
+ * cover both tiers, and changes to archived ones are written back to their record.
+ */
+public class EnrollmentServiceImpl extends AbstractEnrollmentService {
+    private final EnrollmentIndex enrollments; // Primary (studentId, courseCode) index plus by-student/by-course indexes
+    private final EnrollmentArchive archive; // Finished enrollments, off-heap
+    private final Map<Long, StudentAggregate> aggregates; // Running credit/GPA totals per student
     
     public EnrollmentServiceImpl(StudentService studentService, CourseService courseService) {
-        this.enrollments = new ArrayList<>();
-        this.studentService = Objects.requireNonNull(studentService);
-        this.courseService = Objects.requireNonNull(courseService);
+        super(studentService, courseService);
+        this.enrollments = new EnrollmentIndex();
+        this.archive = new EnrollmentArchive();
+        this.aggregates = new HashMap<>();
     }
     
     @Override
     public void enrollStudent(Long studentId, String courseCode) 
         throws StudentNotFoundException, CourseNotFoundException, 
-               DuplicateEnrollmentException, MaxCreditLimitExceededException {
-        
-        // Validate student exists and is active
-        Optional<Student> optStudent = studentService.findStudentById(studentId);
-        if (optStudent.isEmpty()) {
-            throw new StudentNotFoundException("Student with ID " + studentId + " not found");
-        }
+               DuplicateEnrollmentException, MaxCreditLimitExceededException,
+               CourseFullException {
         
-        Student student = optStudent.get();
-        if (student.getStatus() != StudentStatus.ACTIVE) {
-            throw new IllegalStateException("Cannot enroll inactive student");
-        }
-        
-        // Validate course exists and is active
-        Optional<Course> optCourse = courseService.findCourseByCode(courseCode);
-        if (optCourse.isEmpty()) {
-            throw new CourseNotFoundException("Course with code " + courseCode + " not found");
-        }
+        Student student = requireActiveStudent(studentId);
+        Course course = requireActiveCourse(courseCode);
+        enrollResolved(student, course);
+    }
+    
+    @Override
+    protected void enrollResolved(Student student, Course course)
+        throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
         
-        Course course = optCourse.get();
-        if (!course.isActive()) {
-            throw new IllegalStateException("Cannot enroll in inactive course");
-        }
+        Long studentId = student.getId();
+        String courseCode = course.getCode();
         
         // Check for duplicate enrollment
         if (isStudentEnrolled(studentId, courseCode)) {
@@ -87,34 +135,42 @@ public class EnrollmentServiceImpl implements EnrollmentService {
         }
         
         // Check credit limit
-        int currentCredits = getStudentCreditHours(studentId);
-        if (currentCredits + course.getCredits() > MAX_CREDITS_PER_SEMESTER) {
-            throw new MaxCreditLimitExceededException(
-                String.format("Enrollment would exceed credit limit. Current: %d, Limit: %d", 
-                    currentCredits + course.getCredits(), MAX_CREDITS_PER_SEMESTER));
-        }
+        checkCreditLimit(getStudentCreditHours(studentId), course);
+        
+        // Take a seat last so a failed rule check never holds one
+        reserveSeat(student, course);
         
         // Create enrollment
         Enrollment enrollment = new Enrollment(student, course);
         enrollments.add(enrollment);
+        aggregateFor(studentId).add(enrollment);
         
         // Update student's enrolled courses
         student.addCourse(courseCode);
+        fireEnrolled(enrollment);
     }
     
     @Override
     public void unenrollStudent(Long studentId, String courseCode) throws EnrollmentNotFoundException {
         Optional<Enrollment> optEnrollment = findEnrollment(studentId, courseCode);
         if (optEnrollment.isEmpty()) {
-            throw new EnrollmentNotFoundException("Enrollment not found for student " + studentId + 
-                " in course " + courseCode);
+            throw enrollmentNotFound(studentId, courseCode);
         }
         
         Enrollment enrollment = optEnrollment.get();
         
+        StudentAggregate aggregate = aggregateFor(studentId);
+        aggregate.remove(enrollment);
+        Grade previousGrade = enrollment.getGrade();
+        EnrollmentStatus previousStatus = enrollment.getStatus();
+        boolean seatFreed = holdsSeat(previousStatus);
+        
         // Check if grades have been assigned
-        if (enrollment.hasGrade()) {
-            enrollment.withdraw(); // Mark as withdrawn but keep record
+        boolean kept = enrollment.hasGrade();
+        if (kept) {
+            enrollment.withdraw(); // Mark as withdrawn but keep record (index keys are unchanged)
+            aggregate.add(enrollment);
+            writeBack(enrollment);
         } else {
             enrollments.remove(enrollment); // Remove completely if no grades
         }
@@ -122,91 +178,215 @@ public class EnrollmentServiceImpl implements EnrollmentService {
         // Update student's enrolled courses
         Student student = enrollment.getStudent();
         student.removeCourse(courseCode);
+        
+        if (kept) {
+            fireUpdated(enrollment, previousGrade, previousStatus);
+        } else {
+            fireUnenrolled(enrollment);
+        }
+        
+        if (seatFreed) {
+            releaseSeat(enrollment.getCourse());
+        }
     }
     
     @Override
     public void recordGrade(Long studentId, String courseCode, Grade grade) throws EnrollmentNotFoundException {
         Optional<Enrollment> optEnrollment = findEnrollment(studentId, courseCode);
         if (optEnrollment.isEmpty()) {
-            throw new EnrollmentNotFoundException("Enrollment not found for student " + studentId + 
-                " in course " + courseCode);
+            throw enrollmentNotFound(studentId, courseCode);
         }
         
         Enrollment enrollment = optEnrollment.get();
-        enrollment.assignGrade(grade);
+        Grade previousGrade = enrollment.getGrade();
+        EnrollmentStatus previousStatus = enrollment.getStatus();
+        StudentAggregate aggregate = aggregateFor(studentId);
+        aggregate.remove(enrollment);
+        try {
+            enrollment.assignGrade(grade);
+        } finally {
+            aggregate.add(enrollment); // Re-apply even if the grade was rejected
+        }
+        writeBack(enrollment);
+        fireUpdated(enrollment, previousGrade, previousStatus);
     }
     
     @Override
     public void updateGrade(Long studentId, String courseCode, Grade grade) throws EnrollmentNotFoundException {
         Optional<Enrollment> optEnrollment = findEnrollment(studentId, courseCode);
         if (optEnrollment.isEmpty()) {
-            throw new EnrollmentNotFoundException("Enrollment not found for student " + studentId + 
-                " in course " + courseCode);
+            throw enrollmentNotFound(studentId, courseCode);
         }
         
         Enrollment enrollment = optEnrollment.get();
-        enrollment.updateGrade(grade);
+        Grade previousGrade = enrollment.getGrade();
+        EnrollmentStatus previousStatus = enrollment.getStatus();
+        StudentAggregate aggregate = aggregateFor(studentId);
+        aggregate.remove(enrollment);
+        try {
+            enrollment.updateGrade(grade);
+        } finally {
+            aggregate.add(enrollment);
+        }
+        writeBack(enrollment);
+        fireUpdated(enrollment, previousGrade, previousStatus);
     }
     
     @Override
     public Optional<Enrollment> findEnrollment(Long studentId, String courseCode) {
-        return enrollments.stream()
-            .filter(e -> e.getStudent().getId().equals(studentId) && 
-                        e.getCourse().getCode().equals(courseCode))
-            .findFirst();
+        Optional<Enrollment> enrollment = enrollments.find(studentId, courseCode);
+        return enrollment.isPresent() || archive.size() == 0 ? enrollment : archive.find(studentId, courseCode);
     }
     
+    // Archived enrollments first, as they are the older ones
     @Override
     public List<Enrollment> getStudentEnrollments(Long studentId) {
-        return enrollments.stream()
-            .filter(e -> e.getStudent().getId().equals(studentId))
-            .collect(Collectors.toList());
+        List<Enrollment> result = archive.forStudent(studentId);
+        result.addAll(enrollments.forStudent(studentId));
+        return result;
     }
     
     @Override
     public List<Enrollment> getCourseEnrollments(String courseCode) {
-        return enrollments.stream()
-            .filter(e -> e.getCourse().getCode().equals(courseCode))
-            .collect(Collectors.toList());
+        List<Enrollment> result = archive.forCourse(courseCode);
+        result.addAll(enrollments.forCourse(courseCode));
+        return result;
     }
     
     @Override
     public List<Enrollment> getAllEnrollments() {
-        return new ArrayList<>(enrollments);
+        List<Enrollment> result = new ArrayList<>(enrollments.size() + archive.size());
+        result.addAll(archive.all());
+        result.addAll(enrollments.all());
+        return result;
+    }
+    
+    @Override
+    public Collection<Enrollment> getAllEnrollmentsView() {
+        if (archive.size() == 0) {
+            return enrollments.all();
+        }
+        Collection<Enrollment> archived = archive.all();
+        Collection<Enrollment> live = enrollments.all();
+        return new AbstractCollection<Enrollment>() {
+            @Override
+            public Iterator<Enrollment> iterator() {
+                Iterator<Enrollment> first = archived.iterator();
+                Iterator<Enrollment> second = live.iterator();
+                return new Iterator<Enrollment>() {
+                    @Override
+                    public boolean hasNext() {
+                        return first.hasNext() || second.hasNext();
+                    }
+                    
+                    @Override
+                    public Enrollment next() {
+                        return first.hasNext() ? first.next() : second.next();
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return archived.size() + live.size();
+            }
+        };
+    }
+    
+    @Override
+    protected long enrollmentCount() {
+        return enrollments.size() + archive.size();
     }
     
     @Override
     public boolean isStudentEnrolled(Long studentId, String courseCode) {
-        return findEnrollment(studentId, courseCode).isPresent();
+        return enrollments.contains(studentId, courseCode) || archive.contains(studentId, courseCode);
     }
     
     @Override
-    public int getStudentCreditHours(Long studentId) {
-        return getStudentEnrollments(studentId).stream()
-            .filter(e -> e.getStatus() == EnrollmentStatus.ENROLLED)
-            .mapToInt(e -> e.getCourse().getCredits())
-            .sum();
+    public int archiveFinishedEnrollments() {
+        List<Enrollment> finished = new ArrayList<>();
+        for (Enrollment enrollment : enrollments.all()) {
+            if (enrollment.getStatus() != EnrollmentStatus.ENROLLED) {
+                finished.add(enrollment);
+            }
+        }
+        // Running totals are unaffected: the enrollments are still on record
+        for (Enrollment enrollment : finished) {
+            archive.add(enrollment);
+            enrollments.remove(enrollment);
+        }
+        return finished.size();
     }
     
     @Override
-    public double calculateStudentGPA(Long studentId) {
-        List<Enrollment> studentEnrollments = getStudentEnrollments(studentId).stream()
-            .filter(Enrollment::hasGrade)
-            .filter(e -> e.getGrade() != Grade.W && e.getGrade() != Grade.I)
-            .collect(Collectors.toList());
-        
-        if (studentEnrollments.isEmpty()) {
-            return 0.0;
+    public void restoreEnrollment(Enrollment enrollment) {
+        Long studentId = enrollment.getStudent().getId();
+        String courseCode = enrollment.getCourse().getCode();
+        Optional<Enrollment> archived = archive.size() > 0 ? archive.find(studentId, courseCode) : Optional.empty();
+        if (archived.isPresent()) {
+            StudentAggregate aggregate = aggregateFor(studentId);
+            aggregate.remove(archived.get());
+            revertRestored(archived.get());
+            archive.update(enrollment);
+            aggregate.add(enrollment);
+            applyRestored(enrollment);
+            return;
         }
         
-        double totalGradePoints = studentEnrollments.stream()
-            .mapToDouble(Enrollment::getGradePoints)
-            .sum();
-        
-        int totalCredits = studentEnrollments.stream()
-            .mapToInt(e -> e.getCourse().getCredits())
-            .sum();
-        
-        return totalCredits > 0 ? totalGradePoints / totalCredits : 0.0;
+        discardEnrollment(studentId, courseCode);
+        enrollments.add(enrollment);
+        aggregateFor(studentId).add(enrollment);
+        applyRestored(enrollment);
+    }
+    
+    @Override
+    public boolean discardEnrollment(Long studentId, String courseCode) {
+        Optional<Enrollment> existing = enrollments.find(studentId, courseCode);
+        Enrollment enrollment;
+        if (existing.isPresent()) {
+            enrollment = existing.get();
+            enrollments.remove(enrollment);
+        } else {
+            Optional<Enrollment> archived = archive.size() > 0 ? archive.find(studentId, courseCode) : Optional.empty();
+            if (archived.isEmpty()) {
+                return false;
+            }
+            enrollment = archived.get();
+            archive.remove(studentId, courseCode);
+        }
+        aggregateFor(studentId).remove(enrollment);
+        revertRestored(enrollment);
+        return true;
+    }
+    
+    /**
+     * Direct memory held by archived enrollments
+     */
+    public long getArchiveOffHeapBytes() {
+        return archive.getOffHeapBytes();
+    }
+    
+    // Archived enrollments are handed out as snapshots, so changes must be stored back
+    private void writeBack(Enrollment enrollment) {
+        if (archive.size() > 0 && !enrollments.contains(enrollment.getStudent().getId(), enrollment.getCourse().getCode())) {
+            archive.update(enrollment);
+        }
+    }
+    
+    @Override
+    public int getStudentCreditHours(Long studentId) {
+        StudentAggregate aggregate = aggregates.get(studentId);
+        return aggregate != null ? aggregate.getEnrolledCredits() : 0;
+    }
+    
+    @Override
+    public double calculateStudentGPA(Long studentId) {
+        StudentAggregate aggregate = aggregates.get(studentId);
+        return aggregate != null ? aggregate.getGpa() : 0.0;
+    }
+    
+    private StudentAggregate aggregateFor(Long studentId) {
+        return aggregates.computeIfAbsent(studentId, id -> new StudentAggregate());
     }
 }
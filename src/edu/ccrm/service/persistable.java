@@ -1,5 +1,6 @@
 package edu.ccrm.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +15,10 @@ public interface Persistable<T, ID> {
     List<T> findAll();
     boolean exists(ID id);
     long count();
+    
+    // Read-only live view of all entities, in key order, without copying
+    Collection<T> findAllView();
+    
+    // Up to limit entities with keys after afterKey (null for the first page), in key order
+    Page<T, ID> page(ID afterKey, int limit);
 }
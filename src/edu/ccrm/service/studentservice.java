@@ -11,7 +11,7 @@ import java.util.Optional;
 /**
  * Student service interface demonstrating service layer abstraction
  */
-public interface StudentService extends Persistable<Student, Long>, Searchable<Student> {
+public interface StudentService extends Persistable<Student, Long>, Searchable<Student>, Queryable<Student>, Pausable {
     void addStudent(Student student) throws DuplicateStudentException;
     void updateStudent(Student student) throws StudentNotFoundException;
     void deactivateStudent(Long studentId) throws StudentNotFoundException;
@@ -24,4 +24,7 @@ public interface StudentService extends Persistable<Student, Long>, Searchable<S
     // Business logic methods
     boolean canEnrollInCourse(Long studentId, String courseCode);
     int getTotalCreditsEnrolled(Long studentId);
+    
+    // Change notifications for save/update/delete
+    void addStudentListener(PersistenceListener<Student, Long> listener);
 }
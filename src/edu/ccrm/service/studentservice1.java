@@ -2,6 +2,7 @@
 // File: src/edu/ccrm/service/Persistable.java
 package edu.ccrm.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,12 @@ public interface Persistable<T, ID> {
     List<T> findAll();
     boolean exists(ID id);
     long count();
+    
+    // Read-only live view of all entities, in key order, without copying
+    Collection<T> findAllView();
+    
+    // Up to limit entities with keys after afterKey (null for the first page), in key order
+    Page<T, ID> page(ID afterKey, int limit);
 }
 
 // File: src/edu/ccrm/service/Searchable.java
@@ -52,7 +59,7 @@ import java.util.Optional;
 /**
  * Student service interface demonstrating service layer abstraction
  */
-public interface StudentService extends Persistable<Student, Long>, Searchable<Student> {
+public interface StudentService extends Persistable<Student, Long>, Searchable<Student>, Queryable<Student>, Pausable {
     void addStudent(Student student) throws DuplicateStudentException;
     void updateStudent(Student student) throws StudentNotFoundException;
     void deactivateStudent(Long studentId) throws StudentNotFoundException;
@@ -65,6 +72,9 @@ public interface StudentService extends Persistable<Student, Long>, Searchable<S
     // Business logic methods
     boolean canEnrollInCourse(Long studentId, String courseCode);
     int getTotalCreditsEnrolled(Long studentId);
+    
+    // Change notifications for save/update/delete
+    void addStudentListener(PersistenceListener<Student, Long> listener);
 }
 
 // File: src/edu/ccrm/service/StudentServiceImpl.java
@@ -74,64 +84,111 @@ import edu.ccrm.domain.Student;
 import edu.ccrm.domain.StudentStatus;
 import edu.ccrm.exception.DuplicateStudentException;
 import edu.ccrm.exception.StudentNotFoundException;
-import edu.ccrm.util.DataStore;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
- * Student service implementation demonstrating service layer pattern
+ * Student service implementation demonstrating service layer pattern.
+ *
+ * Thread-safe: the store and its indexes are guarded by one read/write lock, so lookups
+ * run in parallel and changes are exclusive. Adding a student checks for duplicates and
+ * stores it atomically; an update that would change a registration number is rejected.
+ * Listeners run after the lock is released. findAllView is weakly consistent, like a
+ * concurrent map's views: it reads the store a page at a time in ID order, so it never
+ * repeats a student and sees changes made during the iteration only when they fall after
+ * its position. The Student objects themselves are not guarded. whilePaused holds the
+ * write lock, so lookups wait as well.
  */
 public class StudentServiceImpl implements StudentService {
-    private final DataStore<Student, Long> studentStore;
-    private final Map<String, Long> regNoIndex; // Secondary index for registration numbers
+    private static final long NO_ID = Long.MIN_VALUE; // Missing-key value for the reg-number index
+    private static final int VIEW_PAGE_SIZE = 256; // Students read per lock hold by findAllView
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Guards the store and every index
+    private final LongObjectMap<Student> studentStore; // Unboxed IDs; also gives key order for views and pagination
+    private final ObjectLongMap<String> regNoIndex; // Secondary index for registration numbers
+    private final TextIndex<Long> searchIndex;  // Substring index over regNo, name and email
+    private final SecondaryIndexes<Student, Long> indexes;
+    private final SecondaryIndex<Student, Long, StudentStatus> byStatus;
+    private final QueryEngine<Student> queryEngine;
+    private final List<PersistenceListener<Student, Long>> listeners = new CopyOnWriteArrayList<>();
     
     public StudentServiceImpl() {
-        this.studentStore = new DataStore<>();
-        this.regNoIndex = new HashMap<>();
+        this.studentStore = new LongObjectMap<>();
+        this.regNoIndex = new ObjectLongMap<>();
+        this.searchIndex = new TextIndex<>();
+        this.indexes = new SecondaryIndexes<>(Student::getId);
+        this.byStatus = indexes.register("status",
+            SecondaryIndex.byEnum(StudentStatus.class, Student::getStatus), List.of());
+        this.queryEngine = new QueryEngine<>("students", this::findAllView, this::count)
+            .addAccessPath(QueryEngine.keyLookup("students", QueryFields.Students.ID, this::findById))
+            .addAccessPath(QueryEngine.keyLookup("students", QueryFields.Students.REG_NO, this::findStudentByRegNo))
+            .addAccessPath(QueryEngine.secondaryIndexes("students", indexes, this::findById))
+            .addAccessPath(QueryEngine.textSearch("students", List.of(QueryFields.Students.REG_NO,
+                QueryFields.Students.FULL_NAME, QueryFields.Students.EMAIL), this::search));
     }
     
     @Override
     public void addStudent(Student student) throws DuplicateStudentException {
         Objects.requireNonNull(student, "Student cannot be null");
         
-        // Check for duplicate registration number
-        if (regNoIndex.containsKey(student.getRegNo())) {
-            throw new DuplicateStudentException("Student with registration number " + 
-                student.getRegNo() + " already exists");
+        lock.writeLock().lock();
+        try {
+            // Check for duplicate registration number
+            if (regNoIndex.containsKey(student.getRegNo())) {
+                throw new DuplicateStudentException("Student with registration number " + 
+                    student.getRegNo() + " already exists");
+            }
+            
+            // Check for duplicate ID (shouldn't happen with proper ID generation)
+            if (studentStore.containsKey(student.getId())) {
+                throw new DuplicateStudentException("Student with ID " + student.getId() + " already exists");
+            }
+            
+            store(student);
+        } finally {
+            lock.writeLock().unlock();
         }
-        
-        // Check for duplicate ID (shouldn't happen with proper ID generation)
-        if (exists(student.getId())) {
-            throw new DuplicateStudentException("Student with ID " + student.getId() + " already exists");
-        }
-        
-        save(student);
-        regNoIndex.put(student.getRegNo(), student.getId());
+        listeners.forEach(listener -> listener.saved(student));
     }
     
     @Override
     public void updateStudent(Student student) throws StudentNotFoundException {
         Objects.requireNonNull(student, "Student cannot be null");
         
-        if (!exists(student.getId())) {
-            throw new StudentNotFoundException("Student with ID " + student.getId() + " not found");
+        lock.writeLock().lock();
+        try {
+            if (!studentStore.containsKey(student.getId())) {
+                throw new StudentNotFoundException("Student with ID " + student.getId() + " not found");
+            }
+            
+            store(student);
+        } finally {
+            lock.writeLock().unlock();
         }
-        
-        update(student);
+        listeners.forEach(listener -> listener.updated(student));
     }
     
     @Override
     public void deactivateStudent(Long studentId) throws StudentNotFoundException {
-        Optional<Student> optStudent = findById(studentId);
-        if (optStudent.isEmpty()) {
-            throw new StudentNotFoundException("Student with ID " + studentId + " not found");
+        Student student;
+        lock.writeLock().lock();
+        try {
+            student = studentId != null ? studentStore.get(studentId) : null;
+            if (student == null) {
+                throw new StudentNotFoundException("Student with ID " + studentId + " not found");
+            }
+            
+            student.setStatus(StudentStatus.INACTIVE);
+            store(student);
+        } finally {
+            lock.writeLock().unlock();
         }
-        
-        Student student = optStudent.get();
-        student.setStatus(StudentStatus.INACTIVE);
-        update(student);
+        listeners.forEach(listener -> listener.updated(student));
     }
     
     @Override
@@ -141,8 +198,16 @@ public class StudentServiceImpl implements StudentService {
     
     @Override
     public Optional<Student> findStudentByRegNo(String regNo) {
-        Long studentId = regNoIndex.get(regNo);
-        return studentId != null ? findById(studentId) : Optional.empty();
+        if (regNo == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            long studentId = regNoIndex.get(regNo, NO_ID);
+            return studentId != NO_ID ? Optional.ofNullable(studentStore.get(studentId)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     @Override
@@ -152,9 +217,12 @@ public class StudentServiceImpl implements StudentService {
     
     @Override
     public List<Student> getStudentsByStatus(StudentStatus status) {
-        return findAll().stream()
-            .filter(student -> student.getStatus() == status)
-            .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            return resolve(byStatus.get(status));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     @Override
@@ -185,57 +253,219 @@ public class StudentServiceImpl implements StudentService {
     // Persistable interface implementation
     @Override
     public void save(Student student) {
-        studentStore.save(student);
+        lock.writeLock().lock();
+        try {
+            store(student);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listeners.forEach(listener -> listener.saved(student));
     }
     
     @Override
     public void update(Student student) {
-        studentStore.update(student);
+        lock.writeLock().lock();
+        try {
+            store(student);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listeners.forEach(listener -> listener.updated(student));
+    }
+    
+    // Caller holds the write lock. Registration numbers are fixed once issued, so a new
+    // instance for a stored student must keep it; the index then never goes stale.
+    private void store(Student student) {
+        Student previous = studentStore.get(student.getId());
+        if (previous != null && !Objects.equals(previous.getRegNo(), student.getRegNo())) {
+            throw new IllegalArgumentException("Student " + student.getId() + " has registration number "
+                + previous.getRegNo() + ", not " + student.getRegNo());
+        }
+        studentStore.put(student.getId(), student);
+        regNoIndex.put(student.getRegNo(), student.getId());
+        indexes.index(student);
+        indexForSearch(student);
     }
     
     @Override
     public void delete(Long id) {
-        Optional<Student> optStudent = findById(id);
-        if (optStudent.isPresent()) {
-            regNoIndex.remove(optStudent.get().getRegNo());
+        lock.writeLock().lock();
+        try {
+            Student removed = studentStore.remove(id);
+            if (removed == null) {
+                return;
+            }
+            regNoIndex.remove(removed.getRegNo());
+            indexes.remove(id);
+            searchIndex.remove(id);
+        } finally {
+            lock.writeLock().unlock();
         }
-        studentStore.delete(id);
+        listeners.forEach(listener -> listener.deleted(id));
     }
     
     @Override
     public Optional<Student> findById(Long id) {
-        return studentStore.findById(id);
+        if (id == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(studentStore.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     @Override
     public List<Student> findAll() {
-        return studentStore.findAll();
+        Lock held = lockForOrderedRead();
+        try {
+            return new ArrayList<>(studentStore.values());
+        } finally {
+            held.unlock();
+        }
     }
     
     @Override
     public boolean exists(Long id) {
-        return studentStore.exists(id);
+        return findById(id).isPresent();
     }
     
     @Override
     public long count() {
-        return studentStore.count();
+        lock.readLock().lock();
+        try {
+            return studentStore.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public Collection<Student> findAllView() {
+        return new AbstractCollection<Student>() {
+            @Override
+            public Iterator<Student> iterator() {
+                return new Iterator<Student>() {
+                    private Page<Student, Long> page = page(null, VIEW_PAGE_SIZE);
+                    private Iterator<Student> items = page.getItems().iterator();
+                    
+                    @Override
+                    public boolean hasNext() {
+                        while (!items.hasNext() && page.hasMore()) {
+                            page = page(page.getNextKey().get(), VIEW_PAGE_SIZE);
+                            items = page.getItems().iterator();
+                        }
+                        return items.hasNext();
+                    }
+                    
+                    @Override
+                    public Student next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return items.next();
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return (int) count();
+            }
+        };
+    }
+    
+    @Override
+    public Page<Student, Long> page(Long afterId, int limit) {
+        Lock held = lockForOrderedRead();
+        try {
+            return studentStore.page(afterId, limit);
+        } finally {
+            held.unlock();
+        }
+    }
+    
+    // Ordered reads sort the store's keys first when needed, which takes the write lock
+    private Lock lockForOrderedRead() {
+        lock.readLock().lock();
+        if (studentStore.isKeyOrderCurrent()) {
+            return lock.readLock();
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        return lock.writeLock();
     }
     
     // Searchable interface implementation
     @Override
     public List<Student> search(String query) {
-        String lowerQuery = query.toLowerCase();
-        return findAll().stream()
-            .filter(student -> student.getFullName().toLowerCase().contains(lowerQuery) ||
-                              student.getEmail().toLowerCase().contains(lowerQuery) ||
-                              student.getRegNo().toLowerCase().contains(lowerQuery))
-            .collect(Collectors.toList());
+        // Best matches first: exact, then prefix, then word prefix, then any substring
+        lock.readLock().lock();
+        try {
+            return resolve(searchIndex.search(query));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void indexForSearch(Student student) {
+        searchIndex.put(student.getId(), student.getRegNo(), student.getFullName(), student.getEmail());
+    }
+    
+    // Caller holds the read or write lock
+    private List<Student> resolve(Collection<Long> ids) {
+        List<Student> students = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Student student = studentStore.get(id);
+            if (student != null) {
+                students.add(student);
+            }
+        }
+        return students;
+    }
+    
+    /**
+     * Add a secondary index that findByField will consult for the field name
+     */
+    public <V> void registerIndex(String fieldName, SecondaryIndex<Student, Long, V> index) {
+        lock.writeLock().lock();
+        try {
+            indexes.register(fieldName, index, studentStore.values());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public <T, X extends Exception> T whilePaused(PausedWork<T, X> work) throws X {
+        lock.writeLock().lock();
+        try {
+            return work.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void addStudentListener(PersistenceListener<Student, Long> listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+    
+    @Override
+    public List<Student> query(Query<Student> query) {
+        return queryEngine.execute(query);
+    }
+    
+    @Override
+    public QueryPlan<Student> explain(Query<Student> query) {
+        return queryEngine.plan(query);
     }
     
     @Override
     public List<Student> filter(Predicate<Student> predicate) {
-        return findAll().stream()
+        return findAllView().stream()
             .filter(predicate)
             .collect(Collectors.toList());
     }
@@ -256,6 +486,13 @@ public class StudentServiceImpl implements StudentService {
                         .orElse(List.of());
                 }
                 break;
+            default:
+                lock.readLock().lock();
+                try {
+                    return indexes.lookup(fieldName, value).map(this::resolve).orElse(List.of());
+                } finally {
+                    lock.readLock().unlock();
+                }
         }
         return List.of();
     }